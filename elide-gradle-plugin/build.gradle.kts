@@ -67,9 +67,18 @@ gradlePlugin {
 
 // Add a source set and a task for a functional test suite
 val functionalTest: SourceSet by sourceSets.creating
-gradlePlugin.testSourceSets(functionalTest)
+
+// Add a source set and a task for the synthetic-project benchmark suite (not part of `check`)
+val benchmark: SourceSet by sourceSets.creating
+gradlePlugin.testSourceSets(functionalTest, benchmark)
 
 configurations[functionalTest.implementationConfigurationName].extendsFrom(configurations.testImplementation.get())
+configurations[benchmark.implementationConfigurationName].extendsFrom(configurations.testImplementation.get())
+
+dependencies {
+    // results are written with Groovy's `JsonOutput`
+    benchmark.implementationConfigurationName(localGroovy())
+}
 
 val runtimeHome = layout.buildDirectory.dir("elide-runtime/elide-$elideVersion-$elidePlatform")
 
@@ -78,6 +87,23 @@ val functionalTestTask = tasks.register<Test>("functionalTest") {
     classpath = configurations[functionalTest.runtimeClasspathConfigurationName] + functionalTest.output
 }
 
+// Benchmark shape is controlled with `-Pelide.benchmark.<key>=...`; see `ElidePluginBenchmark` for the keys.
+val benchmarkTask = tasks.register<Test>("benchmark") {
+    group = "verification"
+    description = "Measures build times of synthetic projects with and without Elide."
+    testClassesDirs = benchmark.output.classesDirs
+    classpath = configurations[benchmark.runtimeClasspathConfigurationName] + benchmark.output
+    maxParallelForks = 1
+    outputs.upToDateWhen { false }
+    listOf("classes", "shapes", "modules", "dependencies", "modes", "iterations").forEach { key ->
+        findProperty("elide.benchmark.$key")?.let { systemProperty("elide.benchmark.$key", it.toString()) }
+    }
+    systemProperty(
+        "elide.benchmark.results",
+        layout.buildDirectory.dir("reports/elide/benchmarks").get().asFile.absolutePath,
+    )
+}
+
 val downloadElide by tasks.registering(Download::class) {
     src("https://elide.zip/cli/v1/snapshot/$elidePlatform/$elideVersion/elide.tgz")
     dest(layout.buildDirectory.dir("elide-runtime"))
@@ -0,0 +1,355 @@
+package com.example.plugin;
+
+import groovy.json.JsonOutput;
+import org.gradle.testkit.runner.GradleRunner;
+import org.junit.Test;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Generates synthetic projects of configurable shape and size, and measures clean, incremental, and no-op build times
+// with stock Gradle and with the Elide plugin. Results are written as JSON to `build/reports/elide/benchmarks`.
+//
+// The matrix is controlled with system properties (forwarded from `-Pelide.benchmark.<key>=...`):
+// - `classes`: comma-separated class counts (default `100,1000`; e.g. `100,1000,10000,50000`)
+// - `shapes`: `wide` (many packages over one base package) and/or `deep` (a chain of packages)
+// - `modules`: comma-separated module counts (default `1`)
+// - `dependencies`: comma-separated counts of synthetic Maven dependencies (default `10`)
+// - `modes`: `stock`, `elide` (Elide's compiler), and/or `elide-install` (compiler and `elideInstall`)
+// - `iterations`: timed iterations per scenario (default `3`)
+public class ElidePluginBenchmark {
+    private static final int classesPerPackage = 10;
+
+    private static List<String> listProperty(String key, String defaultValue) {
+        return Arrays.stream(System.getProperty("elide.benchmark." + key, defaultValue).split(","))
+                .map(String::trim)
+                .filter(it -> !it.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    private static List<Integer> intListProperty(String key, String defaultValue) {
+        return listProperty(key, defaultValue).stream().map(Integer::parseInt).collect(Collectors.toList());
+    }
+
+    @Test
+    public void measureBuildTimes() throws IOException {
+        var classCounts = intListProperty("classes", "100,1000");
+        var shapes = listProperty("shapes", "wide,deep");
+        var moduleCounts = intListProperty("modules", "1");
+        var dependencyCounts = intListProperty("dependencies", "10");
+        var modes = listProperty("modes", "stock,elide");
+        var iterations = Integer.parseInt(System.getProperty("elide.benchmark.iterations", "3"));
+        var resultsDir = Paths.get(System.getProperty("elide.benchmark.results", "build/reports/elide/benchmarks"));
+        var workDir = Paths.get("build/benchmark");
+        Files.createDirectories(resultsDir);
+
+        var results = new ArrayList<Map<String, Object>>();
+        for (var dependencies : dependencyCounts) {
+            var repo = workDir.resolve("repo-" + dependencies).toAbsolutePath();
+            writeSyntheticRepository(repo, dependencies);
+            for (var shape : shapes) {
+                for (var modules : moduleCounts) {
+                    for (var classes : classCounts) {
+                        for (var mode : modes) {
+                            var id = String.join("-", shape, classes + "c", modules + "m", dependencies + "d", mode);
+                            var projectDir = workDir.resolve(id);
+                            generateProject(projectDir, repo, shape, classes, modules, dependencies, mode);
+                            results.addAll(measure(projectDir, iterations, Map.of(
+                                    "shape", shape,
+                                    "classes", classes,
+                                    "modules", modules,
+                                    "dependencies", dependencies,
+                                    "mode", mode)));
+                        }
+                    }
+                }
+            }
+        }
+
+        var report = new LinkedHashMap<String, Object>();
+        report.put("results", results);
+        report.put("crossover", crossover(results));
+        Files.writeString(
+                resultsDir.resolve("results.json"),
+                JsonOutput.prettyPrint(JsonOutput.toJson(report)) + "\n",
+                StandardCharsets.UTF_8);
+    }
+
+    // Measure clean, no-op, and incremental builds of a generated project, after one untimed warm-up build. A clean
+    // build also drops the project's `.dev` roots, so that `elide install` runs again rather than finding its
+    // dependencies already installed.
+    private List<Map<String, Object>> measure(
+            Path projectDir,
+            int iterations,
+            Map<String, Object> shape) throws IOException {
+        run(projectDir, "classes");
+        var timings = new LinkedHashMap<String, List<Long>>();
+        timings.put("clean", new ArrayList<>());
+        timings.put("noop", new ArrayList<>());
+        timings.put("incremental", new ArrayList<>());
+        for (int i = 0; i < iterations; i++) {
+            run(projectDir, "clean");
+            deleteDevRoots(projectDir);
+            timings.get("clean").add(run(projectDir, "classes"));
+            timings.get("noop").add(run(projectDir, "classes"));
+            touchLeafClass(projectDir, i);
+            timings.get("incremental").add(run(projectDir, "classes"));
+        }
+
+        var out = new ArrayList<Map<String, Object>>();
+        for (var entry : timings.entrySet()) {
+            var row = new LinkedHashMap<String, Object>(shape);
+            row.put("scenario", entry.getKey());
+            row.put("millis", entry.getValue());
+            row.put("medianMillis", median(entry.getValue()));
+            out.add(row);
+        }
+        return out;
+    }
+
+    // Delete the `.dev` roots (installed dependencies, lockfile, and install index) of a project and its modules.
+    private void deleteDevRoots(Path projectDir) throws IOException {
+        try (var modules = Files.list(projectDir)) {
+            for (var root : Stream.concat(Stream.of(projectDir), modules).toList()) {
+                var dev = root.resolve(".dev");
+                if (!Files.isDirectory(dev)) {
+                    continue;
+                }
+                try (var paths = Files.walk(dev)) {
+                    for (var path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                        Files.delete(path);
+                    }
+                }
+            }
+        }
+    }
+
+    // Run a build in the provided project, returning its wall time in milliseconds.
+    private long run(Path projectDir, String task) {
+        var start = System.nanoTime();
+        GradleRunner.create()
+                .withPluginClasspath()
+                .withProjectDir(projectDir.toFile())
+                .withArguments(task, "--offline", "--no-build-cache", "-q")
+                .build();
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    // Write a Maven repository holding `count` synthetic artifacts, each with a POM and a small JAR.
+    private void writeSyntheticRepository(Path repo, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            var dir = repo.resolve("bench/dep/lib" + i + "/1.0");
+            Files.createDirectories(dir);
+            Files.writeString(dir.resolve("lib" + i + "-1.0.pom"), """
+                    <?xml version="1.0" encoding="UTF-8"?>
+                    <project xmlns="http://maven.apache.org/POM/4.0.0">
+                      <modelVersion>4.0.0</modelVersion>
+                      <groupId>bench.dep</groupId>
+                      <artifactId>lib%d</artifactId>
+                      <version>1.0</version>
+                    </project>
+                    """.formatted(i), StandardCharsets.UTF_8);
+            try (var jar = new JarOutputStream(new FileOutputStream(dir.resolve("lib" + i + "-1.0.jar").toFile()))) {
+                jar.putNextEntry(new JarEntry("bench/dep" + i + "/marker.txt"));
+                jar.write(("lib" + i).getBytes(StandardCharsets.UTF_8));
+                jar.closeEntry();
+            }
+        }
+    }
+
+    // Generate a multi-module project; module `j` depends on module `j - 1`, and module `0` holds all dependencies.
+    private void generateProject(
+            Path projectDir,
+            Path repo,
+            String shape,
+            int classes,
+            int modules,
+            int dependencies,
+            String mode) throws IOException {
+        if (Files.exists(projectDir.resolve("settings.gradle.kts"))) {
+            return;
+        }
+        Files.createDirectories(projectDir);
+        var settings = new StringBuilder("rootProject.name = \"bench\"\n");
+        for (int j = 0; j < modules; j++) {
+            settings.append("include(\"m").append(j).append("\")\n");
+        }
+        writeString(projectDir.resolve("settings.gradle.kts"), settings.toString());
+        writeString(projectDir.resolve("gradle.properties"), "org.gradle.caching=false\n");
+
+        var useElide = !mode.equals("stock");
+        var useInstall = mode.equals("elide-install");
+        var perModule = Math.max(1, classes / modules);
+        for (int j = 0; j < modules; j++) {
+            var moduleDir = projectDir.resolve("m" + j);
+            var build = new StringBuilder("plugins {\n");
+            if (useElide) {
+                build.append("  id(\"dev.elide\")\n");
+            }
+            build.append("  `java-library`\n}\n\n");
+            build.append("repositories {\n  maven { url = uri(\"").append(repo.toUri()).append("\") }\n}\n\n");
+            if (useElide) {
+                build.append("elide {\n  enableJavaCompiler = true\n  enableInstall = ")
+                        .append(useInstall && j == 0).append("\n}\n\n");
+            }
+            build.append("dependencies {\n");
+            if (j > 0) {
+                build.append("  api(project(\":m").append(j - 1).append("\"))\n");
+            } else {
+                for (int k = 0; k < dependencies; k++) {
+                    build.append("  api(\"bench.dep:lib").append(k).append(":1.0\")\n");
+                }
+            }
+            build.append("}\n");
+            writeString(moduleDir.resolve("build.gradle.kts"), build.toString());
+            if (useInstall && j == 0) {
+                writeString(moduleDir.resolve("elide.pkl"), elideManifest(repo, dependencies));
+            }
+            generateSources(moduleDir.resolve("src/main/java"), shape, j, perModule);
+        }
+    }
+
+    private String elideManifest(Path repo, int dependencies) {
+        var packages = new StringBuilder();
+        for (int k = 0; k < dependencies; k++) {
+            packages.append("      \"bench.dep:lib").append(k).append(":1.0\"\n");
+        }
+        return """
+                amends "elide:project.pkl"
+
+                name = "bench"
+
+                dependencies {
+                  maven {
+                    repositories {
+                      ["bench"] = "%s"
+                    }
+                    packages {
+                %s    }
+                  }
+                }
+                """.formatted(repo.toUri(), packages);
+    }
+
+    // Generate `count` classes for a module. In a `wide` graph, every package depends only on a shared base package; in
+    // a `deep` graph, each package depends on the one before it. The first class of each module references the last
+    // class of the previous module.
+    private void generateSources(Path sourceRoot, String shape, int module, int count) throws IOException {
+        var base = "bench.m" + module;
+        for (int i = 0; i < count; i++) {
+            var pkgIndex = i / classesPerPackage;
+            var pkg = base + ".p" + pkgIndex;
+            String dependency;
+            if (i == 0) {
+                dependency = module > 0 ? "bench.m" + (module - 1) + ".Last.value()" : "0";
+            } else if (i % classesPerPackage != 0) {
+                dependency = "new " + pkg + ".C" + (i - 1) + "().value()";
+            } else if (shape.equals("deep")) {
+                dependency = "new " + base + ".p" + (pkgIndex - 1) + ".C" + (i - 1) + "().value()";
+            } else {
+                dependency = "new " + base + ".p0.C0().value()";
+            }
+            writeString(sourceRoot.resolve(pkg.replace('.', '/')).resolve("C" + i + ".java"), """
+                    package %s;
+
+                    public class C%d {
+                        public int value() {
+                            return %s + %d;
+                        }
+                    }
+                    """.formatted(pkg, i, dependency, i));
+        }
+        var lastPkg = base + ".p" + ((count - 1) / classesPerPackage);
+        writeString(sourceRoot.resolve(base.replace('.', '/')).resolve("Last.java"), """
+                package %s;
+
+                public class Last {
+                    public static int value() {
+                        return new %s.C%d().value();
+                    }
+                }
+                """.formatted(base, lastPkg, count - 1));
+    }
+
+    // Make a non-ABI change to the last module's leaf class, to drive an incremental build.
+    private void touchLeafClass(Path projectDir, int iteration) throws IOException {
+        try (var modules = Files.list(projectDir)) {
+            var lastModule = modules
+                    .filter(it -> it.getFileName().toString().matches("m\\d+"))
+                    .max(Comparator.comparingInt(it -> Integer.parseInt(it.getFileName().toString().substring(1))))
+                    .orElseThrow();
+            var last = lastModule.resolve("src/main/java/bench/" + lastModule.getFileName() + "/Last.java");
+            var source = Files.readString(last, StandardCharsets.UTF_8);
+            source = source.replaceFirst("\\.value\\(\\)( \\+ \\d+)?;", ".value() + " + (iteration + 1) + ";");
+            Files.writeString(last, source, StandardCharsets.UTF_8);
+        }
+    }
+
+    // For each scenario and Elide mode, find the largest class count up to which Elide beats stock Gradle.
+    private List<Map<String, Object>> crossover(List<Map<String, Object>> results) {
+        var grouped = results.stream().collect(Collectors.groupingBy(
+                row -> List.of(row.get("shape"), row.get("modules"), row.get("dependencies"), row.get("scenario")),
+                LinkedHashMap::new,
+                Collectors.toList()));
+        var out = new ArrayList<Map<String, Object>>();
+        for (var entry : grouped.entrySet()) {
+            var stock = medianByClasses(entry.getValue(), "stock");
+            if (stock.isEmpty()) {
+                continue;
+            }
+            for (var mode : List.of("elide", "elide-install")) {
+                var elide = medianByClasses(entry.getValue(), mode);
+                if (elide.isEmpty()) {
+                    continue;
+                }
+                Integer fasterUpTo = null;
+                for (var classes : stock.keySet().stream().sorted().toList()) {
+                    var elideMillis = elide.get(classes);
+                    if (elideMillis == null || elideMillis >= stock.get(classes)) {
+                        break;
+                    }
+                    fasterUpTo = classes;
+                }
+                var row = new LinkedHashMap<String, Object>();
+                row.put("shape", entry.getKey().get(0));
+                row.put("modules", entry.getKey().get(1));
+                row.put("dependencies", entry.getKey().get(2));
+                row.put("scenario", entry.getKey().get(3));
+                row.put("mode", mode);
+                row.put("elideFasterUpToClasses", fasterUpTo);
+                out.add(row);
+            }
+        }
+        return out;
+    }
+
+    private Map<Integer, Long> medianByClasses(List<Map<String, Object>> rows, String mode) {
+        return rows.stream()
+                .filter(row -> mode.equals(row.get("mode")))
+                .collect(Collectors.toMap(row -> (Integer) row.get("classes"), row -> (Long) row.get("medianMillis")));
+    }
+
+    private static long median(List<Long> values) {
+        var sorted = values.stream().sorted().toList();
+        return sorted.isEmpty() ? 0 : sorted.get(sorted.size() / 2);
+    }
+
+    private void writeString(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+    }
+}
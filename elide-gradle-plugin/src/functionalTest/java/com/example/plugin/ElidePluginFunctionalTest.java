@@ -2,6 +2,7 @@ package com.example.plugin;
 
 import org.gradle.testkit.runner.BuildResult;
 import org.gradle.testkit.runner.GradleRunner;
+import org.gradle.testkit.runner.TaskOutcome;
 import org.junit.Test;
 
 import java.io.File;
@@ -9,8 +10,13 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Writer;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.HashMap;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class ElidePluginFunctionalTest {
@@ -85,9 +91,434 @@ public class ElidePluginFunctionalTest {
         assertTrue(buildResult.getOutput().contains("Using Elide "));
     }
 
+    @Test
+    public void reusesConfigurationCache() throws IOException {
+        File projectDir = new File("build/functionalTestConfigurationCache");
+        var helloPath = projectDir.toPath().resolve("src/main/java/com/example/HelloWorld.java");
+        Files.createDirectories(helloPath.getParent());
+        writeString(new File(projectDir, "settings.gradle.kts"), "");
+        writeString(new File(projectDir, "build.gradle.kts"),
+                """
+                        plugins {
+                          id("dev.elide")
+                          java
+                        }
+                        repositories {
+                          mavenCentral()
+                        }
+                        """);
+        writeString(helloPath.toFile(),
+                """
+                        package com.example;
+
+                        public class HelloWorld {
+                            public static void main(String[] args) {
+                                System.out.println("Hello, World!");
+                            }
+                        }
+                        """);
+
+        // The first run stores the configuration cache; the second must reuse it.
+        BuildResult storeResult = GradleRunner.create()
+                .forwardOutput()
+                .withPluginClasspath()
+                .withArguments("compileJava", "--configuration-cache")
+                .withProjectDir(projectDir)
+                .build();
+
+        assertTrue(storeResult.getOutput().contains("Configuration cache entry stored"));
+
+        BuildResult reuseResult = GradleRunner.create()
+                .forwardOutput()
+                .withPluginClasspath()
+                .withArguments("compileJava", "--configuration-cache")
+                .withProjectDir(projectDir)
+                .build();
+
+        assertTrue(reuseResult.getOutput().contains("Reusing configuration cache."));
+        assertTrue(reuseResult.getOutput().contains("BUILD SUCCESSFUL"));
+    }
+
+    @Test
+    public void generatesMergedManifest() throws IOException {
+        File projectDir = new File("build/functionalTestManifest");
+        Files.createDirectories(projectDir.toPath().resolve("app"));
+        Files.createDirectories(projectDir.toPath().resolve("lib"));
+        writeString(new File(projectDir, "settings.gradle.kts"),
+                """
+                        rootProject.name = "manifest-sample"
+                        include("app", "lib")
+                        """);
+        writeString(new File(projectDir, "build.gradle.kts"), "");
+        writeString(new File(projectDir, "app/build.gradle.kts"),
+                """
+                        plugins {
+                          id("dev.elide")
+                          java
+                        }
+                        dependencies {
+                          implementation(project(":lib"))
+                          implementation("com.google.guava:guava:33.4.8-jre")
+                          implementation("com.fasterxml.jackson.core:jackson-databind")
+                          testImplementation("junit:junit:4.13.2")
+                        }
+                        """);
+        writeString(new File(projectDir, "lib/build.gradle.kts"),
+                """
+                        plugins {
+                          id("dev.elide")
+                          `java-library`
+                        }
+                        dependencies {
+                          api("com.google.code.gson:gson:2.13.1")
+                          testImplementation("junit:junit:4.13.2")
+                        }
+                        """);
+
+        BuildResult result = GradleRunner.create()
+                .forwardOutput()
+                .withPluginClasspath()
+                .withArguments(":elideGenerateManifest", "-Pelide.builder.maven.manifest.generate=true")
+                .withProjectDir(projectDir)
+                .build();
+
+        assertTrue(result.getOutput().contains("BUILD SUCCESSFUL"));
+        var manifest = Files.readString(projectDir.toPath().resolve(".dev/generated/elide.pkl"));
+        assertTrue(manifest.contains("name = \"manifest-sample\""));
+        assertTrue(manifest.contains("\"com.google.guava:guava:33.4.8-jre\""));
+        assertTrue(manifest.contains("\"com.google.code.gson:gson:2.13.1\""));
+        assertTrue(manifest.contains("testPackages {\n      \"junit:junit:4.13.2\"\n    }"));
+
+        // a dependency whose version would come from a platform is left out, and reported.
+        assertFalse(manifest.contains("jackson-databind"));
+        assertTrue(result.getOutput().contains("com.fasterxml.jackson.core:jackson-databind (:app)"));
+    }
+
+    @Test
+    public void sharesOneInstallAcrossProjects() throws IOException {
+        File projectDir = new File("build/functionalTestSharedInstall");
+        for (var name : new String[] {"app", "lib"}) {
+            Files.createDirectories(projectDir.toPath().resolve(name));
+            writeString(new File(projectDir, name + "/build.gradle.kts"),
+                    """
+                            plugins {
+                              id("dev.elide")
+                              java
+                            }
+                            elide {
+                              enableInstall = true
+                            }
+                            """);
+            writeString(new File(projectDir, name + "/elide.pkl"),
+                    """
+                            amends "elide:project.pkl"
+                            dependencies { maven { packages { "com.google.guava:guava:33.4.8-jre" } } }
+                            """);
+        }
+        writeString(new File(projectDir, "settings.gradle.kts"), "include(\"app\", \"lib\")\n");
+        writeString(new File(projectDir, "build.gradle.kts"), "");
+
+        BuildResult result = GradleRunner.create()
+                .forwardOutput()
+                .withPluginClasspath()
+                .withArguments("compileJava", "--dry-run")
+                .withProjectDir(projectDir)
+                .build();
+
+        assertTrue(result.getOutput().contains(":elideInstall SKIPPED"));
+        assertFalse(result.getOutput().contains(":app:elideInstall"));
+        assertFalse(result.getOutput().contains(":lib:elideInstall"));
+    }
+
+    @Test
+    public void kotlinCompilesRunAfterInstall() throws IOException {
+        File projectDir = new File("build/functionalTestKotlin");
+        var helloPath = projectDir.toPath().resolve("src/main/kotlin/com/example/Hello.kt");
+        Files.createDirectories(helloPath.getParent());
+        writeString(new File(projectDir, "settings.gradle.kts"), "");
+        writeString(new File(projectDir, "build.gradle.kts"),
+                """
+                        plugins {
+                          id("dev.elide")
+                          kotlin("jvm") version "2.2.0"
+                        }
+                        repositories {
+                          mavenCentral()
+                        }
+                        elide {
+                          enableInstall = true
+                        }
+                        """);
+        writeString(new File(projectDir, "elide.pkl"),
+                """
+                        amends "elide:project.pkl"
+                        dependencies { maven { packages { "com.google.guava:guava:33.4.8-jre" } } }
+                        """);
+        writeString(helloPath.toFile(), "package com.example\n\nfun main() = println(\"Hello, World!\")\n");
+
+        BuildResult result = GradleRunner.create()
+                .forwardOutput()
+                .withPluginClasspath()
+                .withArguments("compileKotlin", "--dry-run")
+                .withProjectDir(projectDir)
+                .build();
+
+        // Kotlin is compiled by the Kotlin plugin, against what `elide install` put in place.
+        var output = result.getOutput();
+        assertTrue(output.contains(":elideInstall SKIPPED"));
+        assertTrue(output.indexOf(":elideInstall SKIPPED") < output.indexOf(":compileKotlin SKIPPED"));
+    }
+
+    @Test
+    public void sharesBuildCacheAcrossCheckouts() throws IOException {
+        // two checkouts of the same sources, in different directories, sharing one cache (standing in for a remote one).
+        File rootDir = new File("build/functionalTestRelocatable");
+        deleteRecursively(rootDir.toPath());
+        for (var checkout : new String[] {"laptop", "ci-agent/workspace"}) {
+            var projectDir = new File(rootDir, checkout);
+            var helloPath = projectDir.toPath().resolve("src/main/java/com/example/HelloWorld.java");
+            Files.createDirectories(helloPath.getParent());
+            writeString(new File(projectDir, "settings.gradle.kts"),
+                    """
+                            rootProject.name = "relocatable"
+                            buildCache {
+                              local {
+                                directory = file("%s")
+                              }
+                            }
+                            """.formatted(new File(rootDir, "cache").getAbsolutePath().replace('\\', '/')));
+            writeString(new File(projectDir, "build.gradle.kts"),
+                    """
+                            plugins {
+                              id("dev.elide")
+                              java
+                            }
+                            repositories {
+                              mavenCentral()
+                            }
+                            """);
+            writeString(helloPath.toFile(),
+                    """
+                            package com.example;
+
+                            public class HelloWorld {
+                                public static void main(String[] args) {
+                                    System.out.println("Hello, World!");
+                                }
+                            }
+                            """);
+        }
+
+        BuildResult first = GradleRunner.create()
+                .forwardOutput()
+                .withPluginClasspath()
+                .withArguments("compileJava", "--build-cache")
+                .withProjectDir(new File(rootDir, "laptop"))
+                .build();
+
+        assertTrue(first.getOutput().contains("BUILD SUCCESSFUL"));
+
+        BuildResult second = GradleRunner.create()
+                .forwardOutput()
+                .withPluginClasspath()
+                .withArguments("compileJava", "--build-cache")
+                .withProjectDir(new File(rootDir, "ci-agent/workspace"))
+                .build();
+
+        assertEquals(TaskOutcome.FROM_CACHE, second.task(":compileJava").getOutcome());
+    }
+
+    @Test
+    public void startsBackgroundInstallOnlyWhenInstalling() throws IOException {
+        File projectDir = new File("build/functionalTestBackgroundInstall");
+        deleteRecursively(projectDir.toPath());
+        Files.createDirectories(projectDir.toPath().resolve("bin"));
+        writeString(new File(projectDir, "settings.gradle.kts"), "");
+        writeString(new File(projectDir, "build.gradle.kts"),
+                """
+                        plugins {
+                          id("dev.elide")
+                        }
+                        elide {
+                          enableInstall = true
+                        }
+                        """);
+        writeString(new File(projectDir, "elide.pkl"),
+                """
+                        amends "elide:project.pkl"
+                        dependencies { maven { packages { "com.google.guava:guava:33.4.8-jre" } } }
+                        """);
+
+        // A stand-in for Elide on the `PATH`, which records each install it is asked to run.
+        var installs = new File(projectDir, "bin/installs.log");
+        var elide = new File(projectDir, "bin/elide");
+        writeString(elide,
+                """
+                        #!/bin/sh
+                        case "$1" in
+                          --version) echo "1.0.0-test" ;;
+                          install) echo install >> "%s" ;;
+                        esac
+                        """.formatted(installs.getAbsolutePath()));
+        assertTrue(elide.setExecutable(true));
+        var environment = new HashMap<>(System.getenv());
+        environment.put("PATH", elide.getParentFile().getAbsolutePath() + File.pathSeparator + System.getenv("PATH"));
+
+        // `help` doesn't install, so nothing may be started for it.
+        GradleRunner.create()
+                .forwardOutput()
+                .withPluginClasspath()
+                .withEnvironment(environment)
+                .withArguments("help")
+                .withProjectDir(projectDir)
+                .build();
+
+        assertFalse(installs.exists());
+
+        BuildResult result = GradleRunner.create()
+                .forwardOutput()
+                .withPluginClasspath()
+                .withEnvironment(environment)
+                .withArguments("elideInstall")
+                .withProjectDir(projectDir)
+                .build();
+
+        assertTrue(result.getOutput().contains("Reusing `elide install` started in the background"));
+        assertEquals(1, Files.readAllLines(installs.toPath()).size());
+    }
+
+    @Test
+    public void buildsLeafModulesWithElide() throws IOException {
+        File projectDir = new File("build/functionalTestEmbeddedBuild");
+        deleteRecursively(projectDir.toPath());
+        Files.createDirectories(projectDir.toPath().resolve("lib/src/main/java/com/example"));
+        Files.createDirectories(projectDir.toPath().resolve("app/src/main/java/com/example"));
+        Files.createDirectories(projectDir.toPath().resolve("bin"));
+        writeString(new File(projectDir, "settings.gradle.kts"), "include(\"app\", \"lib\")\n");
+        writeString(new File(projectDir, "build.gradle.kts"), "");
+        writeString(new File(projectDir, "lib/build.gradle.kts"),
+                """
+                        plugins {
+                          id("dev.elide")
+                          `java-library`
+                        }
+                        """);
+        writeString(new File(projectDir, "lib/elide.pkl"),
+                """
+                        amends "elide:project.pkl"
+                        name = "lib"
+                        sources { ["main"] = "src/main/java/**/*.java" }
+                        """);
+        writeString(new File(projectDir, "lib/src/main/java/com/example/Lib.java"),
+                "package com.example;\n\npublic class Lib {}\n");
+        writeString(new File(projectDir, "app/build.gradle.kts"),
+                """
+                        plugins {
+                          id("dev.elide")
+                          java
+                        }
+                        dependencies {
+                          implementation(project(":lib"))
+                        }
+                        """);
+        writeString(new File(projectDir, "app/elide.pkl"),
+                """
+                        amends "elide:project.pkl"
+                        name = "app"
+                        """);
+        writeString(new File(projectDir, "app/src/main/java/com/example/App.java"),
+                "package com.example;\n\npublic class App extends Lib {}\n");
+
+        // A stand-in for Elide on the `PATH`; nothing runs under `--dry-run`, but the plugin may ask for its version.
+        var elide = new File(projectDir, "bin/elide");
+        writeString(elide, "#!/bin/sh\n[ \"$1\" = --version ] && echo 1.0.0-test\nexit 0\n");
+        assertTrue(elide.setExecutable(true));
+        var environment = new HashMap<>(System.getenv());
+        environment.put("PATH", elide.getParentFile().getAbsolutePath() + File.pathSeparator + System.getenv("PATH"));
+
+        BuildResult result = GradleRunner.create()
+                .forwardOutput()
+                .withPluginClasspath()
+                .withEnvironment(environment)
+                .withArguments(":app:jar", "--dry-run", "-Pelide.builder.build.embedded=true")
+                .withProjectDir(projectDir)
+                .build();
+
+        // `lib` is a leaf, so `elide build` stands in for its compile and jar, and `app` consumes what it builds;
+        // `app` depends on another project, so Gradle builds it as usual.
+        var output = result.getOutput();
+        assertTrue(output.contains(":lib:elideBuild SKIPPED"));
+        assertFalse(output.contains(":lib:compileJava"));
+        assertFalse(output.contains(":lib:jar"));
+        assertFalse(output.contains(":app:elideBuild"));
+        assertTrue(output.contains(":app:compileJava SKIPPED"));
+        assertTrue(output.indexOf(":lib:elideBuild SKIPPED") < output.indexOf(":app:compileJava SKIPPED"));
+    }
+
+    @Test
+    public void upgradingElideInPlaceInvalidatesTheConfigurationCache() throws IOException {
+        File projectDir = new File("build/functionalTestElideUpgrade");
+        deleteRecursively(projectDir.toPath());
+        Files.createDirectories(projectDir.toPath().resolve("bin"));
+        writeString(new File(projectDir, "settings.gradle.kts"), "");
+        writeString(new File(projectDir, "build.gradle.kts"),
+                """
+                        plugins {
+                          id("dev.elide")
+                        }
+                        elide {
+                          enableInstall = true
+                        }
+                        tasks.register("printElideIdentity") {
+                          val identity = tasks.named<dev.elide.gradle.ElideInstallTask>("elideInstall")
+                            .flatMap { it.elideIdentity }
+                          doLast { println("Elide identity: " + identity.get()) }
+                        }
+                        """);
+        writeString(new File(projectDir, "elide.pkl"),
+                """
+                        amends "elide:project.pkl"
+                        dependencies { maven { packages { "com.google.guava:guava:33.4.8-jre" } } }
+                        """);
+
+        // A stand-in for Elide on the `PATH`, which is later replaced at the same path by a newer release.
+        var elide = new File(projectDir, "bin/elide");
+        writeString(elide, "#!/bin/sh\n[ \"$1\" = --version ] && echo 1.0.0-test\nexit 0\n");
+        assertTrue(elide.setExecutable(true));
+        var environment = new HashMap<>(System.getenv());
+        environment.put("PATH", elide.getParentFile().getAbsolutePath() + File.pathSeparator + System.getenv("PATH"));
+        var runner = GradleRunner.create()
+                .forwardOutput()
+                .withPluginClasspath()
+                .withEnvironment(environment)
+                .withArguments("printElideIdentity", "--configuration-cache")
+                .withProjectDir(projectDir);
+
+        assertTrue(runner.build().getOutput().contains("Elide identity: 1.0.0-test"));
+        var reused = runner.build().getOutput();
+        assertTrue(reused.contains("Reusing configuration cache."));
+        assertTrue(reused.contains("Elide identity: 1.0.0-test"));
+
+        // tasks must see the upgraded binary, whether or not the configuration cache is reused.
+        writeString(elide, "#!/bin/sh\n[ \"$1\" = --version ] && echo 1.1.0-test\nexit 0\n");
+        assertTrue(elide.setLastModified(System.currentTimeMillis() + 60_000));
+        assertTrue(runner.build().getOutput().contains("Elide identity: 1.1.0-test"));
+    }
+
     private void writeString(File file, String string) throws IOException {
         try (Writer writer = new FileWriter(file)) {
             writer.write(string);
         }
     }
+
+    private static void deleteRecursively(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (var paths = Files.walk(root)) {
+            for (var path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
 }
@@ -0,0 +1,27 @@
+package dev.elide.gradle;
+
+import org.gradle.api.Action;
+import org.gradle.api.Task;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.compile.JavaCompile;
+
+// Runs before a `JavaCompile` task which is wired to Elide, and swaps its classpath for ABI snapshots of the same jars
+// (see `ElideAbiSnapshots`). The swap happens once the task's inputs have been fingerprinted, so cache keys are those of
+// the original classpath; snapshots carry the same ABI, so compiler output is unchanged.
+final class ElideAbiClasspath implements Action<Task> {
+    private final Provider<ElideAbiSnapshots> snapshots;
+    private final ConfigurableFileCollection classpath;
+
+    ElideAbiClasspath(Provider<ElideAbiSnapshots> snapshots, ConfigurableFileCollection classpath) {
+        this.snapshots = snapshots;
+        this.classpath = classpath;
+    }
+
+    @Override
+    public void execute(Task task) {
+        var compile = (JavaCompile) task;
+        classpath.setFrom(snapshots.get().snapshot(compile.getClasspath().getFiles()));
+        compile.setClasspath(classpath);
+    }
+}
@@ -0,0 +1,612 @@
+package dev.elide.gradle;
+
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+// Build-scoped store of ABI snapshots of dependency jars, shared by every Elide compile. A snapshot holds the same
+// entries as its jar, but with class files reduced to what the compiler sees (signatures, constants, and annotations of
+// visible members, without method bodies), and every entry stored uncompressed, so that the compiler can map it instead
+// of inflating it.
+// Snapshots live under the dev root (`.dev/abi/<sha256>.jar`), keyed by the ABI hash of the jar (see `abiHash`), so
+// that a rebuilt jar whose ABI didn't change maps to the snapshot it had before; an index of jar paths, sizes, and
+// modification times to hashes spares re-hashing unchanged jars. Missing snapshots are built on first use, and written
+// atomically, so that an interrupted build never leaves a partial snapshot behind.
+public abstract class ElideAbiSnapshots implements BuildService<ElideAbiSnapshots.Params>, AutoCloseable {
+    // Name of the shared service, as registered with Gradle.
+    static final String SERVICE_NAME = "elideAbiSnapshots";
+
+    // Index of jar paths (with size and modification time) to ABI hashes.
+    private static final String INDEX_FILE_NAME = "index.properties";
+
+    // Access flags which take a class or member out of what the compiler can see.
+    private static final int accPrivate = 0x0002;
+    private static final int accBridge = 0x0040;
+    private static final int accSynthetic = 0x1000;
+    private static final int accModule = 0x8000;
+
+    private static final Logger logger = Logging.getLogger(ElideAbiSnapshots.class);
+
+    public interface Params extends BuildServiceParameters {
+        // Directory holding snapshots and their index.
+        DirectoryProperty getSnapshotDirectory();
+    }
+
+    private final ConcurrentHashMap<String, String> hashes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, File> snapshots = new ConcurrentHashMap<>();
+    private volatile boolean loaded = false;
+    private volatile boolean dirty = false;
+
+    // Map a compile classpath to snapshots: jars are replaced by their snapshot (built if missing), and anything else
+    // (class directories, missing entries) is kept as-is. Jars which can't be snapshotted are kept as well.
+    List<File> snapshot(Collection<File> classpath) {
+        load();
+        var mapped = new ArrayList<File>(classpath.size());
+        for (var entry : classpath) {
+            if (!entry.isFile() || !entry.getName().endsWith(".jar")) {
+                mapped.add(entry);
+                continue;
+            }
+            try {
+                var hash = hashes.computeIfAbsent(indexKey(entry), _ -> {
+                    dirty = true;
+                    try {
+                        return abiHash(entry.toPath());
+                    } catch (IOException ioe) {
+                        throw new UncheckedIOException(ioe);
+                    }
+                });
+                mapped.add(snapshots.computeIfAbsent(hash, _ -> ensureSnapshot(entry.toPath(), hash)));
+            } catch (UncheckedIOException uioe) {
+                logger.info("Compiling against '{}' as-is; its ABI snapshot failed", entry, uioe.getCause());
+                mapped.add(entry);
+            }
+        }
+        return mapped;
+    }
+
+    // Persist the index, if any jar was hashed during this build.
+    @Override
+    public void close() {
+        if (!dirty) {
+            return;
+        }
+        var dir = getParameters().getSnapshotDirectory().get().getAsFile().toPath();
+        var props = new Properties();
+        props.putAll(hashes);
+        try {
+            Files.createDirectories(dir);
+            var tmp = Files.createTempFile(dir, INDEX_FILE_NAME, ".tmp");
+            try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                props.store(writer, "ABI hashes of dependency jars with snapshots");
+            }
+            Files.move(tmp, dir.resolve(INDEX_FILE_NAME),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ioe) {
+            logger.debug("Failed to persist the ABI snapshot index in '{}'", dir, ioe);
+        }
+    }
+
+    private synchronized void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        var index = getParameters().getSnapshotDirectory().get().getAsFile().toPath().resolve(INDEX_FILE_NAME);
+        if (!Files.exists(index)) {
+            return;
+        }
+        var props = new Properties();
+        try (Reader reader = Files.newBufferedReader(index, StandardCharsets.UTF_8)) {
+            props.load(reader);
+            props.forEach((key, value) -> hashes.put((String) key, (String) value));
+        } catch (IOException | IllegalArgumentException e) {
+            logger.debug("Ignoring unreadable ABI snapshot index at '{}'", index, e);
+        }
+    }
+
+    // A jar is re-hashed whenever its path, size, or modification time change.
+    private static String indexKey(File jar) {
+        return jar.getAbsolutePath() + "|" + jar.length() + "|" + jar.lastModified();
+    }
+
+    // Snapshot for a jar, building it if it's missing.
+    private File ensureSnapshot(Path jar, String hash) {
+        var dir = getParameters().getSnapshotDirectory().get().getAsFile().toPath();
+        var snapshot = dir.resolve(hash + ".jar");
+        if (Files.isRegularFile(snapshot)) {
+            return snapshot.toFile();
+        }
+        try {
+            Files.createDirectories(dir);
+            var tmp = Files.createTempFile(dir, hash, ".tmp");
+            try {
+                writeSnapshot(jar, tmp);
+                Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            return snapshot.toFile();
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
+    // Write the snapshot of a jar: entries in their original order, class files reduced to what the compiler sees (see
+    // `stripCode`), and every entry stored uncompressed.
+    static void writeSnapshot(Path jar, Path out) throws IOException {
+        try (var zip = new ZipFile(jar.toFile());
+             var target = new ZipOutputStream(Files.newOutputStream(out))) {
+            var entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                var entry = entries.nextElement();
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                byte[] data;
+                try (InputStream in = zip.getInputStream(entry)) {
+                    data = in.readAllBytes();
+                }
+                if (entry.getName().endsWith(".class")) {
+                    data = stripCode(data);
+                    if (data == null) {
+                        continue;
+                    }
+                }
+                var crc = new CRC32();
+                crc.update(data);
+                var stored = new ZipEntry(entry.getName());
+                stored.setMethod(ZipEntry.STORED);
+                stored.setSize(data.length);
+                stored.setCompressedSize(data.length);
+                stored.setCrc(crc.getValue());
+                stored.setTime(entry.getTime());
+                target.putNextEntry(stored);
+                target.write(data);
+                target.closeEntry();
+            }
+        }
+    }
+
+    // Reduce a class file to exactly what its ABI hash covers (see `abi`), since snapshots are keyed by that hash:
+    // `Code` attributes are stripped, and private and synthetic members (other than bridges) and static initializers
+    // are dropped, leaving everything else (constant pool, signatures, annotations, and class attributes) byte-for-byte
+    // intact. Returns null for local, anonymous, and synthetic classes, which no source can refer to. Anything which
+    // doesn't parse as a class file is returned unchanged.
+    static byte[] stripCode(byte[] classFile) {
+        try {
+            var in = new DataInputStream(new ByteArrayInputStream(classFile));
+            var out = new ByteArrayOutputStream(classFile.length);
+            var data = new DataOutputStream(out);
+            if (in.readInt() != 0xCAFEBABE) {
+                return classFile;
+            }
+            data.writeInt(0xCAFEBABE);
+            data.writeInt(in.readInt());
+
+            // constant pool: only UTF-8 entries are kept track of, to find the name of each member and attribute.
+            var poolSize = in.readUnsignedShort();
+            data.writeShort(poolSize);
+            var utf8 = new String[poolSize];
+            for (var i = 1; i < poolSize; i++) {
+                var tag = in.readUnsignedByte();
+                data.writeByte(tag);
+                switch (tag) {
+                    case 1 -> {
+                        utf8[i] = in.readUTF();
+                        data.writeUTF(utf8[i]);
+                    }
+                    case 7, 8, 16, 19, 20 -> copy(in, data, 2);
+                    case 15 -> copy(in, data, 3);
+                    case 3, 4, 9, 10, 11, 12, 17, 18 -> copy(in, data, 4);
+                    case 5, 6 -> {
+                        copy(in, data, 8);
+                        i += 1;
+                    }
+                    default -> {
+                        return classFile;
+                    }
+                }
+            }
+
+            // access flags, this and super classes, then interfaces.
+            var access = in.readUnsignedShort();
+            if ((access & accModule) != 0) {
+                return classFile;
+            }
+            if ((access & accSynthetic) != 0) {
+                return null;
+            }
+            data.writeShort(access);
+            copy(in, data, 4);
+            var interfaces = in.readUnsignedShort();
+            data.writeShort(interfaces);
+            copy(in, data, interfaces * 2);
+
+            copyMembers(in, data, utf8, false);
+            copyMembers(in, data, utf8, true);
+
+            // class attributes, unchanged, unless they place the class within a method.
+            var attributes = in.readAllBytes();
+            var attributesIn = new DataInputStream(new ByteArrayInputStream(attributes));
+            var count = attributesIn.readUnsignedShort();
+            for (var a = 0; a < count; a++) {
+                var name = attributesIn.readUnsignedShort();
+                if ("EnclosingMethod".equals(utf8[name])) {
+                    return null;
+                }
+                attributesIn.skipNBytes(attributesIn.readInt());
+            }
+            data.write(attributes);
+            data.flush();
+            return out.toByteArray();
+        } catch (IOException | ArrayIndexOutOfBoundsException e) {
+            return classFile;
+        }
+    }
+
+    // Copy the fields or methods of a class which other classes can see, without their code.
+    private static void copyMembers(DataInputStream in, DataOutputStream out, String[] utf8, boolean methods)
+            throws IOException {
+        var count = in.readUnsignedShort();
+        var members = new ByteArrayOutputStream();
+        var membersData = new DataOutputStream(members);
+        var membersCount = 0;
+        for (var i = 0; i < count; i++) {
+            var access = in.readUnsignedShort();
+            var name = in.readUnsignedShort();
+            var descriptor = in.readUnsignedShort();
+            var attributes = in.readUnsignedShort();
+            var kept = new ByteArrayOutputStream();
+            var keptData = new DataOutputStream(kept);
+            var keptCount = 0;
+            for (var a = 0; a < attributes; a++) {
+                var attribute = in.readUnsignedShort();
+                var length = in.readInt();
+                var body = in.readNBytes(length);
+                if (body.length != length) {
+                    throw new IOException("Truncated class file");
+                }
+                if (methods && "Code".equals(utf8[attribute])) {
+                    continue;
+                }
+                keptData.writeShort(attribute);
+                keptData.writeInt(length);
+                keptData.write(body);
+                keptCount += 1;
+            }
+            var synthetic = (access & accSynthetic) != 0 && !(methods && (access & accBridge) != 0);
+            if ((access & accPrivate) != 0 || synthetic || "<clinit>".equals(utf8[name])) {
+                continue;
+            }
+            membersData.writeShort(access);
+            membersData.writeShort(name);
+            membersData.writeShort(descriptor);
+            membersData.writeShort(keptCount);
+            membersData.write(kept.toByteArray());
+            membersCount += 1;
+        }
+        out.writeShort(membersCount);
+        out.write(members.toByteArray());
+    }
+
+    private static void copy(DataInputStream in, DataOutputStream out, int length) throws IOException {
+        var bytes = in.readNBytes(length);
+        if (bytes.length != length) {
+            throw new IOException("Truncated class file");
+        }
+        out.write(bytes);
+    }
+
+    // ABI hash of a jar: the SHA-256 of its entries in name order, with each class file reduced to its ABI (see
+    // `abi`). Jars which differ only in what the compiler doesn't see (method bodies, private and synthetic members,
+    // local and anonymous classes) hash the same, and the hash changes with any signature, constant, annotation, or
+    // resource.
+    static String abiHash(Path jar) throws IOException {
+        var digest = ElideDigests.sha256();
+        try (var zip = new ZipFile(jar.toFile());
+             var out = new DataOutputStream(new DigestOutputStream(OutputStream.nullOutputStream(), digest))) {
+            var entries = zip.stream()
+                    .filter(entry -> !entry.isDirectory())
+                    .sorted(Comparator.comparing(ZipEntry::getName))
+                    .toList();
+            for (var entry : entries) {
+                byte[] data;
+                try (InputStream in = zip.getInputStream(entry)) {
+                    data = in.readAllBytes();
+                }
+                if (entry.getName().endsWith(".class")) {
+                    data = abi(data);
+                    if (data == null) {
+                        continue;
+                    }
+                }
+                out.writeUTF(entry.getName());
+                out.writeInt(data.length);
+                out.write(data);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // Description of what the compiler sees of a class file: its version, flags, supertypes, non-private members (less
+    // their code), and class attributes, with every constant pool reference resolved, so that it doesn't depend on how
+    // the pool is laid out. Null for local, anonymous, and synthetic classes, which no source can refer to. A class
+    // file which doesn't parse, or holds an attribute whose layout isn't known here, is described by all its bytes.
+    static byte[] abi(byte[] classFile) {
+        try {
+            var in = new DataInputStream(new ByteArrayInputStream(classFile));
+            if (in.readInt() != 0xCAFEBABE) {
+                return classFile;
+            }
+            var minor = in.readUnsignedShort();
+            var major = in.readUnsignedShort();
+            var pool = Pool.read(in);
+            var access = in.readUnsignedShort();
+            if ((access & accModule) != 0) {
+                return classFile;
+            }
+            if ((access & accSynthetic) != 0) {
+                return null;
+            }
+            var owner = pool.resolve(in.readUnsignedShort());
+            var abi = new StringBuilder()
+                    .append("version ").append(major).append('.').append(minor).append('\n')
+                    .append("class ").append(access).append(' ').append(owner)
+                    .append(" extends ").append(pool.resolve(in.readUnsignedShort()));
+            var interfaces = in.readUnsignedShort();
+            for (var i = 0; i < interfaces; i++) {
+                abi.append(" implements ").append(pool.resolve(in.readUnsignedShort()));
+            }
+            abi.append('\n');
+            members(in, pool, owner, false, abi);
+            members(in, pool, owner, true, abi);
+            for (var attribute : attributes(in, pool, owner)) {
+                if (attribute.startsWith("EnclosingMethod")) {
+                    return null;
+                }
+                abi.append(attribute).append('\n');
+            }
+            return abi.toString().getBytes(StandardCharsets.UTF_8);
+        } catch (IOException | IndexOutOfBoundsException | ClassCastException e) {
+            return classFile;
+        }
+    }
+
+    // Describe the fields or methods of a class which other classes can see, in a stable order. Static initializers
+    // are left out, since code in method bodies (i.e. assertions) may add one.
+    private static void members(DataInputStream in, Pool pool, String owner, boolean methods, StringBuilder abi)
+            throws IOException {
+        var members = new TreeSet<String>();
+        var count = in.readUnsignedShort();
+        for (var i = 0; i < count; i++) {
+            var access = in.readUnsignedShort();
+            var name = pool.resolve(in.readUnsignedShort());
+            var member = new StringBuilder(methods ? "method " : "field ")
+                    .append(access).append(' ')
+                    .append(name).append(' ')
+                    .append(pool.resolve(in.readUnsignedShort()));
+            var attributes = attributes(in, pool, owner);
+            var synthetic = (access & accSynthetic) != 0 && !(methods && (access & accBridge) != 0);
+            if ((access & accPrivate) == 0 && !synthetic && !name.equals("<clinit>")) {
+                attributes.forEach(attribute -> member.append("\n  ").append(attribute));
+                members.add(member.toString());
+            }
+        }
+        members.forEach(member -> abi.append(member).append('\n'));
+    }
+
+    // Describe a table of attributes, in a stable order; attributes which don't bear on the ABI are left out.
+    private static List<String> attributes(DataInputStream in, Pool pool, String owner) throws IOException {
+        var described = new ArrayList<String>();
+        var count = in.readUnsignedShort();
+        for (var i = 0; i < count; i++) {
+            var name = pool.resolve(in.readUnsignedShort());
+            var length = in.readInt();
+            var body = in.readNBytes(length);
+            if (body.length != length) {
+                throw new IOException("Truncated class file");
+            }
+            var description = attribute(name, new DataInputStream(new ByteArrayInputStream(body)), pool, owner);
+            if (description != null) {
+                described.add(description);
+            }
+        }
+        Collections.sort(described);
+        return described;
+    }
+
+    private static String attribute(String name, DataInputStream in, Pool pool, String owner) throws IOException {
+        return switch (name) {
+            // code (and the bootstrap methods it calls) and nest membership, which lists anonymous classes, aren't
+            // seen by the compiler.
+            case "Code", "BootstrapMethods", "NestHost", "NestMembers", "SourceDebugExtension" -> null;
+            case "Deprecated", "Synthetic" -> name;
+            case "ConstantValue", "Signature", "SourceFile" -> name + " " + pool.resolve(in.readUnsignedShort());
+            case "Exceptions", "PermittedSubclasses" -> {
+                var classes = new ArrayList<String>();
+                var count = in.readUnsignedShort();
+                for (var i = 0; i < count; i++) {
+                    classes.add(pool.resolve(in.readUnsignedShort()));
+                }
+                yield name + " " + classes;
+            }
+            case "InnerClasses" -> {
+                // only the class itself and its member classes; local and anonymous classes have no outer class or no
+                // name, and nested classes of other classes are listed wherever they are referred to, code included.
+                var classes = new TreeSet<String>();
+                var count = in.readUnsignedShort();
+                for (var i = 0; i < count; i++) {
+                    var inner = pool.resolve(in.readUnsignedShort());
+                    var outer = pool.resolve(in.readUnsignedShort());
+                    var innerName = in.readUnsignedShort();
+                    var access = in.readUnsignedShort();
+                    if (innerName != 0 && (outer.equals(owner) || (inner.equals(owner) && !outer.isEmpty()))) {
+                        classes.add(inner + " " + access);
+                    }
+                }
+                yield name + " " + classes;
+            }
+            case "EnclosingMethod" -> name + " " + pool.resolve(in.readUnsignedShort());
+            case "MethodParameters" -> {
+                var parameters = new ArrayList<String>();
+                var count = in.readUnsignedByte();
+                for (var i = 0; i < count; i++) {
+                    parameters.add(pool.resolve(in.readUnsignedShort()) + " " + in.readUnsignedShort());
+                }
+                yield name + " " + parameters;
+            }
+            case "Record" -> {
+                var components = new ArrayList<String>();
+                var count = in.readUnsignedShort();
+                for (var i = 0; i < count; i++) {
+                    components.add(pool.resolve(in.readUnsignedShort()) + " " + pool.resolve(in.readUnsignedShort())
+                            + " " + attributes(in, pool, owner));
+                }
+                yield name + " " + components;
+            }
+            case "RuntimeVisibleAnnotations", "RuntimeInvisibleAnnotations" -> name + " " + annotations(in, pool);
+            case "RuntimeVisibleParameterAnnotations", "RuntimeInvisibleParameterAnnotations" -> {
+                var parameters = new ArrayList<List<String>>();
+                var count = in.readUnsignedByte();
+                for (var i = 0; i < count; i++) {
+                    parameters.add(annotations(in, pool));
+                }
+                yield name + " " + parameters;
+            }
+            case "RuntimeVisibleTypeAnnotations", "RuntimeInvisibleTypeAnnotations" -> {
+                var annotations = new ArrayList<String>();
+                var count = in.readUnsignedShort();
+                for (var i = 0; i < count; i++) {
+                    annotations.add(typeAnnotation(in, pool));
+                }
+                yield name + " " + annotations;
+            }
+            case "AnnotationDefault" -> name + " " + elementValue(in, pool);
+            default -> throw new IOException("Unknown attribute " + name);
+        };
+    }
+
+    private static List<String> annotations(DataInputStream in, Pool pool) throws IOException {
+        var annotations = new ArrayList<String>();
+        var count = in.readUnsignedShort();
+        for (var i = 0; i < count; i++) {
+            annotations.add(annotation(in, pool));
+        }
+        return annotations;
+    }
+
+    private static String annotation(DataInputStream in, Pool pool) throws IOException {
+        var annotation = new StringBuilder("@").append(pool.resolve(in.readUnsignedShort())).append('(');
+        var pairs = in.readUnsignedShort();
+        for (var i = 0; i < pairs; i++) {
+            annotation.append(i > 0 ? ", " : "")
+                    .append(pool.resolve(in.readUnsignedShort()))
+                    .append('=')
+                    .append(elementValue(in, pool));
+        }
+        return annotation.append(')').toString();
+    }
+
+    // Type annotations on a class or member; their targets (type parameters, supertypes, parameters, and so on) are
+    // indices into the class file's own tables, rather than into the constant pool, so they are kept as they are.
+    private static String typeAnnotation(DataInputStream in, Pool pool) throws IOException {
+        var target = in.readUnsignedByte();
+        var info = switch (target) {
+            case 0x00, 0x01, 0x16 -> in.readNBytes(1);
+            case 0x10, 0x11, 0x12, 0x17 -> in.readNBytes(2);
+            case 0x13, 0x14, 0x15 -> new byte[0];
+            default -> throw new IOException("Unknown type annotation target " + target);
+        };
+        var path = in.readNBytes(in.readUnsignedByte() * 2);
+        return target + ":" + HexFormat.of().formatHex(info) + ":" + HexFormat.of().formatHex(path)
+                + annotation(in, pool);
+    }
+
+    private static String elementValue(DataInputStream in, Pool pool) throws IOException {
+        var tag = (char) in.readUnsignedByte();
+        return switch (tag) {
+            case 'B', 'C', 'D', 'F', 'I', 'J', 'S', 'Z', 's', 'c' -> tag + pool.resolve(in.readUnsignedShort());
+            case 'e' -> "e" + pool.resolve(in.readUnsignedShort()) + "." + pool.resolve(in.readUnsignedShort());
+            case '@' -> annotation(in, pool);
+            case '[' -> {
+                var values = new ArrayList<String>();
+                var count = in.readUnsignedShort();
+                for (var i = 0; i < count; i++) {
+                    values.add(elementValue(in, pool));
+                }
+                yield values.toString();
+            }
+            default -> throw new IOException("Unknown annotation element " + tag);
+        };
+    }
+
+    // Constant pool of a class file, as far as it's needed to describe the class: UTF-8 strings, numbers, and the
+    // entries which name a UTF-8 string (classes, strings, method types, modules, and packages).
+    private record Pool(int[] tags, Object[] values) {
+        static Pool read(DataInputStream in) throws IOException {
+            var size = in.readUnsignedShort();
+            var tags = new int[size];
+            var values = new Object[size];
+            for (var i = 1; i < size; i++) {
+                tags[i] = in.readUnsignedByte();
+                switch (tags[i]) {
+                    case 1 -> values[i] = in.readUTF();
+                    case 3 -> values[i] = in.readInt();
+                    case 4 -> values[i] = in.readFloat();
+                    case 5 -> values[i++] = in.readLong();
+                    case 6 -> values[i++] = in.readDouble();
+                    case 7, 8, 16, 19, 20 -> values[i] = in.readUnsignedShort();
+                    case 15 -> in.skipNBytes(3);
+                    case 9, 10, 11, 12, 17, 18 -> in.skipNBytes(4);
+                    default -> throw new IOException("Unknown constant pool tag " + tags[i]);
+                }
+            }
+            return new Pool(tags, values);
+        }
+
+        String resolve(int index) {
+            if (index == 0) {
+                return "";
+            }
+            return switch (tags[index]) {
+                case 7, 8, 16, 19, 20 -> (String) values[(Integer) values[index]];
+                case 1, 3, 4, 5, 6 -> String.valueOf(values[index]);
+                default -> "#" + tags[index];
+            };
+        }
+    }
+}
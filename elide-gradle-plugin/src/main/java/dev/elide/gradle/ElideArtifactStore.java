@@ -0,0 +1,350 @@
+package dev.elide.gradle;
+
+import org.gradle.api.logging.Logger;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Machine-wide, content-addressed store of dependency artifacts, shared by every checkout's Maven root. Artifacts are
+// stored by SHA-256 (`objects/<xx>/<digest>`), and Maven roots hold hard links to them, so each artifact is on disk
+// once no matter how many checkouts use it. For each lockfile, an index maps the Maven root's relative paths to
+// digests, so that a fresh Maven root can be filled from the store (or from Gradle's own artifact cache) before
+// `elide install` runs, leaving nothing for it to download. Links only ever point from the store outward: artifacts
+// found in Gradle's cache are copied into the store, so that nothing here shares (or touches) a file which Gradle owns.
+// The store is shared by builds of every checkout, which the install lock doesn't cover, so it has a lock of its own:
+// seeding and ingesting hold it shared, and cleanup holds it exclusively, so that an object is never removed between a
+// build finding it and linking it.
+final class ElideArtifactStore {
+    // Unreferenced objects are kept this long, so that wiping a checkout's dev root doesn't empty the store.
+    private static final Duration retention = Duration.ofDays(7);
+
+    // Indexes which haven't been used for this long are removed.
+    private static final Duration indexRetention = Duration.ofDays(30);
+
+    // Cleanup runs at most this often.
+    private static final Duration cleanupInterval = Duration.ofDays(1);
+
+    // Monitors for each store within this process; file locks are held per process, so builds within one process take
+    // turns instead.
+    private static final Map<Path, Object> processLocks = new ConcurrentHashMap<>();
+
+    private final Path root;
+    private final Path gradleModules;
+    private final Logger logger;
+
+    // Create a view of the store at `root`; `gradleModules` is Gradle's `modules-2/files-2.1` cache, if any.
+    ElideArtifactStore(Path root, Path gradleModules, Logger logger) {
+        this.root = root;
+        this.gradleModules = gradleModules;
+        this.logger = logger;
+    }
+
+    // Fill a Maven root with links to every artifact recorded for the lockfile which is missing from it. Objects are
+    // verified against their digest before they are linked; returns the number of artifacts linked.
+    int seed(Path m2Root, Path lockfile) throws IOException {
+        return locked(true, () -> seedLocked(m2Root, lockfile));
+    }
+
+    private int seedLocked(Path m2Root, Path lockfile) throws IOException {
+        var index = readIndex(lockfile);
+        var linked = 0;
+        for (var entry : index.entrySet()) {
+            var target = m2Root.resolve(entry.getKey());
+            if (Files.exists(target)) {
+                continue;
+            }
+            var digest = entry.getValue();
+            var object = object(digest);
+            if (!Files.exists(object) && !adoptFromGradle(entry.getKey(), digest, object)) {
+                continue;
+            }
+            try {
+                if (!digest.equals(ElideDigests.sha256(object))) {
+                    logger.warn("Elide artifact store entry '{}' is corrupt; removing it", object);
+                    Files.deleteIfExists(object);
+                    continue;
+                }
+                Files.createDirectories(target.getParent());
+                link(object, target);
+            } catch (NoSuchFileException vanished) {
+                // removed from outside the store since it was found; `elide install` fetches it as it would any miss.
+                continue;
+            }
+            linked += 1;
+        }
+        return linked;
+    }
+
+    // Move every artifact in a Maven root into the store, replacing it with a link, and record the lockfile's index.
+    // Only verified artifacts are shared: those which match their published checksum (`.sha1`), or, without one, the
+    // size recorded in the lockfile. Anything else is left alone. Artifacts which are already links to the object the
+    // lockfile's index records for them were verified when they were stored, so they aren't hashed again.
+    void ingest(Path m2Root, Path lockfile) throws IOException {
+        locked(true, () -> {
+            ingestLocked(m2Root, lockfile);
+            return null;
+        });
+    }
+
+    private void ingestLocked(Path m2Root, Path lockfile) throws IOException {
+        var indexed = readIndex(lockfile);
+        var index = new TreeMap<String, String>();
+        var recorded = lockfile != null && Files.exists(lockfile)
+                ? ElideLockedResolution.lockfileSizes(Files.readAllBytes(lockfile))
+                : Map.<String, Long>of();
+        try (var paths = Files.walk(m2Root)) {
+            for (var path : (Iterable<Path>) paths.filter(Files::isRegularFile)::iterator) {
+                var name = path.getFileName().toString();
+                if (name.endsWith(".sha1") || name.endsWith(".md5") || name.startsWith("maven-metadata")
+                        || name.startsWith("_")) {
+                    continue;
+                }
+                var relative = m2Root.relativize(path).toString().replace('\\', '/');
+                var known = indexed.get(relative);
+                if (known != null && isSameFile(object(known), path)) {
+                    touch(object(known));
+                    index.put(relative, known);
+                    continue;
+                }
+                var sha1 = path.resolveSibling(name + ".sha1");
+                if (Files.exists(sha1)) {
+                    if (!publishedChecksum(sha1).equals(ElideDigests.digest(path, "SHA-1"))) {
+                        logger.warn("Not sharing '{}': it doesn't match its published checksum", path);
+                        continue;
+                    }
+                } else {
+                    var size = recorded.getOrDefault("m2/" + relative, -1L);
+                    if (size < 0) {
+                        logger.info("Not sharing '{}': it has no published checksum, nor a size in the lockfile",
+                                path);
+                        continue;
+                    }
+                    if (size != Files.size(path)) {
+                        logger.warn("Not sharing '{}': it doesn't match the size recorded in the lockfile", path);
+                        continue;
+                    }
+                }
+                var digest = ElideDigests.sha256(path);
+                var object = object(digest);
+                store(object, path);
+                touch(object);
+                index.put(relative, digest);
+            }
+        }
+        writeIndex(lockfile, index);
+    }
+
+    // Remove objects which no Maven root links to (a link count of one) and which haven't been used recently, along
+    // with stale indexes. Runs at most once per `cleanupInterval`.
+    void cleanup() throws IOException {
+        locked(false, () -> {
+            cleanupLocked();
+            return null;
+        });
+    }
+
+    private void cleanupLocked() throws IOException {
+        var marker = root.resolve("last-cleanup");
+        var now = Instant.now();
+        if (Files.exists(marker)
+                && Files.getLastModifiedTime(marker).toInstant().plus(cleanupInterval).isAfter(now)) {
+            return;
+        }
+        Files.createDirectories(root);
+        Files.writeString(marker, now.toString(), StandardCharsets.UTF_8);
+
+        var removed = 0;
+        var objects = root.resolve("objects");
+        if (Files.isDirectory(objects)) {
+            try (var paths = Files.walk(objects)) {
+                for (var object : (Iterable<Path>) paths.filter(Files::isRegularFile)::iterator) {
+                    var links = ((Number) Files.getAttribute(object, "unix:nlink")).intValue();
+                    var lastUsed = Files.getLastModifiedTime(object).toInstant();
+                    if (links <= 1 && lastUsed.plus(retention).isBefore(now)) {
+                        Files.deleteIfExists(object);
+                        removed += 1;
+                    }
+                }
+            } catch (UnsupportedOperationException | IllegalArgumentException unsupported) {
+                // link counts aren't available on this platform; nothing can be proven unreferenced.
+                return;
+            }
+        }
+        var indexes = root.resolve("indexes");
+        if (Files.isDirectory(indexes)) {
+            try (var paths = Files.list(indexes)) {
+                for (var index : (Iterable<Path>) paths::iterator) {
+                    if (Files.getLastModifiedTime(index).toInstant().plus(indexRetention).isBefore(now)) {
+                        Files.deleteIfExists(index);
+                    }
+                }
+            }
+        }
+        logger.info("Removed {} unreferenced artifact(s) from the Elide artifact store", removed);
+    }
+
+    // Store an artifact under its digest, or, if the store already has it, replace the artifact with a link to the
+    // stored object.
+    private static void store(Path object, Path artifact) throws IOException {
+        Files.createDirectories(object.getParent());
+        try {
+            Files.createLink(object, artifact);
+            return;
+        } catch (FileAlreadyExistsException stored) {
+            // stored earlier, or concurrently by another build.
+        }
+        try {
+            if (!Files.isSameFile(object, artifact)) {
+                link(object, artifact);
+            }
+        } catch (NoSuchFileException vanished) {
+            // removed from outside the store since; this artifact takes its place.
+            Files.createLink(object, artifact);
+        }
+    }
+
+    // Determine whether an artifact is a link to an object; an object which has vanished is never the same file.
+    private static boolean isSameFile(Path object, Path artifact) throws IOException {
+        try {
+            return Files.isSameFile(object, artifact);
+        } catch (NoSuchFileException vanished) {
+            return false;
+        }
+    }
+
+    // Mark an object as used, so that cleanup keeps it for another `retention`.
+    private static void touch(Path object) throws IOException {
+        Files.setLastModifiedTime(object, FileTime.from(Instant.now()));
+    }
+
+    // Run an action while holding the store's lock, shared or exclusively.
+    private <T> T locked(boolean shared, StoreAction<T> action) throws IOException {
+        Files.createDirectories(root);
+        synchronized (processLocks.computeIfAbsent(root.toAbsolutePath().normalize(), _ -> new Object())) {
+            try (var channel = FileChannel.open(root.resolve("store.lock"),
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+                 var _ = channel.lock(0, Long.MAX_VALUE, shared)) {
+                return action.run();
+            }
+        }
+    }
+
+    private interface StoreAction<T> {
+        T run() throws IOException;
+    }
+
+    // Copy an artifact from Gradle's cache into the store, if Gradle has it. Gradle's cache is laid out as
+    // `<group>/<module>/<version>/<sha1>/<file>`, so candidates are found from the Maven path alone. This is never a
+    // link: a link would share Gradle's file with every Maven root, and the store's bookkeeping would touch it.
+    private boolean adoptFromGradle(String m2Path, String digest, Path object) throws IOException {
+        if (gradleModules == null) {
+            return false;
+        }
+        var segments = m2Path.split("/");
+        if (segments.length < 4) {
+            return false;
+        }
+        var file = segments[segments.length - 1];
+        var version = segments[segments.length - 2];
+        var module = segments[segments.length - 3];
+        var group = String.join(".", Arrays.copyOfRange(segments, 0, segments.length - 3));
+        var versionDir = gradleModules.resolve(group).resolve(module).resolve(version);
+        if (!Files.isDirectory(versionDir)) {
+            return false;
+        }
+        try (var hashes = Files.list(versionDir)) {
+            for (var candidate : (Iterable<Path>) hashes.map(it -> it.resolve(file))::iterator) {
+                if (Files.isRegularFile(candidate) && digest.equals(ElideDigests.sha256(candidate))) {
+                    Files.createDirectories(object.getParent());
+                    var tmp = Files.createTempFile(object.getParent(), object.getFileName().toString(), ".tmp");
+                    Files.copy(candidate, tmp, StandardCopyOption.REPLACE_EXISTING);
+                    Files.move(tmp, object, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Replace `target` with a hard link to `object`, atomically; falls back to a copy if the two are on different
+    // file systems.
+    private static void link(Path object, Path target) throws IOException {
+        var tmp = target.resolveSibling(target.getFileName() + ".elide-link");
+        Files.deleteIfExists(tmp);
+        try {
+            Files.createLink(tmp, object);
+        } catch (IOException | UnsupportedOperationException cannotLink) {
+            Files.copy(object, tmp, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path object(String digest) {
+        return root.resolve("objects").resolve(digest.substring(0, 2)).resolve(digest);
+    }
+
+    private Path indexFile(Path lockfile) throws IOException {
+        return root.resolve("indexes").resolve(ElideDigests.sha256(lockfile) + ".properties");
+    }
+
+    private Map<String, String> readIndex(Path lockfile) throws IOException {
+        var index = new TreeMap<String, String>();
+        if (lockfile == null || !Files.exists(lockfile)) {
+            return index;
+        }
+        var file = indexFile(lockfile);
+        if (!Files.exists(file)) {
+            return index;
+        }
+        var props = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            props.load(reader);
+        }
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+        for (var key : props.stringPropertyNames()) {
+            index.put(key, props.getProperty(key));
+        }
+        return index;
+    }
+
+    private void writeIndex(Path lockfile, Map<String, String> index) throws IOException {
+        if (lockfile == null || !Files.exists(lockfile)) {
+            return;
+        }
+        var file = indexFile(lockfile);
+        Files.createDirectories(file.getParent());
+        var props = new Properties();
+        props.putAll(index);
+        var tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            props.store(writer, "Elide artifact index");
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static String publishedChecksum(Path sidecar) throws IOException {
+        var body = Files.readString(sidecar, StandardCharsets.UTF_8).trim();
+        var end = body.indexOf(' ');
+        return (end < 0 ? body : body.substring(0, end)).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,40 @@
+package dev.elide.gradle;
+
+import org.gradle.api.Action;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.Provider;
+
+import java.lang.reflect.InvocationTargetException;
+
+// Runs when the build scan plugin finishes the build, and adds per-tool telemetry totals (see `ElideTelemetryService`)
+// to the scan as custom values. The build scan plugin is optional, so its extension is only reached reflectively. The
+// callback holds nothing but the extension and the telemetry service, so that the build scan plugin can keep it in the
+// configuration cache; on a cache hit, values are only published if that plugin restores its callbacks from the cache.
+final class ElideBuildScanValues implements Action<Object> {
+    private static final Logger logger = Logging.getLogger(ElideBuildScanValues.class);
+
+    private final Object buildScan;
+    private final Provider<ElideTelemetryService> telemetry;
+
+    ElideBuildScanValues(Object buildScan, Provider<ElideTelemetryService> telemetry) {
+        this.buildScan = buildScan;
+        this.telemetry = telemetry;
+    }
+
+    @Override
+    public void execute(Object result) {
+        var summary = telemetry.get().summary();
+        if (summary.isEmpty()) {
+            return;
+        }
+        try {
+            var value = buildScan.getClass().getMethod("value", String.class, String.class);
+            for (var entry : summary.entrySet()) {
+                value.invoke(buildScan, entry.getKey(), entry.getValue());
+            }
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            logger.debug("Failed to publish Elide telemetry to the build scan", e);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package dev.elide.gradle;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.Directory;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFile;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+// Builds a whole module with one `elide build`, in place of Gradle's compile, resource, and jar tasks; used for leaf
+// modules which are fully described by their `elide.pkl`. Inputs are the manifest, the lockfile, and the sources the
+// manifest declares; outputs are Elide's artifact root (`.dev/artifacts`) in the module, which holds the module's
+// classes and its jar.
+@CacheableTask
+public abstract class ElideBuildTask extends DefaultTask {
+    // Sources a manifest declares, when it declares none: every file under `src/main`.
+    static final String DEFAULT_SOURCES = "src/main/**";
+
+    // Tokens of a manifest which matter for finding its name and sources: comments (to skip), strings, identifiers,
+    // and the punctuation of blocks and properties; anything else is skipped.
+    private static final Pattern tokenPattern = Pattern.compile(
+            "//[^\\n]*|/\\*.*?\\*/|\"(?:[^\"\\\\\\n]|\\\\.)*\"|[A-Za-z_$][\\w$]*|[{}=]", Pattern.DOTALL);
+
+    // Project manifest (`elide.pkl`) which describes the module.
+    @InputFile
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public abstract RegularFileProperty getManifest();
+
+    // Lockfile which pins the module's dependencies, if any.
+    @Optional
+    @InputFile
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public abstract RegularFileProperty getLockfile();
+
+    // Sources declared by the manifest.
+    @InputFiles
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public abstract ConfigurableFileCollection getSources();
+
+    // Identity of the Elide binary which performs the build (its version and content hash).
+    @Input
+    public abstract Property<String> getElideIdentity();
+
+    // Path to the Elide binary; the binary's identity is tracked through `elideIdentity`.
+    @Internal
+    public abstract RegularFileProperty getElideBin();
+
+    // Module directory, where `elide build` is run.
+    @Internal
+    public abstract DirectoryProperty getWorkingDirectory();
+
+    // Elide's artifact root in the module (`.dev/artifacts`).
+    @OutputDirectory
+    public abstract DirectoryProperty getOutputDirectory();
+
+    // Limit on concurrent Elide processes, which also supplies the heap limit and collects peak RSS observations.
+    @Internal
+    public abstract Property<ElideProcessLimiter> getProcessLimiter();
+
+    // Collector of telemetry for Elide processes; nothing is recorded if unset.
+    @Internal
+    public abstract Property<ElideTelemetryService> getTelemetry();
+
+    public ElideBuildTask() {
+        setGroup("Elide");
+        setDescription("Builds the module's classes and jar with `elide build`.");
+    }
+
+    // Compiled classes and resources of the module's main sources.
+    @Internal
+    public Provider<Directory> getClassesDirectory() {
+        return getOutputDirectory().dir("jvm/classes/main");
+    }
+
+    // Jar of the module, named for the project in its manifest.
+    @Internal
+    public Provider<RegularFile> getJarFile() {
+        return getOutputDirectory().zip(getManifest(), (dir, manifest) ->
+                dir.file("jvm/jars/" + projectName(manifest.getAsFile()) + ".jar"));
+    }
+
+    @TaskAction
+    public void build() throws InterruptedException {
+        var limiter = getProcessLimiter().get();
+        var args = new ArrayList<>(limiter.heapArgs());
+        args.add("build");
+        var stats = new AtomicReference<ElideProcessMonitor.Stats>();
+        var start = System.currentTimeMillis();
+        limiter.acquire();
+        try {
+            ElideSubprocess.callStreaming(
+                    getElideBin().get().getAsFile().toPath(),
+                    getWorkingDirectory().get().getAsFile(),
+                    getLogger(),
+                    new ElideSubprocess.OutputListener() {
+                        @Override
+                        public void onLine(boolean stderr, String line) {
+                            // Already logged by `ElideSubprocess`.
+                        }
+
+                        @Override
+                        public void onExit(ElideProcessMonitor.Stats exited) {
+                            stats.set(exited);
+                            limiter.observe("build", exited.peakRssBytes());
+                        }
+                    },
+                    args.toArray(String[]::new));
+        } finally {
+            limiter.release();
+        }
+        if (getTelemetry().isPresent() && stats.get() != null) {
+            getTelemetry().get().record("build", getPath(), stats.get(), Map.of(
+                    "sources", getSources().getFiles().size()));
+        }
+
+        var classes = getClassesDirectory().get().getAsFile();
+        var jar = getJarFile().get().getAsFile();
+        if (!classes.isDirectory() || !jar.isFile()) {
+            throw new GradleException("`elide build` didn't produce '" + classes + "' and '" + jar + "'; is the module "
+                    + "fully described by its manifest?");
+        }
+        getLogger().lifecycle("`elide build` completed in {}ms", System.currentTimeMillis() - start);
+    }
+
+    // Source globs declared in the top-level `sources` block of a manifest, relative to the module; the default layout
+    // if the manifest declares none. Only literal values are seen: a glob computed by Pkl expressions isn't.
+    static List<String> sourceGlobs(File manifest) {
+        var globs = new ArrayList<String>();
+        var tokens = tokens(read(manifest));
+        var depth = 0;
+        var sourcesDepth = -1;
+        for (var i = 0; i < tokens.size(); i++) {
+            var token = tokens.get(i);
+            switch (token) {
+                case "{" -> {
+                    depth++;
+                    if (depth == 1 && i > 0 && tokens.get(i - 1).equals("sources")) {
+                        sourcesDepth = depth;
+                    }
+                }
+                case "}" -> {
+                    if (depth == sourcesDepth) {
+                        sourcesDepth = -1;
+                    }
+                    depth--;
+                }
+                default -> {
+                    if (depth == sourcesDepth && isString(token) && tokens.get(i - 1).equals("=")) {
+                        globs.add(unquote(token));
+                    }
+                }
+            }
+        }
+        return globs.isEmpty() ? List.of(DEFAULT_SOURCES) : globs;
+    }
+
+    // Name of the project described by a manifest (its top-level `name`); the module's directory name if it declares
+    // none.
+    static String projectName(File manifest) {
+        var tokens = tokens(read(manifest));
+        var depth = 0;
+        for (var i = 0; i < tokens.size(); i++) {
+            var token = tokens.get(i);
+            if (token.equals("{")) {
+                depth++;
+            } else if (token.equals("}")) {
+                depth--;
+            } else if (depth == 0 && token.equals("name") && i + 2 < tokens.size()
+                    && tokens.get(i + 1).equals("=") && isString(tokens.get(i + 2))) {
+                return unquote(tokens.get(i + 2));
+            }
+        }
+        return manifest.getAbsoluteFile().getParentFile().getName();
+    }
+
+    // Tokens of a manifest, without its comments.
+    private static List<String> tokens(String manifest) {
+        var tokens = new ArrayList<String>();
+        var matcher = tokenPattern.matcher(manifest);
+        while (matcher.find()) {
+            var token = matcher.group();
+            if (!token.startsWith("//") && !token.startsWith("/*")) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isString(String token) {
+        return token.startsWith("\"");
+    }
+
+    private static String unquote(String token) {
+        return token.substring(1, token.length() - 1).replace("\\\"", "\"").replace("\\\\", "\\");
+    }
+
+    private static String read(File manifest) {
+        try {
+            return Files.readString(manifest.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+}
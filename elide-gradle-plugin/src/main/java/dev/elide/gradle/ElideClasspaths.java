@@ -0,0 +1,46 @@
+package dev.elide.gradle;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.jar.JarFile;
+import java.util.zip.ZipFile;
+
+// Helpers shared by the actions which run Elide's JDK tools in place of Gradle's: splitting a classpath into a module
+// path, and clearing output directories.
+final class ElideClasspaths {
+    private ElideClasspaths() {}
+
+    // Determine whether a classpath entry is a module, as Gradle decides when inferring the module path: a directory or
+    // jar with a `module-info.class` (in a multi-release jar, for this runtime), or a jar which names its automatic
+    // module.
+    static boolean isModule(File file) throws IOException {
+        if (file.isDirectory()) {
+            return new File(file, "module-info.class").isFile();
+        }
+        if (!file.isFile() || !file.getName().endsWith(".jar")) {
+            return false;
+        }
+        try (var jar = new JarFile(file, true, ZipFile.OPEN_READ, Runtime.version())) {
+            if (jar.getJarEntry("module-info.class") != null) {
+                return true;
+            }
+            var manifest = jar.getManifest();
+            return manifest != null && manifest.getMainAttributes().getValue("Automatic-Module-Name") != null;
+        }
+    }
+
+    // Delete the contents of a directory, leaving the directory itself in place.
+    static void clean(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        try (var files = Files.walk(dir)) {
+            for (var file : files.sorted(Comparator.reverseOrder()).toList()) {
+                if (!file.equals(dir)) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+}
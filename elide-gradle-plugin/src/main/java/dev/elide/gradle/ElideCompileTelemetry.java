@@ -0,0 +1,25 @@
+package dev.elide.gradle;
+
+import org.gradle.api.Action;
+import org.gradle.api.Task;
+import org.gradle.api.provider.Provider;
+
+import java.util.Map;
+
+// Runs before a compile task which is wired to Elide, and announces it to the telemetry service, along with the number
+// of sources it compiles; the compile itself is timed from Gradle's task events once it finishes.
+final class ElideCompileTelemetry implements Action<Task> {
+    private final String tool;
+    private final Provider<ElideTelemetryService> telemetry;
+
+    ElideCompileTelemetry(String tool, Provider<ElideTelemetryService> telemetry) {
+        this.tool = tool;
+        this.telemetry = telemetry;
+    }
+
+    @Override
+    public void execute(Task task) {
+        telemetry.get().expect(task.getPath(), tool, Map.of(
+                "sources", task.getInputs().getSourceFiles().getFiles().size()));
+    }
+}
@@ -0,0 +1,242 @@
+package dev.elide.gradle;
+
+import groovy.json.JsonOutput;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.FileSystemOperations;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Classpath;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.SkipWhenEmpty;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.work.DisableCachingByDefault;
+
+import javax.inject.Inject;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+// Compiles the sources of a `JavaCompile` task twice, once with Elide and once with the JDK's `javac`, into separate
+// directories; records wall time and peak RSS for each compiler and checks the resulting class files for parity.
+@DisableCachingByDefault(because = "Compiler timings are specific to the machine which produced them")
+public abstract class ElideCompilerRaceTask extends DefaultTask {
+    // Java sources to compile.
+    @InputFiles
+    @SkipWhenEmpty
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public abstract ConfigurableFileCollection getSource();
+
+    // Compile classpath.
+    @Classpath
+    public abstract ConfigurableFileCollection getClasspath();
+
+    // Annotation processor path; annotation processing is disabled when empty.
+    @Classpath
+    public abstract ConfigurableFileCollection getAnnotationProcessorPath();
+
+    // Compiler arguments shared by both compilers (release, encoding, and any user arguments).
+    @Input
+    public abstract ListProperty<String> getCompilerArgs();
+
+    // Path of the `JavaCompile` task being raced; used to label reports.
+    @Input
+    public abstract Property<String> getCompileTaskPath();
+
+    // Version of Elide racing against `javac`, as reported.
+    @Internal
+    public abstract Property<String> getElideVersion();
+
+    // Identity of the Elide binary racing against `javac` (its version and content hash).
+    @Input
+    public abstract Property<String> getElideIdentity();
+
+    // Path to the Elide binary; the binary's identity is tracked through `elideIdentity`.
+    @Internal
+    public abstract RegularFileProperty getElideBin();
+
+    // Limit on concurrent Elide processes, which also supplies the heap limit and collects peak RSS observations.
+    @Internal
+    public abstract Property<ElideProcessLimiter> getProcessLimiter();
+
+    // Collector of telemetry for Elide processes; nothing is recorded if unset.
+    @Internal
+    public abstract Property<ElideTelemetryService> getTelemetry();
+
+    // Path to the JDK's `javac`.
+    @Internal
+    public abstract RegularFileProperty getJavacExecutable();
+
+    // Directory holding each compiler's output.
+    @OutputDirectory
+    public abstract DirectoryProperty getWorkDirectory();
+
+    // Per-task race report, in JSON.
+    @OutputFile
+    public abstract RegularFileProperty getReportFile();
+
+    @Inject
+    protected abstract FileSystemOperations getFileSystemOperations();
+
+    public ElideCompilerRaceTask() {
+        setGroup("Elide");
+        setDescription("Compiles with both Elide and javac, and reports on timing and output parity.");
+    }
+
+    @TaskAction
+    public void race() throws IOException, InterruptedException {
+        var work = getWorkDirectory().get().getAsFile().toPath();
+        getFileSystemOperations().delete(spec -> spec.delete(work.toFile()));
+        var elideOut = Files.createDirectories(work.resolve("elide"));
+        var javacOut = Files.createDirectories(work.resolve("javac"));
+
+        var elide = getElideBin().get().getAsFile().getAbsolutePath();
+        var javac = getJavacExecutable().get().getAsFile().getAbsolutePath();
+        var limiter = getProcessLimiter().get();
+        var elideCommand = new ArrayList<String>();
+        elideCommand.add(elide);
+        elideCommand.addAll(limiter.heapArgs());
+        elideCommand.addAll(List.of("javac", "--", "@" + writeArgfile(work, elideOut)));
+        var elideResult = limiter.run(elideCommand, work.toFile());
+        limiter.observe("javac", elideResult.peakRssBytes());
+        if (getTelemetry().isPresent()) {
+            getTelemetry().get().record("race", getPath(), elideResult.stats(), Map.of(
+                    "sources", getSource().getFiles().size()));
+        }
+        var javacResult = ElideProcessMonitor.run(
+                List.of(javac, "@" + writeArgfile(work, javacOut)),
+                work.toFile());
+
+        var parity = compareOutputs(elideOut, javacOut);
+        var report = new LinkedHashMap<String, Object>();
+        report.put("task", getCompileTaskPath().get());
+        report.put("elideVersion", getElideVersion().get());
+        report.put("sources", getSource().getFiles().size());
+        report.put("elide", describe(elideResult));
+        report.put("javac", describe(javacResult));
+        report.put("speedup", elideResult.wallMillis() > 0
+                ? (double) javacResult.wallMillis() / elideResult.wallMillis()
+                : null);
+        report.put("parity", parity);
+
+        var reportFile = getReportFile().get().getAsFile().toPath();
+        Files.createDirectories(reportFile.getParent());
+        Files.writeString(reportFile, JsonOutput.prettyPrint(JsonOutput.toJson(report)), StandardCharsets.UTF_8);
+
+        getLogger().lifecycle(
+                "Elide vs. javac for '{}': elide={}ms, javac={}ms, parity={}",
+                getCompileTaskPath().get(),
+                elideResult.wallMillis(),
+                javacResult.wallMillis(),
+                parity.get("matches"));
+        if (elideResult.exitCode() != 0) {
+            getLogger().warn("Elide failed to compile '{}':\n{}", getCompileTaskPath().get(), elideResult.output());
+        }
+        if (javacResult.exitCode() != 0) {
+            getLogger().warn("javac failed to compile '{}':\n{}", getCompileTaskPath().get(), javacResult.output());
+        }
+    }
+
+    // Write an argument file for one compiler run; both runs differ only in their output directory.
+    private Path writeArgfile(Path work, Path output) throws IOException {
+        var args = new ArrayList<String>();
+        args.add("-d");
+        args.add(output.toString());
+        if (!getClasspath().isEmpty()) {
+            args.add("-classpath");
+            args.add(getClasspath().getAsPath());
+        }
+        if (getAnnotationProcessorPath().isEmpty()) {
+            args.add("-proc:none");
+        } else {
+            args.add("-processorpath");
+            args.add(getAnnotationProcessorPath().getAsPath());
+        }
+        args.addAll(getCompilerArgs().get());
+        for (File source : getSource().getFiles()) {
+            args.add(source.getAbsolutePath());
+        }
+        var argfile = work.resolve(output.getFileName() + ".args");
+        Files.write(argfile, args.stream().map(ElideCompilerRaceTask::quote).collect(Collectors.toList()));
+        return argfile;
+    }
+
+    // Quote an argument for use within a `javac` argument file.
+    private static String quote(String arg) {
+        return "\"" + arg.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static Map<String, Object> describe(ElideProcessMonitor.Result result) {
+        var out = new LinkedHashMap<String, Object>();
+        out.put("exitCode", result.exitCode());
+        out.put("wallMillis", result.wallMillis());
+        out.put("peakRssBytes", result.peakRssBytes());
+        return out;
+    }
+
+    // Compare the class files produced by each compiler, by relative path and content hash.
+    private static Map<String, Object> compareOutputs(Path elideOut, Path javacOut) throws IOException {
+        var elideHashes = hashTree(elideOut);
+        var javacHashes = hashTree(javacOut);
+        var allPaths = new TreeSet<String>();
+        allPaths.addAll(elideHashes.keySet());
+        allPaths.addAll(javacHashes.keySet());
+
+        var identical = 0;
+        var different = new ArrayList<String>();
+        var onlyElide = new ArrayList<String>();
+        var onlyJavac = new ArrayList<String>();
+        for (var path : allPaths) {
+            var elideHash = elideHashes.get(path);
+            var javacHash = javacHashes.get(path);
+            if (elideHash == null) {
+                onlyJavac.add(path);
+            } else if (javacHash == null) {
+                onlyElide.add(path);
+            } else if (elideHash.equals(javacHash)) {
+                identical += 1;
+            } else {
+                different.add(path);
+            }
+        }
+        var parity = new LinkedHashMap<String, Object>();
+        parity.put("matches", different.isEmpty() && onlyElide.isEmpty() && onlyJavac.isEmpty());
+        parity.put("identical", identical);
+        parity.put("different", different);
+        parity.put("onlyElide", onlyElide);
+        parity.put("onlyJavac", onlyJavac);
+        return parity;
+    }
+
+    private static Map<String, String> hashTree(Path root) throws IOException {
+        var hashes = new TreeMap<String, String>();
+        try (var files = Files.walk(root)) {
+            files.filter(Files::isRegularFile).forEach(file -> {
+                try {
+                    hashes.put(root.relativize(file).toString(), ElideDigests.sha256(file));
+                } catch (IOException ioe) {
+                    throw new UncheckedIOException(ioe);
+                }
+            });
+        }
+        return hashes;
+    }
+}
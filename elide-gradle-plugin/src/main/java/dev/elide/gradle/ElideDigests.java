@@ -0,0 +1,56 @@
+package dev.elide.gradle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+// Content hashes, as lowercase hex; SHA-256 unless noted. Shared by everything which keys files or binaries on content.
+final class ElideDigests {
+    private ElideDigests() {}
+
+    // SHA-256 of a file's content.
+    static String sha256(Path file) throws IOException {
+        return digest(file, "SHA-256");
+    }
+
+    // SHA-256 of a string, encoded as UTF-8.
+    static String sha256(String value) {
+        return HexFormat.of().formatHex(sha256().digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // Digest of a file's content with the named algorithm (i.e. `SHA-1`, to check published Maven checksums).
+    static String digest(Path file, String algorithm) throws IOException {
+        var digest = messageDigest(algorithm);
+        update(digest, file);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // Fresh SHA-256 digest, for hashing several inputs together.
+    static MessageDigest sha256() {
+        return messageDigest("SHA-256");
+    }
+
+    // Feed a file's content to a digest.
+    static void update(MessageDigest digest, Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            var buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+    }
+
+    private static MessageDigest messageDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new IllegalStateException(algorithm + " is not available", nsae);
+        }
+    }
+}
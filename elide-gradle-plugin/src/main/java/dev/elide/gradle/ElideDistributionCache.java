@@ -0,0 +1,260 @@
+package dev.elide.gradle;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.file.ArchiveOperations;
+import org.gradle.api.file.FileSystemOperations;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+// Machine-wide cache of Elide distributions, under the Gradle user home. Extracted distributions are stored by the
+// SHA-256 of their archive (`sha256/<digest>`), and each version is mapped to a digest by a small pointer file
+// (`versions/<version>/<platform>.sha256`); once both exist, resolving a version is read-only, so the cache can be
+// restored between CI jobs and mounted read-only. Downloads and extractions are serialized across processes with a file
+// lock, staged next to their final location, and moved into place atomically.
+final class ElideDistributionCache {
+    // Default location of Elide distributions; `<base>/<platform>/<version>/elide.tgz`.
+    static final String DEFAULT_DISTRIBUTION_URL = "https://elide.zip/cli/v1/snapshot";
+
+    // Versions which may be pinned; a version is used as a path segment in the cache and in the download URL.
+    private static final Pattern versionPattern = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._+-]*");
+
+    // Marker written into an extracted distribution once it is complete.
+    private static final String completeMarker = ".complete";
+
+    private static final Logger logger = Logging.getLogger(ElideDistributionCache.class);
+
+    private final Path root;
+    private final String distributionUrl;
+    private final boolean offline;
+    private final ArchiveOperations archives;
+    private final FileSystemOperations files;
+
+    ElideDistributionCache(
+            Path root,
+            String distributionUrl,
+            boolean offline,
+            ArchiveOperations archives,
+            FileSystemOperations files) {
+        this.root = root;
+        this.distributionUrl = distributionUrl.endsWith("/")
+                ? distributionUrl.substring(0, distributionUrl.length() - 1)
+                : distributionUrl;
+        this.offline = offline;
+        this.archives = archives;
+        this.files = files;
+    }
+
+    // Resolve the Elide binary for a pinned version, downloading and extracting it if it isn't cached yet. If a
+    // checksum is provided, the archive must match it; otherwise, it must match the checksum published alongside it.
+    Path resolve(String version, String checksum) {
+        if (!validVersion(version)) {
+            throw new GradleException("Invalid Elide version '" + version + "'; expected a release or snapshot "
+                    + "version, such as `1.0.0-beta5`");
+        }
+        var platform = platform();
+        var pinned = checksum == null || checksum.isBlank() ? null : checksum.trim().toLowerCase(Locale.ROOT);
+        var pointer = root.resolve("versions").resolve(version).resolve(platform + ".sha256");
+
+        var cached = findCached(pinned != null ? pinned : readPointer(pointer));
+        if (cached != null) {
+            return cached;
+        }
+        if (offline) {
+            throw new GradleException("Elide " + version + " is not cached, and Gradle is offline");
+        }
+        try {
+            Files.createDirectories(root);
+        } catch (IOException ioe) {
+            throw new GradleException("Elide " + version + " is not cached, and the Elide cache at '" + root
+                    + "' is not writable", ioe);
+        }
+
+        try (var channel = FileChannel.open(root.resolve("cache.lock"),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+             var _ = channel.lock()) {
+            // another build may have finished the same download while we waited for the lock.
+            cached = findCached(pinned != null ? pinned : readPointer(pointer));
+            if (cached != null) {
+                return cached;
+            }
+            return download(version, platform, pinned, pointer);
+        } catch (IOException ioe) {
+            throw new GradleException("Failed to download Elide " + version, ioe);
+        } catch (InterruptedException ixr) {
+            Thread.currentThread().interrupt();
+            throw new GradleException("Interrupted while downloading Elide " + version, ixr);
+        }
+    }
+
+    private Path download(String version, String platform, String pinned, Path pointer)
+            throws IOException, InterruptedException {
+        var url = distributionUrl + "/" + platform + "/" + version + "/elide.tgz";
+        var tmp = Files.createDirectories(root.resolve("tmp"));
+        var archive = Files.createTempFile(tmp, "elide-" + version + "-", ".tgz");
+        Path staging = null;
+        try {
+            logger.lifecycle("Downloading Elide {} for {}", version, platform);
+            var client = HttpClient.newBuilder()
+                    .followRedirects(HttpClient.Redirect.NORMAL)
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .build();
+            var digest = fetch(client, url, archive);
+            var expected = pinned != null ? pinned : fetchChecksum(client, url + ".sha256");
+            if (!expected.equals(digest)) {
+                throw new GradleException("Checksum mismatch for Elide " + version + " from " + url
+                        + ": expected " + expected + ", got " + digest);
+            }
+
+            var target = root.resolve("sha256").resolve(digest);
+            if (!Files.exists(target.resolve(completeMarker))) {
+                staging = Files.createTempDirectory(tmp, digest + ".");
+                var into = staging.toFile();
+                files.copy(spec -> spec.from(archives.tarTree(archives.gzip(archive.toFile()))).into(into));
+                Files.writeString(staging.resolve(completeMarker), version + "\n", StandardCharsets.UTF_8);
+                Files.createDirectories(target.getParent());
+                deleteRecursively(target);  // an incomplete extraction, from a build which was killed
+                try {
+                    Files.move(staging, target, StandardCopyOption.ATOMIC_MOVE);
+                    staging = null;
+                } catch (FileAlreadyExistsException | DirectoryNotEmptyException raced) {
+                    // completed by a process which doesn't honor the lock; the content is identical.
+                }
+            }
+            writePointer(pointer, digest);
+
+            var binary = findCached(digest);
+            if (binary == null) {
+                throw new GradleException("Elide distribution from " + url + " does not contain an `elide` binary");
+            }
+            return binary;
+        } finally {
+            Files.deleteIfExists(archive);
+            if (staging != null) {
+                deleteRecursively(staging);
+            }
+        }
+    }
+
+    // Download a URL to a file, returning the SHA-256 of its content.
+    private static String fetch(HttpClient client, String url, Path into) throws IOException, InterruptedException {
+        var response = client.send(HttpRequest.newBuilder(URI.create(url)).GET().build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = response.body()) {
+            if (response.statusCode() != 200) {
+                throw new GradleException("Failed to download " + url + ": HTTP " + response.statusCode());
+            }
+            var digest = new DigestInputStream(body, ElideDigests.sha256());
+            Files.copy(digest, into, StandardCopyOption.REPLACE_EXISTING);
+            return HexFormat.of().formatHex(digest.getMessageDigest().digest());
+        }
+    }
+
+    // Fetch a published checksum; either a bare digest, or `sha256sum` output (`<digest>  <file>`).
+    private static String fetchChecksum(HttpClient client, String url) throws IOException, InterruptedException {
+        var response = client.send(HttpRequest.newBuilder(URI.create(url)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new GradleException("Failed to download the checksum at " + url + ": HTTP " + response.statusCode()
+                    + "; pin the checksum with `elideChecksum` instead");
+        }
+        var body = response.body().trim();
+        var end = body.indexOf(' ');
+        return (end < 0 ? body : body.substring(0, end)).toLowerCase(Locale.ROOT);
+    }
+
+    // Locate the binary within a complete, extracted distribution; `null` if there isn't one.
+    private Path findCached(String digest) {
+        if (digest == null) {
+            return null;
+        }
+        var dist = root.resolve("sha256").resolve(digest);
+        if (!Files.exists(dist.resolve(completeMarker))) {
+            return null;
+        }
+        var binName = platform().startsWith("windows") ? "elide.exe" : "elide";
+        try (var paths = Files.walk(dist, 2)) {
+            return paths
+                    .filter(it -> it.getFileName().toString().equals(binName))
+                    .filter(Files::isRegularFile)
+                    .findFirst()
+                    .map(Path::toAbsolutePath)
+                    .orElse(null);
+        } catch (IOException ioe) {
+            logger.debug("Failed to read cached Elide distribution at '{}'", dist, ioe);
+            return null;
+        }
+    }
+
+    private static String readPointer(Path pointer) {
+        try {
+            return Files.exists(pointer) ? Files.readString(pointer, StandardCharsets.UTF_8).trim() : null;
+        } catch (IOException ioe) {
+            return null;
+        }
+    }
+
+    private static void writePointer(Path pointer, String digest) throws IOException {
+        Files.createDirectories(pointer.getParent());
+        var tmp = Files.createTempFile(pointer.getParent(), pointer.getFileName().toString(), ".tmp");
+        Files.writeString(tmp, digest + "\n", StandardCharsets.UTF_8);
+        Files.move(tmp, pointer, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Determine whether a version can be pinned: a single path segment of letters, digits, `.`, `_`, `+`, and `-`,
+    // which isn't a relative path (`.` or `..`).
+    static boolean validVersion(String version) {
+        return version != null && versionPattern.matcher(version).matches() && !version.contains("..");
+    }
+
+    // Platform name, as used in distribution URLs (i.e. `linux-amd64`).
+    static String platform() {
+        var arch = switch (System.getProperty("os.arch").toLowerCase(Locale.ROOT)) {
+            case "x86_64", "amd64" -> "amd64";
+            case "arm64", "aarch64" -> "arm64";
+            default -> throw new GradleException("Unsupported architecture for Elide: "
+                    + System.getProperty("os.arch"));
+        };
+        var os = System.getProperty("os.name").toLowerCase(Locale.ROOT);
+        if (os.startsWith("linux")) {
+            return "linux-" + arch;
+        } else if (os.startsWith("mac")) {
+            return "darwin-" + arch;
+        } else if (os.startsWith("windows")) {
+            return "windows-" + arch;
+        }
+        throw new GradleException("Unsupported OS for Elide: " + System.getProperty("os.name"));
+    }
+
+    private static void deleteRecursively(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (var paths = Files.walk(root)) {
+            for (var path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package dev.elide.gradle;
 
 import org.gradle.api.Project;
+import org.gradle.api.file.Directory;
 import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.file.RegularFile;
 import org.gradle.api.file.RegularFileProperty;
@@ -11,28 +12,42 @@ import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.PathSensitive;
 import org.gradle.api.tasks.PathSensitivity;
 
-import java.nio.file.Path;
 
 public class ElideExtension implements ElideExtensionConfig {
     private static final boolean USE_ROOT_FOR_DEPS = true;
     private static final String DEFAULT_DEV_ROOT = ".dev";
-    protected Project activeProject;
     protected boolean enableInstall = false;
     protected boolean useBuildEmbedded = false;
     protected boolean enableJavacIntegration = true;
+    protected boolean enableJavadocIntegration = false;
     protected boolean enableProjectIntegration = true;
     protected boolean enableMavenIntegration = true;
     protected boolean enableShim = true;
+    protected boolean generateManifest = false;
+    protected boolean linkDependencies = false;
+    protected boolean lockedResolution = false;
+    protected boolean shardedCompile = false;
+    protected boolean abiSnapshots = false;
     protected Property<Boolean> doEnableInstall;
     protected Property<Boolean> doEmbeddedBuild;
     protected Property<Boolean> doUseMavenIntegration;
     protected Property<Boolean> doEnableProjects;
     protected Property<Boolean> doEnableJavaCompiler;
+    protected Property<Boolean> doEnableJavadoc;
+    protected Property<Boolean> doGenerateManifest;
+    protected Property<Boolean> doLinkDependencies;
+    protected Property<Boolean> doLockedResolution;
+    protected Property<Boolean> doShardedCompile;
+    protected Property<Boolean> doAbiSnapshots;
     protected Property<Boolean> doResolveElideFromPath;
     protected Property<Boolean> enableDebugMode;
     protected Property<Boolean> enableVerboseMode;
+    protected Property<String> pinnedElideVersion;
+    protected Property<String> pinnedElideChecksum;
+    protected Property<Integer> maxElideProcesses;
+    protected Property<String> maxElideHeap;
     @PathSensitive(PathSensitivity.RELATIVE) protected RegularFileProperty projectManifest;
-    @PathSensitive(PathSensitivity.ABSOLUTE) protected RegularFileProperty activeElideBin;
+    @PathSensitive(PathSensitivity.NONE) protected RegularFileProperty activeElideBin;
     @PathSensitive(PathSensitivity.RELATIVE) protected DirectoryProperty activeDevRoot;
     @PathSensitive(PathSensitivity.RELATIVE) @Input protected RegularFileProperty activeLockfile;
 
@@ -56,11 +71,41 @@ public class ElideExtension implements ElideExtensionConfig {
         return doEnableJavaCompiler;
     }
 
+    @Override
+    public Property<Boolean> getEnableJavadoc() {
+        return doEnableJavadoc;
+    }
+
     @Override
     public Property<Boolean> getEnableProjectIntegration() {
         return doEnableProjects;
     }
 
+    @Override
+    public Property<Boolean> getGenerateManifest() {
+        return doGenerateManifest;
+    }
+
+    @Override
+    public Property<Boolean> getLinkDependencies() {
+        return doLinkDependencies;
+    }
+
+    @Override
+    public Property<Boolean> getLockedResolution() {
+        return doLockedResolution;
+    }
+
+    @Override
+    public Property<Boolean> getShardedCompile() {
+        return doShardedCompile;
+    }
+
+    @Override
+    public Property<Boolean> getAbiSnapshots() {
+        return doAbiSnapshots;
+    }
+
     @Override
     public RegularFileProperty getManifest() {
         return projectManifest;
@@ -81,6 +126,26 @@ public class ElideExtension implements ElideExtensionConfig {
         return activeElideBin;
     }
 
+    @Override
+    public Property<String> getElideVersion() {
+        return pinnedElideVersion;
+    }
+
+    @Override
+    public Property<String> getElideChecksum() {
+        return pinnedElideChecksum;
+    }
+
+    @Override
+    public Property<Integer> getMaxProcesses() {
+        return maxElideProcesses;
+    }
+
+    @Override
+    public Property<String> getMaxHeap() {
+        return maxElideHeap;
+    }
+
     @Override
     public Property<Boolean> getDebug() {
         return enableDebugMode;
@@ -95,10 +160,17 @@ public class ElideExtension implements ElideExtensionConfig {
         return enableShim;
     }
 
-    Path resolveLocalDepsPath() {
-        return activeDevRoot.getAsFile().get().toPath()
-                .resolve("dependencies")
-                .resolve("m2");
+    Provider<Directory> resolveLocalDepsDir() {
+        return activeDevRoot.dir("dependencies/m2");
+    }
+
+    // Root where the generated (build-wide) manifest is written.
+    Provider<Directory> resolveGeneratedRoot() {
+        return activeDevRoot.dir("generated");
+    }
+
+    Provider<RegularFile> lockfile() {
+        return activeLockfile;
     }
 
     Provider<RegularFile> resolveLockfilePath() {
@@ -106,23 +178,32 @@ public class ElideExtension implements ElideExtensionConfig {
     }
 
     ElideExtension(Project project, ObjectFactory objects) {
-        this.activeProject = project;
         this.doEnableInstall = objects.property(Boolean.class).convention(enableInstall);
         this.doEmbeddedBuild = objects.property(Boolean.class).convention(useBuildEmbedded);
         this.doUseMavenIntegration = objects.property(Boolean.class).convention(enableMavenIntegration);
         this.doEnableProjects = objects.property(Boolean.class).convention(enableProjectIntegration);
         this.doEnableJavaCompiler = objects.property(Boolean.class).convention(enableJavacIntegration);
+        this.doEnableJavadoc = objects.property(Boolean.class).convention(enableJavadocIntegration);
+        this.doGenerateManifest = objects.property(Boolean.class).convention(generateManifest);
+        this.doLinkDependencies = objects.property(Boolean.class).convention(linkDependencies);
+        this.doLockedResolution = objects.property(Boolean.class).convention(lockedResolution);
+        this.doShardedCompile = objects.property(Boolean.class).convention(shardedCompile);
+        this.doAbiSnapshots = objects.property(Boolean.class).convention(abiSnapshots);
         this.doResolveElideFromPath = objects.property(Boolean.class).convention(false);
         this.projectManifest = objects.fileProperty()
                 .convention(project.getLayout().getProjectDirectory().file("elide.pkl"));
 
-        var devRootProject = (USE_ROOT_FOR_DEPS ? activeProject.getRootProject() : activeProject);
+        var devRootProject = (USE_ROOT_FOR_DEPS ? project.getRootProject() : project);
         this.activeElideBin = objects.fileProperty();
         this.activeDevRoot = objects.directoryProperty()
                 .convention(devRootProject.getLayout().getProjectDirectory().dir(DEFAULT_DEV_ROOT));
 
         this.enableDebugMode = objects.property(Boolean.class).convention(false);
         this.enableVerboseMode = objects.property(Boolean.class).convention(false);
+        this.pinnedElideVersion = objects.property(String.class);
+        this.pinnedElideChecksum = objects.property(String.class);
+        this.maxElideProcesses = objects.property(Integer.class);
+        this.maxElideHeap = objects.property(String.class);
         this.activeLockfile = objects.fileProperty().convention(resolveLockfilePath());
     }
 }
@@ -9,9 +9,19 @@ public interface ElideExtensionConfig {
     Property<Boolean> getEnableEmbeddedBuild();
     Property<Boolean> getEnableMavenIntegration();
     Property<Boolean> getEnableJavaCompiler();
+    Property<Boolean> getEnableJavadoc();
     Property<Boolean> getEnableProjectIntegration();
+    Property<Boolean> getGenerateManifest();
+    Property<Boolean> getLinkDependencies();
+    Property<Boolean> getLockedResolution();
+    Property<Boolean> getShardedCompile();
+    Property<Boolean> getAbiSnapshots();
     RegularFileProperty getManifest();
     RegularFileProperty getElideBin();
+    Property<String> getElideVersion();
+    Property<String> getElideChecksum();
+    Property<Integer> getMaxProcesses();
+    Property<String> getMaxHeap();
     Property<Boolean> getResolveElideFromPath();
     Property<Boolean> getDebug();
     Property<Boolean> getVerbose();
@@ -0,0 +1,94 @@
+package dev.elide.gradle;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.TreeSet;
+
+// Writes an Elide project manifest (`elide.pkl`) from the Maven dependencies declared in Gradle, merged across every
+// project which applies the plugin; `elide install` can then resolve the build's dependencies without a hand-written
+// manifest.
+@CacheableTask
+public abstract class ElideGenerateManifestTask extends DefaultTask {
+    // Name of the generated Elide project.
+    @Input
+    public abstract Property<String> getProjectName();
+
+    // Maven coordinates (`group:name:version`) needed to compile or run main code.
+    @Input
+    public abstract ListProperty<String> getPackages();
+
+    // Maven coordinates (`group:name:version`) needed only by tests.
+    @Input
+    public abstract ListProperty<String> getTestPackages();
+
+    // Modules (`group:name`, with the project declaring them) which were left out for lack of a declared version; their
+    // versions come from a platform or BOM, which isn't resolved to generate the manifest.
+    @Internal
+    public abstract ListProperty<String> getUnversionedPackages();
+
+    // Generated manifest.
+    @OutputFile
+    public abstract RegularFileProperty getManifestFile();
+
+    public ElideGenerateManifestTask() {
+        setGroup("Elide");
+        setDescription("Generates an Elide manifest from the dependencies declared in Gradle.");
+    }
+
+    @TaskAction
+    public void generate() throws IOException {
+        var packages = new TreeSet<>(getPackages().get());
+        var testPackages = new TreeSet<>(getTestPackages().get());
+        testPackages.removeAll(packages);
+
+        var manifest = new StringBuilder()
+                .append("// Generated by the Elide Gradle plugin; do not edit.\n")
+                .append("amends \"elide:project.pkl\"\n\n")
+                .append("name = ").append(quote(getProjectName().get())).append("\n\n")
+                .append("dependencies {\n")
+                .append("  maven {\n");
+        appendListing(manifest, "packages", packages);
+        appendListing(manifest, "testPackages", testPackages);
+        manifest.append("  }\n}\n");
+
+        var out = getManifestFile().get().getAsFile().toPath();
+        Files.createDirectories(out.getParent());
+        Files.writeString(out, manifest.toString(), StandardCharsets.UTF_8);
+        getLogger().info("Generated Elide manifest with {} package(s) and {} test package(s) at '{}'",
+                packages.size(),
+                testPackages.size(),
+                out);
+        var unversioned = new TreeSet<>(getUnversionedPackages().get());
+        if (!unversioned.isEmpty()) {
+            getLogger().warn("Left {} dependencies without a declared version out of the Elide manifest, since "
+                    + "versions from platforms and BOMs aren't resolved; declare their versions to install them with "
+                    + "Elide:\n  {}",
+                    unversioned.size(),
+                    String.join("\n  ", unversioned));
+        }
+    }
+
+    private static void appendListing(StringBuilder manifest, String name, Collection<String> coordinates) {
+        manifest.append("    ").append(name).append(" {\n");
+        for (var coordinate : coordinates) {
+            manifest.append("      ").append(quote(coordinate)).append("\n");
+        }
+        manifest.append("    }\n");
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
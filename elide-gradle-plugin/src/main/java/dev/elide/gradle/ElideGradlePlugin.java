@@ -1,19 +1,36 @@
 package dev.elide.gradle;
 
+import org.gradle.api.Action;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
 import org.gradle.api.Task;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.ConfigurationContainer;
+import org.gradle.api.artifacts.ExternalModuleDependency;
+import org.gradle.api.artifacts.ProjectDependency;
+import org.gradle.api.artifacts.repositories.MavenArtifactRepository;
+import org.gradle.api.artifacts.type.ArtifactTypeDefinition;
+import org.gradle.api.file.RegularFile;
+import org.gradle.api.plugins.BasePlugin;
+import org.gradle.api.plugins.JavaPlugin;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.SourceSetContainer;
+import org.gradle.api.tasks.TaskProvider;
 import org.gradle.api.tasks.compile.JavaCompile;
+import org.gradle.api.tasks.javadoc.Javadoc;
+import org.gradle.build.event.BuildEventsListenerRegistry;
+import org.gradle.jvm.toolchain.JavaCompiler;
 
 import javax.inject.Inject;
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.URI;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -21,6 +38,44 @@ public class ElideGradlePlugin implements Plugin<Project> {
     // Plugin ID for Gradle's built-in Java support.
     private static final String javaPluginId = "java";
 
+    // Plugin ID for the Kotlin JVM plugin, and its compile task type; the Kotlin plugin isn't a dependency of this one.
+    private static final String kotlinJvmPluginId = "org.jetbrains.kotlin.jvm";
+    private static final String kotlinCompileClass = "org.jetbrains.kotlin.gradle.tasks.KotlinCompile";
+
+    // Configurations whose declared dependencies are written to a generated manifest, as `packages`.
+    private static final List<String> mainConfigurations = List.of(
+            "api",
+            "implementation",
+            "compileOnly",
+            "compileOnlyApi",
+            "runtimeOnly");
+
+    // Configurations whose declared dependencies are written to a generated manifest, as `testPackages`.
+    private static final List<String> testConfigurations = List.of(
+            "testImplementation",
+            "testCompileOnly",
+            "testRuntimeOnly");
+
+    // Prefix of the configurations holding the artifacts installed by Elide for each classpath, when resolving from the
+    // lockfile.
+    private static final String lockedConfigurationName = "elideLocked";
+
+    // Tasks which never install, so that builds which only request them don't start a background install.
+    private static final Set<String> nonInstallingTasks = Set.of(
+            "help",
+            "tasks",
+            "projects",
+            "properties",
+            "dependencies",
+            "dependencyInsight",
+            "buildEnvironment",
+            "javaToolchains",
+            "outgoingVariants",
+            "resolvableConfigurations",
+            "clean",
+            "wrapper",
+            "init");
+
     // Binary name for Elide.
     private static final String elideBinName = "elide";
 
@@ -30,13 +85,24 @@ public class ElideGradlePlugin implements Plugin<Project> {
     // Project where the plugin is installed.
     private final Project activeProject;
 
+    // Registry for listeners to Gradle's task events; telemetry for compiles is taken from their finish events.
+    private final BuildEventsListenerRegistry buildEvents;
+
     @Inject
-    public ElideGradlePlugin(Project project) {
+    public ElideGradlePlugin(Project project, BuildEventsListenerRegistry buildEvents) {
         this.activeProject = project;
+        this.buildEvents = buildEvents;
     }
 
     // Configure a Java compile task to use Elide instead of the standard compiler API.
-    private Task configureJavaCompileToUseElide(Path elide, Project project, JavaCompile task, ElideExtension ext) {
+    private Task configureJavaCompileToUseElide(
+            Path elide,
+            Provider<String> elideIdentity,
+            Project project,
+            JavaCompile task,
+            ElideExtension ext,
+            Provider<ElideProcessLimiter> limiter,
+            Provider<ElideTelemetryService> telemetry) {
         project.getLogger().info(
                 "Installing Elide's javac support for task '{}' within project '{}'",
                 task.getName(),
@@ -44,21 +110,36 @@ public class ElideGradlePlugin implements Plugin<Project> {
 
         Path javaHome = Paths.get(System.getProperty("java.home"));
         Path resolvedElide = null;
+
+        // the binary and heap limit are baked into the shim, which is named for the hash of its content; a different
+        // binary (i.e. a newly pinned version) or limit gets a shim of its own, so an existing shim never runs anything
+        // other than what the `elideCompiler` input claims, and builds with different settings can share a Java Home.
+        var maxHeap = maxHeap(project, ext).getOrNull();
+        var heapArgs = ElideProcessLimiter.heapArgs(maxHeap);
         if (ext.enableShim()) {
+            var script = javacShim(elide, heapArgs);
             var javaHomeShim = javaHome
                     .resolve("bin")
-                    .resolve("elide-javac");
+                    .resolve("elide-javac-" + ElideDigests.sha256(script).substring(0, 16));
 
             if (!Files.exists(javaHomeShim)) {
                 if (Files.isWritable(javaHomeShim.getParent())) {
-                    // we can create the shim; if we are configured to do, we should do so now.
-                    try(var writer = Files.newBufferedWriter(javaHomeShim)) {
-                        // write the shim to the file
-                        writer.write("#!/bin/sh\n");
-                        writer.write("exec " + resolvePathToElide().toAbsolutePath() + " javac -- \"$@\"\n");
+                    // we can create the shim; it's staged and moved into place, so that concurrent builds never run a
+                    // partially-written shim.
+                    try {
+                        var tmp = Files.createTempFile(javaHomeShim.getParent(), ".elide-javac-", ".tmp");
+                        Files.writeString(tmp, script, StandardCharsets.UTF_8);
+                        if (!tmp.toFile().setExecutable(true)) {
+                            Files.deleteIfExists(tmp);
+                            throw new IOException("Failed to make '" + tmp + "' executable");
+                        }
+                        Files.move(tmp, javaHomeShim,
+                                StandardCopyOption.ATOMIC_MOVE,
+                                StandardCopyOption.REPLACE_EXISTING);
                     } catch (IOException e) {
                         throw new RuntimeException("Failed to write Elide javac shim", e);
                     }
+                    resolvedElide = javaHomeShim;
                 } else {
                     // we can't write the shim, and it's not there, and we need it, so we should warn and fall back.
                     project.getLogger().warn("Elide's javac shim was not found at '{}'; falling back to stock javac.",
@@ -96,7 +177,10 @@ public class ElideGradlePlugin implements Plugin<Project> {
         var options = task.getOptions();
         var forkOptions = options.getForkOptions();
         options.setFork(true);
-        forkOptions.setExecutable(pathAsString);
+
+        // the launcher's path is machine-specific, so it is only set once the task runs; the compiler is tracked by its
+        // version and content hash instead, so that checkouts in different places share build cache entries.
+        task.getInputs().property("elideCompiler", elideIdentity);
 
         // if the shim is not enabled, we need to pass the `javac` flag and the separator (`--`) so that the binary can
         // resolve the arguments correctly.
@@ -106,211 +190,913 @@ public class ElideGradlePlugin implements Plugin<Project> {
             if (allArgs == null) {
                 allArgs = Collections.emptyList();
             }
-            var prefixed = new ArrayList<String>(allArgs.size() + 2);
+            var prefixed = new ArrayList<String>(allArgs.size() + heapArgs.size() + 2);
+            prefixed.addAll(heapArgs);
             prefixed.add("javac");
             prefixed.add("--");
             prefixed.addAll(allArgs);
             forkOptions.setJvmArgs(prefixed);
         }
+
+        // in sharded mode, the task's own action is replaced by one which splits the source set by package and compiles
+        // the parts in parallel Elide processes, which record their own telemetry; other actions on the task are kept.
+        var sharded = new ElideShardedJavac(elide.toString(), limiter, telemetry);
+        if (enableShardedCompile(project, ext) && ElideTaskActions.replaceTaskAction(task, sharded)) {
+            return task;
+        }
+        task.doFirst(new ElideCompileTelemetry("javac", telemetry));
+        task.doFirst(new ElideJavacLauncher(pathAsString, limiter));
         return task;
     }
 
-    // Install integration with Gradle's Java plugin; this prefers Elide's Java Compiler support.
-    private Collection<Task> installJavacSupport(Path path, Project project) {
+    // Content of the `javac` shim for a binary and heap limit.
+    static String javacShim(Path elide, List<String> heapArgs) {
+        return "#!/bin/sh\n"
+                + "exec " + elide.toAbsolutePath() + " "
+                + String.join(" ", heapArgs) + (heapArgs.isEmpty() ? "" : " ")
+                + "javac -- \"$@\"\n";
+    }
+
+    // Install integration with Gradle's Java plugin; this prefers Elide's Java Compiler support. Compile tasks are
+    // configured lazily, as they are realized, and only depend on `elide install` while it is active.
+    private void installJavacSupport(
+            Provider<Path> elide,
+            Provider<String> elideIdentity,
+            Project project,
+            Provider<Boolean> javacSupportActive,
+            Provider<Boolean> installActive,
+            TaskProvider<ElideInstallTask> installTask) {
         var elideExtension = project.getExtensions().getByType(ElideExtension.class);
-        var compileTasks = project.getTasks().withType(JavaCompile.class);
-        project.getLogger().info(
-                "Installing Elide's javac support for {} Gradle tasks (path: '{}')",
-                compileTasks.size(),
-                path.toString());
+        var limiter = processLimiter(project, elideExtension);
+        var telemetry = telemetry(project);
+        var objects = project.getObjects();
+        project.getTasks().withType(JavaCompile.class).configureEach(compileTask -> {
+            compileTask.dependsOn(installActive.map(active -> active ? List.of(installTask) : List.of()));
+            if (javacSupportActive.get()) {
+                compileTask.usesService(limiter);
+                compileTask.usesService(telemetry);
+                configureJavaCompileToUseElide(
+                        elide.get(),
+                        elideIdentity,
+                        project,
+                        compileTask,
+                        elideExtension,
+                        limiter,
+                        telemetry);
+                if (enableAbiSnapshots(project, elideExtension)) {
+                    var abiSnapshots = abiSnapshots(project, elideExtension);
+                    compileTask.usesService(abiSnapshots);
+                    compileTask.doFirst(new ElideAbiClasspath(abiSnapshots, objects.fileCollection()));
+                }
+            }
+        });
+    }
+
+    // Install integration with Gradle's `Javadoc` tasks; while Javadoc support is active, each task's own action is
+    // replaced by one which generates the same documentation with Elide's `javadoc`. Other actions on the task are kept.
+    private void installJavadocSupport(
+            Provider<Path> elide,
+            Provider<String> elideIdentity,
+            Project project,
+            Provider<Boolean> javadocSupportActive) {
+        var limiter = processLimiter(project, project.getExtensions().getByType(ElideExtension.class));
+        var telemetry = telemetry(project);
+        var projectDir = project.getLayout().getProjectDirectory().getAsFile();
+        project.getTasks().withType(Javadoc.class).configureEach(task -> {
+            if (!javadocSupportActive.get()) {
+                return;
+            }
+            project.getLogger().info("Installing Elide's javadoc support for task '{}'", task.getPath());
+            task.usesService(limiter);
+            task.usesService(telemetry);
+
+            // Elide's `javadoc` doesn't write byte-for-byte what the toolchain's would, so its output is keyed on the
+            // binary's version and content hash, as compiles are.
+            task.getInputs().property("elideJavadoc", elideIdentity);
+            ElideTaskActions.replaceTaskAction(
+                    task,
+                    new ElideJavadoc(elide.map(Path::toString), projectDir, limiter, telemetry));
+        });
+    }
 
-        return compileTasks.stream()
-            .map(compileTask -> configureJavaCompileToUseElide(path, project, compileTask, elideExtension))
-            .collect(Collectors.toList());
+    // Install integration with the Kotlin JVM plugin: Kotlin compile tasks run after `elide install` while it is
+    // active, as Java compile tasks do, since they compile against the same installed dependencies. Kotlin sources are
+    // still compiled by the Kotlin daemon: the Kotlin plugin can only run another compiler out of process, which gives up
+    // its incremental compilation, so Elide's `kotlinc` isn't wired in yet.
+    private void installKotlinSupport(
+            Project project,
+            Provider<Boolean> installActive,
+            TaskProvider<ElideInstallTask> installTask) {
+        Class<? extends Task> kotlinCompileType;
+        try {
+            kotlinCompileType = project.getPlugins().getPlugin(kotlinJvmPluginId).getClass().getClassLoader()
+                    .loadClass(kotlinCompileClass)
+                    .asSubclass(Task.class);
+        } catch (ClassNotFoundException cnfe) {
+            project.getLogger().info("Elide can't order Kotlin compiles for this Kotlin plugin: {}", cnfe.getMessage());
+            return;
+        }
+        project.getTasks().withType(kotlinCompileType).configureEach(compileTask ->
+                compileTask.dependsOn(installActive.map(active -> active ? List.of(installTask) : List.of())));
     }
 
-    // Install integration with Gradle's Maven root support.
-    private Collection<Task> installMavenDepsSupport(Project project, ElideExtension ext, boolean generateManifest) {
-        var repos = project.getRepositories();
-        var localDepsPath = ext.resolveLocalDepsPath();
-        repos.mavenLocal(it -> {
-            it.setName("elide");
-            it.setUrl(URI.create("file://" + localDepsPath.toAbsolutePath()));
+    // Install `elideTest`, which runs the `test` source set on Elide. It runs after the stock `test` task when both are
+    // requested, so that the two can be timed side by side without competing for cores.
+    private void installTestSupport(
+            Project project,
+            Provider<Path> elide,
+            Provider<String> elideVersion,
+            Provider<String> elideIdentity,
+            Provider<Boolean> installActive,
+            TaskProvider<ElideInstallTask> installTask) {
+        var buildDir = project.getLayout().getBuildDirectory();
+        var limiter = processLimiter(project, project.getExtensions().getByType(ElideExtension.class));
+        var telemetry = telemetry(project);
+        var testSourceSet = project.getExtensions()
+                .getByType(SourceSetContainer.class)
+                .named(SourceSet.TEST_SOURCE_SET_NAME);
+        project.getTasks().register(ElideTaskName.ELIDE_TEST, ElideTestTask.class, task -> {
+            task.getTestClassesDirs().from(testSourceSet.map(it -> it.getOutput().getClassesDirs()));
+            task.getClasspath().from(testSourceSet.map(SourceSet::getRuntimeClasspath));
+            task.getElideVersion().set(elideVersion);
+            task.getElideIdentity().set(elideIdentity);
+            task.getElideBin().fileProvider(elide.map(Path::toFile));
+            task.getProcessLimiter().set(limiter);
+            task.usesService(limiter);
+            task.getTelemetry().set(telemetry);
+            task.usesService(telemetry);
+            task.getResultsDirectory().set(buildDir.dir("test-results/" + ElideTaskName.ELIDE_TEST));
+            task.getReportFile().set(buildDir.file("reports/elide/test/" + ElideTaskName.ELIDE_TEST + ".json"));
+            task.dependsOn(installActive.map(active -> active ? List.of(installTask) : List.of()));
+            task.mustRunAfter(JavaPlugin.TEST_TASK_NAME);
         });
-        return Collections.emptyList();
-    }
-
-    // Resolve the path to use when invoking the Elide binary.
-    private Path resolvePathToElide() {
-        var path = System.getenv("PATH");
-        var pathSplit = path.split(File.pathSeparator);
-        var elideViaPath = Arrays.stream(pathSplit)
-                .map(Paths::get)
-                .map(p -> p.resolve(elideBinName))
-                .filter(Files::exists)
-                .filter(Files::isExecutable)
+    }
+
+    // Install `elideBuild`, which hands compilation, resources, and packaging of the main source set to one `elide
+    // build`, for leaf modules which are fully described by their manifest. Gradle's own tasks for those steps are
+    // disabled, and the classes and jar built by Elide take their place in the main source set's output and in the
+    // module's outgoing variants, so that tests and consumers see them as usual. Modules which depend on other projects
+    // are left to Gradle, since their classpath isn't described by their manifest alone.
+    private void installEmbeddedBuild(
+            Project project,
+            ElideExtension ext,
+            Provider<Path> elide,
+            Provider<String> elideIdentity,
+            Provider<Boolean> installActive,
+            TaskProvider<ElideInstallTask> installTask) {
+        var manifest = ext.getManifest().get().getAsFile();
+        if (!enableEmbeddedBuild(project, ext).get() || !manifest.exists()) {
+            return;
+        }
+        var projectDependency = project.getConfigurations().stream()
+                .flatMap(configuration -> configuration.getDependencies().stream())
+                .filter(ProjectDependency.class::isInstance)
                 .findFirst();
+        if (projectDependency.isPresent()) {
+            project.getLogger().info("Not building '{}' with `elide build`: it depends on project '{}'",
+                    project.getPath(),
+                    projectDependency.get().getName());
+            return;
+        }
 
-        // prefer elide on the user's path
-        if (elideViaPath.isPresent()) {
-            return elideViaPath.get().toAbsolutePath();
+        var projectDir = project.getLayout().getProjectDirectory();
+        var lockfile = project.getProviders().provider(() -> ifExists(projectDir.file(".dev/elide.lock.bin")));
+        var limiter = processLimiter(project, ext);
+        var telemetry = telemetry(project);
+        var tasks = project.getTasks();
+        var buildTask = tasks.register(ElideTaskName.ELIDE_BUILD, ElideBuildTask.class, task -> {
+            task.getManifest().set(manifest);
+            task.getLockfile().set(lockfile);
+            task.getSources().from(project.fileTree(projectDir, tree ->
+                    tree.include(ElideBuildTask.sourceGlobs(manifest))));
+            task.getElideIdentity().set(elideIdentity);
+            task.getElideBin().fileProvider(elide.map(Path::toFile));
+            task.getWorkingDirectory().set(projectDir);
+            task.getOutputDirectory().set(projectDir.dir(".dev/artifacts"));
+            task.getProcessLimiter().set(limiter);
+            task.usesService(limiter);
+            task.getTelemetry().set(telemetry);
+            task.usesService(telemetry);
+            task.dependsOn(installActive.map(active -> active ? List.of(installTask) : List.of()));
+        });
+        var classesDir = buildTask.flatMap(ElideBuildTask::getClassesDirectory);
+        var jarFile = buildTask.flatMap(ElideBuildTask::getJarFile);
+
+        project.getLogger().info("Building '{}' with `elide build`", project.getPath());
+        var main = project.getExtensions().getByType(SourceSetContainer.class).getByName(SourceSet.MAIN_SOURCE_SET_NAME);
+        for (var name : List.of(
+                main.getCompileJavaTaskName(),
+                main.getProcessResourcesTaskName(),
+                main.getJarTaskName())) {
+            tasks.named(name).configure(task -> task.setEnabled(false));
         }
+        main.getOutput().dir(Map.of("builtBy", buildTask), classesDir);
+        tasks.named(main.getClassesTaskName()).configure(task -> task.dependsOn(buildTask));
+        tasks.named(BasePlugin.ASSEMBLE_TASK_NAME).configure(task -> task.dependsOn(buildTask));
 
-        // try the user's home?
-        var elideWithinHome = Paths.get(System.getProperty("user.home"))
-                .resolve("elide")
-                .resolve(elideBinName);
-        if (Files.exists(elideWithinHome) && Files.isExecutable(elideWithinHome)) {
-            return elideWithinHome.toAbsolutePath();
+        // the jar is the primary artifact of both variants; Elide's classes directory holds resources as well, so it
+        // stands in for the `classes` variant, and the `resources` variant is left empty.
+        for (var name : List.of(
+                main.getApiElementsConfigurationName(),
+                main.getRuntimeElementsConfigurationName())) {
+            var outgoing = project.getConfigurations().getByName(name).getOutgoing();
+            outgoing.getArtifacts().clear();
+            outgoing.artifact(jarFile, artifact -> artifact.builtBy(buildTask));
+            outgoing.getVariants().configureEach(variant -> {
+                variant.getArtifacts().clear();
+                if (variant.getName().equals("classes")) {
+                    variant.artifact(classesDir, artifact -> {
+                        artifact.setType(ArtifactTypeDefinition.JVM_CLASS_DIRECTORY);
+                        artifact.builtBy(buildTask);
+                    });
+                }
+            });
         }
-        throw new RuntimeException("Failed to find `elide` on your PATH; is it installed?");
+    }
+
+    // Install race-and-report support; each selected compile task is followed by a race between Elide and the JDK's
+    // `javac`, and all results are aggregated into a report under `build/reports/elide/race`.
+    private void installRaceSupport(
+            Project project,
+            Provider<Path> elide,
+            Provider<String> elideVersion,
+            Provider<String> elideIdentity,
+            TaskProvider<ElideInstallTask> installTask,
+            Set<String> selected) {
+        var layout = project.getLayout();
+        var limiter = processLimiter(project, project.getExtensions().getByType(ElideExtension.class));
+        var telemetry = telemetry(project);
+        var reportsDir = layout.getBuildDirectory().dir("reports/elide/race");
+        var reportTask = project.getTasks().register(ElideTaskName.ELIDE_RACE_REPORT, ElideRaceReportTask.class, task -> {
+            task.getJsonReport().set(reportsDir.map(dir -> dir.file("index.json")));
+            task.getHtmlReport().set(reportsDir.map(dir -> dir.file("index.html")));
+        });
+
+        project.getExtensions().getByType(SourceSetContainer.class).all(sourceSet -> {
+            var compileTaskName = sourceSet.getCompileJavaTaskName();
+            if (!selected.isEmpty() && !selected.contains(compileTaskName)) {
+                return;
+            }
+            var compileTask = project.getTasks().named(compileTaskName, JavaCompile.class);
+            var raceTaskName = ElideTaskName.ELIDE_RACE
+                    + Character.toUpperCase(compileTaskName.charAt(0))
+                    + compileTaskName.substring(1);
 
-        // otherwise, we should resolve from the root project's layout. the plugin will download elide and install it
-        // in `<rootProject>/build/elide-runtime`.
-        //
-        // var elideBuildRoot = activeProject.getRootProject().getLayout().getBuildDirectory().dir("elide-runtime");
-        // return elideBuildRoot.get().dir("bin").file(elideBinName).getAsFile().toPath();
+            var raceTask = project.getTasks().register(raceTaskName, ElideCompilerRaceTask.class, task -> {
+                task.getSource().from(compileTask.map(JavaCompile::getSource));
+                task.getClasspath().from(compileTask.map(JavaCompile::getClasspath));
+                task.getAnnotationProcessorPath().from(compileTask.map(it ->
+                        it.getOptions().getAnnotationProcessorPath() != null
+                                ? it.getOptions().getAnnotationProcessorPath()
+                                : List.of()));
+                task.getCompilerArgs().set(compileTask.map(ElideGradlePlugin::compilerArgs));
+                task.getCompileTaskPath().set(compileTask.map(Task::getPath));
+                task.getElideVersion().set(elideVersion);
+                task.getElideIdentity().set(elideIdentity);
+                task.getElideBin().fileProvider(elide.map(Path::toFile));
+                task.getProcessLimiter().set(limiter);
+                task.usesService(limiter);
+                task.getTelemetry().set(telemetry);
+                task.usesService(telemetry);
+                task.getJavacExecutable().set(compileTask
+                        .flatMap(JavaCompile::getJavaCompiler)
+                        .map(JavaCompiler::getExecutablePath));
+                task.getWorkDirectory().set(layout.getBuildDirectory().dir("elide/race/" + compileTaskName));
+                task.getReportFile().set(reportsDir.map(dir -> dir.file(compileTaskName + ".json")));
+                task.dependsOn(installTask);
+                task.finalizedBy(reportTask);
+            });
+            reportTask.configure(task -> task.getReports().from(raceTask.flatMap(ElideCompilerRaceTask::getReportFile)));
+            compileTask.configure(task -> task.finalizedBy(raceTask));
+        });
     }
 
-    // Determine whether Elide's Maven installer integration is enabled.
-    private boolean enableMavenInstaller(Project project, ElideExtension ext) {
-        var disableInstallerProp = project.findProperty("elide.builder.maven.install.enable");
-        if (disableInstallerProp != null) {
-            return Boolean.parseBoolean(disableInstallerProp.toString());
+    // Compiler arguments for a direct `javac` invocation (release, encoding, debug and warning options, and user
+    // arguments, including those from argument providers), derived from a compile task; used by races, so that both
+    // compilers see the same configuration, and by sharded compiles. Paths are left to the caller.
+    static List<String> compilerArgs(JavaCompile compile) {
+        var args = new ArrayList<String>();
+        var options = compile.getOptions();
+        if (options.getRelease().isPresent()) {
+            args.add("--release");
+            args.add(options.getRelease().get().toString());
+        } else {
+            if (compile.getSourceCompatibility() != null) {
+                args.add("-source");
+                args.add(compile.getSourceCompatibility());
+            }
+            if (compile.getTargetCompatibility() != null) {
+                args.add("-target");
+                args.add(compile.getTargetCompatibility());
+            }
+        }
+        if (options.getEncoding() != null) {
+            args.add("-encoding");
+            args.add(options.getEncoding());
+        }
+        var debugLevel = options.getDebugOptions().getDebugLevel();
+        if (!options.isDebug()) {
+            args.add("-g:none");
+        } else if (debugLevel != null && !debugLevel.isBlank()) {
+            args.add("-g:" + debugLevel.trim());
+        } else {
+            args.add("-g");
         }
-        return ext.getEnableInstall().get() && ext.getEnableMavenIntegration().get();
+        if (!options.isWarnings()) {
+            args.add("-nowarn");
+        }
+        if (options.isDeprecation()) {
+            args.add("-deprecation");
+        }
+        if (options.getSourcepath() != null && !options.getSourcepath().isEmpty()) {
+            args.add("-sourcepath");
+            args.add(options.getSourcepath().getAsPath());
+        }
+        if (options.getJavaModuleVersion().isPresent()) {
+            args.add("--module-version");
+            args.add(options.getJavaModuleVersion().get());
+        }
+        // arguments from `compilerArgumentProviders` are included here, after `compilerArgs`.
+        args.addAll(options.getAllCompilerArgs());
+        return args;
     }
 
-    // Detect any extant or configured project manifest file. If one is present, `elide install` is run unconditionally.
-    private boolean detectProjectManifest(Project project, ElideExtension ext) {
-        return (
-          (ext.getManifest().isPresent() && ext.getManifest().getAsFile().get().exists()) ||
-          project.getLayout().getProjectDirectory().file("elide.pkl").getAsFile().exists()
-        );
+    // Install integration with Gradle's Maven root support. The root is resolved lazily from the build's install task,
+    // so that it follows wherever the (possibly merged) install is performed.
+    private void installMavenDepsSupport(
+            Project project,
+            Provider<Boolean> lockedResolution,
+            TaskProvider<ElideInstallTask> installTask) {
+        var repos = project.getRepositories();
+        var localDepsDir = installTask.flatMap(ElideInstallTask::getDependenciesRoot);
+        var repo = repos.mavenLocal(it -> {
+            it.setName("elide");
+            it.setUrl(localDepsDir);
+        });
+
+        // with locked resolution, the installed graph is already complete, so POMs from the Maven root aren't read at
+        // all; Gradle only checks that each declared artifact is present.
+        project.afterEvaluate(_ -> {
+            if (lockedResolution.get()) {
+                repo.metadataSources(MavenArtifactRepository.MetadataSources::artifact);
+            }
+        });
     }
 
-    // Determine whether Elide's javac shim is enabled.
-    private boolean enableJavacShim(Project project, ElideExtension ext) {
-        var disableShimProp = project.findProperty("elide.builder.javac.enable");
-        if (disableShimProp != null) {
-            return Boolean.parseBoolean(disableShimProp.toString());
+    // Install locked resolution: each source set's classpaths get the artifacts which the last `elide install` resolved
+    // for their own declared dependencies, as file dependencies built by the install, in place of the transitive graph
+    // Gradle would otherwise walk from POMs. Each classpath has its own locked configuration (i.e.
+    // `elideLockedCompileClasspath`), so that modules, and main and test code, only see what they declare. Resolution
+    // fails if the lockfile has changed since that install.
+    private void installLockedResolution(
+            Project project,
+            Provider<Boolean> lockedResolution,
+            TaskProvider<ElideInstallTask> installTask) {
+        var configurations = project.getConfigurations();
+        var dependencies = project.getDependencies();
+        var resolvedIndex = installTask.flatMap(ElideInstallTask::getResolvedIndex);
+        project.getExtensions().getByType(SourceSetContainer.class).configureEach(sourceSet -> {
+            for (var classpath : List.of(
+                    sourceSet.getCompileClasspathConfigurationName(),
+                    sourceSet.getRuntimeClasspathConfigurationName())) {
+                var runtime = classpath.equals(sourceSet.getRuntimeClasspathConfigurationName());
+                var lockedName = lockedConfigurationName
+                        + Character.toUpperCase(classpath.charAt(0))
+                        + classpath.substring(1);
+                var locked = configurations.create(lockedName, it -> {
+                    it.setCanBeConsumed(false);
+                    it.setCanBeResolved(false);
+                    it.setDescription("Artifacts installed by Elide for '" + classpath
+                            + "', used in place of transitive resolution.");
+                    it.withDependencies(deps -> {
+                        if (!lockedResolution.get()) {
+                            return;
+                        }
+                        var roots = lockedRoots(configurations.getByName(classpath), lockedName);
+                        deps.add(dependencies.create(project.files(resolvedIndex.map(index ->
+                                ElideLockedResolution.lockedArtifacts(index.getAsFile(), roots, runtime)))
+                                .builtBy(installTask)));
+                    });
+                });
+                configurations.named(classpath).configure(it -> it.extendsFrom(locked));
+            }
+        });
+    }
+
+    // Modules (`group:module`) declared on a classpath configuration, or on anything it extends, other than its locked
+    // configuration.
+    private static Set<String> lockedRoots(Configuration classpath, String lockedName) {
+        var roots = new TreeSet<String>();
+        for (var configuration : classpath.getHierarchy()) {
+            if (configuration.getName().equals(lockedName)) {
+                continue;
+            }
+            for (var dependency : configuration.getDependencies()) {
+                if (dependency instanceof ExternalModuleDependency module) {
+                    roots.add(module.getGroup() + ":" + module.getName());
+                }
+            }
         }
-        return ext.getEnableJavaCompiler().get();
-    }
-
-    // Call Elide in a subprocess at the provided path, and with the provided args; capture output and return it as a
-    // string to the caller.
-    private String callElideCaptured(Path path, String[] args) {
-        var allArgs = new String[args.length + 1];
-        allArgs[0] = path.toAbsolutePath().toString();
-        var i = 1;
-        for (var arg : args) {
-            allArgs[i] = arg;
-            i += 1;
+        return roots;
+    }
+
+    // Register (or obtain) the build-wide install task, which lives on the root project. A single manifest in the root
+    // project is installed in place, as before; otherwise, all manifests are merged and installed together under the
+    // dev root, so that multi-project builds resolve once, and never write to the shared Maven root concurrently.
+    // The task is configured from the first project to apply the plugin (the root project, if it applies it).
+    private TaskProvider<ElideInstallTask> installCoordinator(
+            Project project,
+            ElideExtension ext,
+            Provider<Path> elide,
+            Provider<String> elideIdentity) {
+        var root = project.getRootProject();
+        var rootTasks = root.getTasks();
+        if (rootTasks.getNames().contains(ElideTaskName.ELIDE_TASK_INSTALL)) {
+            return rootTasks.named(ElideTaskName.ELIDE_TASK_INSTALL, ElideInstallTask.class);
         }
+        var providers = project.getProviders();
+        var rootName = root.getName();
+        var rootDir = root.getLayout().getProjectDirectory();
+        var lockfile = ext.lockfile();
+        var localDepsDir = ext.resolveLocalDepsDir();
+        var mergedRoot = ext.getDevRoot().dir("install");
+        var installLock = ext.getDevRoot().file("install.lock");
+        var gradleUserHome = project.getGradle().getGradleUserHomeDir();
+        var artifactStore = new File(gradleUserHome, "caches/elide/artifacts");
+        var linkDependencies = providers.gradleProperty("elide.builder.maven.install.link")
+                .map(Boolean::parseBoolean)
+                .orElse(ext.getLinkDependencies());
+        var backgroundInstall = installSupervisor(project);
+        var limiter = processLimiter(project, ext);
+        var telemetry = telemetry(project);
+        return rootTasks.register(ElideTaskName.ELIDE_TASK_INSTALL, ElideInstallTask.class, task -> {
+            var inPlace = task.getManifests().getElements().map(files -> files.size() == 1
+                    && rootDir.getAsFile().equals(files.iterator().next().getAsFile().getParentFile()));
+            task.getElideBin().fileProvider(elide.map(Path::toFile));
+            task.getElideIdentity().set(elideIdentity);
+            task.getProjectName().set(rootName);
+            task.getWorkingDirectory().set(inPlace.flatMap(single -> single
+                    ? providers.provider(() -> rootDir)
+                    : mergedRoot));
+            task.getMergedManifest().set(inPlace.flatMap(single -> single
+                    ? providers.<RegularFile>provider(() -> null)
+                    : mergedRoot.map(dir -> dir.file("elide.pkl"))));
+            task.getLockfile().set(inPlace.flatMap(single -> single
+                    ? lockfile
+                    : mergedRoot.map(dir -> dir.file(".dev/elide.lock.bin"))));
+            task.getDependenciesRoot().set(inPlace.flatMap(single -> single
+                    ? localDepsDir
+                    : mergedRoot.map(dir -> dir.dir(".dev/dependencies/m2"))));
+            task.getResolvedIndex().fileProvider(task.getDependenciesRoot().getLocationOnly()
+                    .map(m2 -> new File(m2.getAsFile().getParentFile(), ElideLockedResolution.INDEX_FILE_NAME)));
+            task.getInstallLock().set(installLock);
+            task.getBackgroundInstall().set(backgroundInstall);
+            task.usesService(backgroundInstall);
+            task.getProcessLimiter().set(limiter);
+            task.usesService(limiter);
+            task.getTelemetry().set(telemetry);
+            task.usesService(telemetry);
+            task.getArtifactStore().fileProvider(linkDependencies.map(link -> link ? artifactStore : null));
+            task.getGradleArtifactCache().fileValue(new File(gradleUserHome, "caches/modules-2/files-2.1"));
+            task.onlyIf("Elide has manifests to install", it -> !((ElideInstallTask) it).getManifests().isEmpty());
+        });
+    }
 
-        var cwd = activeProject.getLayout().getProjectDirectory().getAsFile();
-        var subproc = new ProcessBuilder().command(allArgs).directory(cwd);
+    // Register (or obtain) the build-scoped limit on Elide processes. It is configured from the first project to apply
+    // the plugin, and adapts itself to the peak RSS observed in earlier builds once tasks run.
+    private static Provider<ElideProcessLimiter> processLimiter(Project project, ElideExtension ext) {
+        var providers = project.getProviders();
+        var rssRecord = new File(project.getGradle().getGradleUserHomeDir(), "caches/elide/rss.properties");
+        var maxHeap = maxHeap(project, ext);
+        var maxProcesses = providers.gradleProperty("elide.builder.processes.max")
+                .map(Integer::parseInt)
+                .orElse(ext.getMaxProcesses())
+                .orElse(Runtime.getRuntime().availableProcessors());
+        return project.getGradle().getSharedServices().registerIfAbsent(
+                ElideProcessLimiter.SERVICE_NAME,
+                ElideProcessLimiter.class,
+                spec -> {
+                    spec.getMaxParallelUsages().set(maxProcesses);
+                    spec.getParameters().getMaxProcesses().set(maxProcesses);
+                    spec.getParameters().getMaxHeap().set(maxHeap);
+                    spec.getParameters().getRssRecord().set(rssRecord);
+                });
+    }
+
+    // Determine the heap limit for each Elide process, if any (i.e. `2g`).
+    private static Provider<String> maxHeap(Project project, ElideExtension ext) {
+        return project.getProviders().gradleProperty("elide.builder.processes.heap").orElse(ext.getMaxHeap());
+    }
+
+    // Register (or obtain) the build-scoped collector of telemetry for Elide processes, which reports to the root
+    // project's `build/reports/elide/telemetry.json`.
+    private static Provider<ElideTelemetryService> telemetry(Project project) {
+        var reportFile = project.getRootProject().getLayout().getBuildDirectory().file("reports/elide/telemetry.json");
+        return project.getGradle().getSharedServices().registerIfAbsent(
+                ElideTelemetryService.SERVICE_NAME,
+                ElideTelemetryService.class,
+                spec -> spec.getParameters().getReportFile().set(reportFile));
+    }
+
+    // Publish per-tool telemetry totals as custom values on the build scan, where the root project publishes one (see
+    // `ElideBuildScanValues`).
+    private static void publishBuildScanValues(Project root, Provider<ElideTelemetryService> telemetry) {
+        var buildScan = root.getExtensions().findByName("buildScan");
+        if (buildScan == null) {
+            return;
+        }
         try {
-            var proc = subproc.start();
-            var builder = new StringBuilder();
+            buildScan.getClass().getMethod("buildFinished", Action.class)
+                    .invoke(buildScan, new ElideBuildScanValues(buildScan, telemetry));
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            root.getLogger().info("Elide telemetry can't be published to this build scan plugin: {}", e.toString());
+        }
+    }
 
-            try (BufferedReader br = new BufferedReader(new InputStreamReader(proc.getInputStream()))) {
-                String line;
-                while ((line = br.readLine()) != null) {
-                    builder.append(line).append(System.lineSeparator());
+    // Register (or obtain) the build-scoped store of dependency ABI snapshots, which lives under the dev root.
+    private static Provider<ElideAbiSnapshots> abiSnapshots(Project project, ElideExtension ext) {
+        var snapshotDir = ext.getDevRoot().dir("abi");
+        return project.getGradle().getSharedServices().registerIfAbsent(
+                ElideAbiSnapshots.SERVICE_NAME,
+                ElideAbiSnapshots.class,
+                spec -> spec.getParameters().getSnapshotDirectory().set(snapshotDir));
+    }
+
+    // Register (or obtain) the build-scoped supervisor for installs started during configuration.
+    private static Provider<ElideInstallService> installSupervisor(Project project) {
+        return project.getGradle().getSharedServices().registerIfAbsent(
+                ElideInstallService.SERVICE_NAME,
+                ElideInstallService.class,
+                _ -> {});
+    }
+
+    // Start `elide install` as soon as the root project is evaluated, so that resolution and downloads overlap with the
+    // rest of configuration and with task graph calculation. The install must be the one `elideInstall` will run, so
+    // it's only started where its inputs are already known: a build with no other projects, installing the root
+    // project's own manifest in place (not a generated one). Only cold installs (with no index from an earlier install)
+    // are started early, never for dry runs, and never when every requested task is one which can't install (i.e.
+    // `help` or `tasks`). Nor is it started when the configuration cache is requested, since configuration may not
+    // start processes there, and on a cache hit nothing is configured anyway; `elideInstall` installs as usual. The
+    // install holds a process permit like any other, and `elideInstall` reuses the result if its inputs haven't changed
+    // in the meantime.
+    private void installBackgroundInstall(
+            Project project,
+            ElideExtension ext,
+            Provider<Boolean> installActive,
+            Provider<Boolean> mustGenerateManifest,
+            Provider<Path> elide) {
+        var startParameter = project.getGradle().getStartParameter();
+        var enabled = project.getProviders().gradleProperty("elide.builder.maven.install.background")
+                .map(Boolean::parseBoolean)
+                .getOrElse(true);
+        if (!enabled
+                || startParameter.isDryRun()
+                || startParameter.isConfigurationCacheRequested()
+                || !project.getSubprojects().isEmpty()) {
+            return;
+        }
+        var requested = startParameter.getTaskNames().isEmpty()
+                ? project.getDefaultTasks()
+                : startParameter.getTaskNames();
+        if (requested.stream().allMatch(name -> nonInstallingTasks.contains(name.replaceFirst("^:", "")))) {
+            return;
+        }
+        project.afterEvaluate(_ -> {
+            var manifest = ext.getManifest().get().getAsFile();
+            var m2 = ext.resolveLocalDepsDir().get().getAsFile();
+            if (!installActive.get()
+                    || mustGenerateManifest.get()
+                    || !manifest.exists()
+                    || !project.getProjectDir().equals(manifest.getParentFile())
+                    || new File(m2.getParentFile(), ElideLockedResolution.INDEX_FILE_NAME).exists()) {
+                return;
+            }
+            installSupervisor(project).get().start(
+                    elide.get(),
+                    processLimiter(project, ext).get(),
+                    project.getProjectDir(),
+                    List.of(manifest),
+                    ext.lockfile().get().getAsFile(),
+                    ext.getDevRoot().file("install.lock").get().getAsFile(),
+                    telemetry(project).get());
+        });
+    }
+
+    // Register (or obtain) the build-wide manifest generation task, which lives on the root project, and contribute
+    // this project's declared dependencies to it.
+    private TaskProvider<ElideGenerateManifestTask> installManifestGeneration(Project project, ElideExtension ext) {
+        var root = project.getRootProject();
+        var rootTasks = root.getTasks();
+        TaskProvider<ElideGenerateManifestTask> generateTask;
+        if (rootTasks.getNames().contains(ElideTaskName.ELIDE_GENERATE_MANIFEST)) {
+            generateTask = rootTasks.named(ElideTaskName.ELIDE_GENERATE_MANIFEST, ElideGenerateManifestTask.class);
+        } else {
+            var rootName = root.getName();
+            var manifestFile = ext.resolveGeneratedRoot().map(dir -> dir.file("elide.pkl"));
+            generateTask = rootTasks.register(
+                    ElideTaskName.ELIDE_GENERATE_MANIFEST,
+                    ElideGenerateManifestTask.class,
+                    task -> {
+                        task.getProjectName().set(rootName);
+                        task.getManifestFile().set(manifestFile);
+                    });
+        }
+        var packages = declaredCoordinates(project, mainConfigurations);
+        var testPackages = declaredCoordinates(project, testConfigurations);
+        var unversioned = unversionedModules(project, mainConfigurations);
+        var unversionedTest = unversionedModules(project, testConfigurations);
+        generateTask.configure(task -> {
+            task.getPackages().addAll(packages);
+            task.getTestPackages().addAll(testPackages);
+            task.getUnversionedPackages().addAll(unversioned);
+            task.getUnversionedPackages().addAll(unversionedTest);
+        });
+        return generateTask;
+    }
+
+    // Maven coordinates declared on the named configurations of a project. Only external modules with an explicit
+    // version can be expressed in an Elide manifest; anything else (project dependencies, files, or versions managed
+    // by a platform) is left to Gradle.
+    private static Provider<List<String>> declaredCoordinates(Project project, List<String> configurationNames) {
+        var configurations = project.getConfigurations();
+        return project.getProviders().provider(() -> {
+            var coordinates = new TreeSet<String>();
+            for (var module : externalModules(configurations, configurationNames)) {
+                if (module.getVersion() != null && !module.getVersion().isEmpty()) {
+                    coordinates.add(module.getGroup() + ":" + module.getName() + ":" + module.getVersion());
                 }
             }
-            try (BufferedReader br = new BufferedReader(new InputStreamReader(proc.getErrorStream()))) {
-                String line;
-                while ((line = br.readLine()) != null) {
-                    builder.append(line).append(System.lineSeparator());
+            return List.copyOf(coordinates);
+        });
+    }
+
+    // Modules (`group:name`) declared on the named configurations of a project without a version, i.e. those whose
+    // version comes from a platform or BOM. The manifest is generated before Gradle resolves anything, so their
+    // versions aren't known, and they are reported instead of added.
+    private static Provider<List<String>> unversionedModules(Project project, List<String> configurationNames) {
+        var configurations = project.getConfigurations();
+        var path = project.getPath();
+        return project.getProviders().provider(() -> {
+            var modules = new TreeSet<String>();
+            for (var module : externalModules(configurations, configurationNames)) {
+                if (module.getVersion() == null || module.getVersion().isEmpty()) {
+                    modules.add(module.getGroup() + ":" + module.getName() + " (" + path + ")");
                 }
             }
-            var exit = proc.waitFor();
-            if (exit != 0) {
-                // print output
-                activeProject.getLogger().error("Elide process exited with code {}: {}", exit, builder);
-                throw new RuntimeException("Elide failed with exit code " + exit);
+            return List.copyOf(modules);
+        });
+    }
+
+    private static List<ExternalModuleDependency> externalModules(
+            ConfigurationContainer configurations,
+            List<String> configurationNames) {
+        var modules = new ArrayList<ExternalModuleDependency>();
+        for (var name : configurationNames) {
+            var configuration = configurations.findByName(name);
+            if (configuration == null) {
+                continue;
+            }
+            for (var dependency : configuration.getDependencies()) {
+                if (dependency instanceof ExternalModuleDependency module) {
+                    modules.add(module);
+                }
             }
-            return builder.toString().trim();
-        } catch (InterruptedException ixr) {
-            throw new RuntimeException("Failed to wait for Elide process", ixr);
-        } catch (IOException ioe) {
-            throw new RuntimeException("Failed to start Elide captured process", ioe);
         }
+        return modules;
     }
 
-    @SuppressWarnings({"deprecation", "UnstableApiUsage"})
-    public void apply(Project project) {
-        var elideResolved = resolvePathToElide();
-        project.getLogger().debug("Elide resolved to '{}'", elideResolved);
-        if (!project.getGradle().getStartParameter().isConfigurationCacheRequested()) {
-            var versionPrinted = callElideCaptured(elideResolved, new String[]{"--version"});
-            var version = versionPrinted.replace("\n", "");
-            project.getLogger().lifecycle("Using Elide " + version);
+    // Register (or obtain) the build-scoped toolchain service, which resolves the Elide binary once per build.
+    private ElideToolchainService resolveToolchain(Project project) {
+        var providers = project.getProviders();
+        var cacheDir = toolchainCacheDirectory(project);
+        var distsDir = new File(project.getGradle().getGradleUserHomeDir(), "caches/elide/dists");
+        var offline = project.getGradle().getStartParameter().isOffline();
+        return project.getGradle().getSharedServices().registerIfAbsent(
+                ElideToolchainService.SERVICE_NAME,
+                ElideToolchainService.class,
+                spec -> {
+                    spec.getParameters().getCacheDirectory().set(cacheDir);
+                    spec.getParameters().getSearchPath().set(providers.environmentVariable("PATH"));
+                    spec.getParameters().getUserHome().set(providers.systemProperty("user.home"));
+                    spec.getParameters().getDistributionsDirectory().set(distsDir);
+                    spec.getParameters().getDistributionUrl().set(providers
+                            .gradleProperty("elide.builder.distribution.url")
+                            .orElse(ElideDistributionCache.DEFAULT_DISTRIBUTION_URL));
+                    spec.getParameters().getOffline().set(offline);
+                }).get();
+    }
+
+    // Directory where toolchain probes are persisted, under the Gradle user home.
+    private static File toolchainCacheDirectory(Project project) {
+        return new File(project.getGradle().getGradleUserHomeDir(), "caches/elide/toolchain");
+    }
+
+    // Filter a file provider down to files which exist on disk, so that absent files are treated as absent inputs.
+    private static RegularFile ifExists(RegularFile file) {
+        return file.getAsFile().exists() ? file : null;
+    }
+
+    // Determine whether Elide's Maven installer integration is enabled.
+    private Provider<Boolean> enableMavenInstaller(Project project, ElideExtension ext) {
+        return project.getProviders().gradleProperty("elide.builder.maven.install.enable")
+                .map(Boolean::parseBoolean)
+                .orElse(ext.getEnableInstall().zip(ext.getEnableMavenIntegration(), (install, maven) -> install && maven));
+    }
+
+    // Determine whether the Elide manifest should be generated from Gradle's declared dependencies.
+    private Provider<Boolean> enableManifestGeneration(Project project, ElideExtension ext) {
+        return project.getProviders().gradleProperty("elide.builder.maven.manifest.generate")
+                .map(Boolean::parseBoolean)
+                .orElse(ext.getGenerateManifest());
+    }
+
+    // Determine whether dependencies are resolved from Elide's lockfile, instead of by Gradle.
+    private Provider<Boolean> enableLockedResolution(Project project, ElideExtension ext) {
+        return project.getProviders().gradleProperty("elide.builder.maven.lockfile.resolve")
+                .map(Boolean::parseBoolean)
+                .orElse(ext.getLockedResolution());
+    }
+
+    // Determine whether Elide's javadoc integration is enabled.
+    private Provider<Boolean> enableJavadoc(Project project, ElideExtension ext) {
+        return project.getProviders().gradleProperty("elide.builder.javadoc.enable")
+                .map(Boolean::parseBoolean)
+                .orElse(ext.getEnableJavadoc());
+    }
+
+    // Narrow an integration to binaries which support its tool; the tool is only probed while the integration is
+    // enabled, and an integration whose tool is missing leaves Gradle's own in place.
+    private static Provider<Boolean> whenSupported(
+            Project project,
+            Provider<Boolean> enabled,
+            ElideToolchainService toolchain,
+            Provider<Path> elide,
+            Provider<String> version,
+            String tool) {
+        var supported = project.getProviders().of(ElideToolSupportSource.class, spec -> {
+            spec.getParameters().getBinary().set(elide.map(Path::toString));
+            spec.getParameters().getCacheDirectory().set(toolchainCacheDirectory(project));
+            spec.getParameters().getTool().set(tool);
+        });
+        return enabled.flatMap(active -> active ? supported.map(it -> {
+            if (!it) {
+                toolchain.warnUnsupported(version.get(), tool);
+            }
+            return it;
+        }) : project.getProviders().provider(() -> false));
+    }
+
+    // Determine whether leaf modules described by a manifest are built with `elide build`, instead of by Gradle.
+    private Provider<Boolean> enableEmbeddedBuild(Project project, ElideExtension ext) {
+        return project.getProviders().gradleProperty("elide.builder.build.embedded")
+                .map(Boolean::parseBoolean)
+                .orElse(ext.getEnableEmbeddedBuild().zip(ext.getEnableProjectIntegration(),
+                        (embedded, projects) -> embedded && projects));
+    }
+
+    // Determine whether Elide's javac shim is enabled.
+    private Provider<Boolean> enableJavacShim(Project project, ElideExtension ext) {
+        return project.getProviders().gradleProperty("elide.builder.javac.enable")
+                .map(Boolean::parseBoolean)
+                .orElse(ext.getEnableJavaCompiler());
+    }
+
+    // Determine which compile tasks should race Elide against `javac`; `true` selects every source set's compile task,
+    // and a comma-separated list selects compile tasks by name. Returns `null` if racing is off.
+    private Set<String> raceSelection(Project project) {
+        var raceProp = project.getProviders().gradleProperty("elide.builder.javac.race").getOrNull();
+        if (raceProp == null || raceProp.isBlank() || raceProp.equalsIgnoreCase("false")) {
+            return null;
+        }
+        if (raceProp.equalsIgnoreCase("true")) {
+            return Collections.emptySet();
         }
+        return Arrays.stream(raceProp.split(","))
+                .map(String::trim)
+                .filter(it -> !it.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    // Determine whether Elide compiles run against ABI snapshots of dependency jars.
+    private boolean enableAbiSnapshots(Project project, ElideExtension ext) {
+        return project.getProviders().gradleProperty("elide.builder.javac.abi")
+                .map(Boolean::parseBoolean)
+                .orElse(ext.getAbiSnapshots())
+                .get();
+    }
+
+    // Determine whether large Java source sets are compiled in parallel shards, split by package.
+    private boolean enableShardedCompile(Project project, ElideExtension ext) {
+        return project.getProviders().gradleProperty("elide.builder.javac.sharded")
+                .map(Boolean::parseBoolean)
+                .orElse(ext.getShardedCompile())
+                .get();
+    }
 
+    @SuppressWarnings({"deprecation", "UnstableApiUsage"})
+    public void apply(Project project) {
         var objectUtil = project.getObjects();
         var extension = new ElideExtension(project, objectUtil);
         project.getExtensions().add(elideExtensionName, extension);
 
+        // the binary is resolved and probed once per build (and persisted across builds), rather than once per project.
+        // a pinned version is downloaded into the distribution cache on first use; since it may be set in the `elide`
+        // block, the binary is resolved lazily.
+        var toolchain = resolveToolchain(project);
+
+        // every Elide process is recorded by the telemetry service; compiles are recorded from their task events. the
+        // listener is registered by every project which applies the plugin, but each compile is only recorded once.
+        var telemetry = telemetry(project);
+        buildEvents.onTaskCompletion(telemetry);
+
+        // compiles which Gradle forks hold a process permit until they finish, which is known from the same events.
+        buildEvents.onTaskCompletion(processLimiter(project, extension));
+        if (project == project.getRootProject()) {
+            project.afterEvaluate(_ -> publishBuildScanValues(project, telemetry));
+        }
+        var providers = project.getProviders();
+        var pinnedVersion = providers.gradleProperty("elide.builder.version").orElse(extension.getElideVersion());
+        var pinnedChecksum = providers.gradleProperty("elide.builder.checksum").orElse(extension.getElideChecksum());
+        Provider<Path> elideResolved = providers.provider(() ->
+                toolchain.elide(pinnedVersion.getOrNull(), pinnedChecksum.getOrNull()));
+        Provider<String> elideIdentity = providers.of(ElideIdentitySource.class, spec -> {
+            spec.getParameters().getBinary().set(elideResolved.map(Path::toString));
+            spec.getParameters().getCacheDirectory().set(toolchainCacheDirectory(project));
+        });
+        Provider<String> elideVersion = elideIdentity.map(ElideToolchainService::version);
         project.afterEvaluate(_ -> {
-            var pluginManager = project.getPluginManager();
-            var javaPluginActive = pluginManager.hasPlugin(javaPluginId);
-            var javacSupportActive = enableJavacShim(project, extension);
-            var mavenInstallerActive = enableMavenInstaller(project, extension);
-            var hasProjectManifest = detectProjectManifest(project, extension);
-
-            project.getLogger().info(
-                    "Elide Java support: (pluginActive={}, javacSupport={})",
-                    javaPluginActive,
-                    javacSupportActive);
-
-            Collection<Task> javacTasks = null;
-            if (javaPluginActive && javacSupportActive) {
-                javacTasks = installJavacSupport(elideResolved, project);
+            project.getLogger().debug("Elide resolved to '{}'", elideResolved.get());
+            if (toolchain.announce()) {
+                project.getLogger().lifecycle("Using Elide " + elideVersion.get());
             }
+        });
 
-            boolean mustGenerateManifest = false;  // @TODO implement
-            boolean installerEnabled = extension.getEnableInstall().get();
-            boolean shouldRunInstallWithOrWithoutMaven = installerEnabled;
-            LinkedList<Task> allPrepTasks = new LinkedList<>();
-
-            if (mavenInstallerActive) {
-                // to enable integration with Maven dependency installation, we need to inject a local dependency root
-                // path, and we need to run `elide install` before compilation runs. dependencies must also be gathered
-                // if there is no project manifest file to read from. this comes first so that Gradle is configured to
-                // be aware of our Maven dependencies before `elide install` is run.
-                allPrepTasks.addAll(installMavenDepsSupport(project, extension, mustGenerateManifest));
-                installerEnabled = true;
-            }
-            if (installerEnabled && hasProjectManifest) {
-                // if a project manifest is present, we should run `elide install` regardless of other criteria, as it
-                // may install non-JVM dependencies on the user's behalf.
-                shouldRunInstallWithOrWithoutMaven = true;
-            }
-            if (shouldRunInstallWithOrWithoutMaven) {
-                // add a precursor task to run `elide install`.
-                allPrepTasks.add(project.getTasks().create(ElideTaskName.ELIDE_TASK_INSTALL, Task.class, task -> {
-                    task.setGroup("Elide");
-                    task.setDescription("Runs `elide install` to prepare the project for compilation.");
-                    task.dependsOn(allPrepTasks.stream().filter(it -> it != task).collect(Collectors.toList()));
-                    task.doLast(_ -> {
-                        var start = System.currentTimeMillis();
-                        project.getLogger().info("Running `elide install`");
-                        var result = callElideCaptured(elideResolved, new String[]{"install"});
-                        var end = System.currentTimeMillis();
-                        project.getLogger().info(result);
-                        project.getLogger().lifecycle("`elide install` completed in {}ms", (end - start));
-                    });
-                }));
-            }
-            if (!allPrepTasks.isEmpty() && javacTasks != null && !javacTasks.isEmpty()) {
-                javacTasks.forEach(javacTask -> {
-                    javacTask.dependsOn(allPrepTasks);
-                });
+        // the Java compiler and Javadoc integrations fall back to Gradle's own tools where the binary lacks them.
+        var javacSupportActive = whenSupported(
+                project, enableJavacShim(project, extension), toolchain, elideResolved, elideVersion, "javac");
+        var javadocSupportActive = whenSupported(
+                project, enableJavadoc(project, extension), toolchain, elideResolved, elideVersion, "javadoc");
+        var mavenInstallerActive = enableMavenInstaller(project, extension);
+        var lockedResolutionActive = enableLockedResolution(project, extension);
+
+        // when generating, the manifest is derived from every project's declared dependencies, instead of from a
+        // hand-written `elide.pkl`.
+        var mustGenerateManifest = enableManifestGeneration(project, extension);
+        var generateTask = installManifestGeneration(project, extension);
+
+        // `elide install` runs when the installer is enabled, either on its own, through Maven integration, or to install
+        // a generated manifest.
+        var installActive = extension.getEnableInstall()
+                .zip(mavenInstallerActive, (install, maven) -> install || maven)
+                .zip(mustGenerateManifest, (install, generate) -> install || generate);
+
+        // one `elide install` runs for the whole build, from the root project; each project contributes its manifest
+        // (or the generated one) while the installer is active for it.
+        var installTask = installCoordinator(project, extension, elideResolved, elideIdentity);
+        if (project == project.getRootProject()) {
+            installBackgroundInstall(project, extension, installActive, mustGenerateManifest, elideResolved);
+        }
+        var manifest = extension.getManifest();
+        installTask.configure(task -> {
+            task.getManifests().from(installActive.zip(manifest, (active, file) ->
+                    active && file.getAsFile().exists() ? List.of(file) : List.of()));
+            task.getManifests().from(mustGenerateManifest.flatMap(generate -> generate
+                    ? generateTask.flatMap(ElideGenerateManifestTask::getManifestFile).map(List::of)
+                    : project.getProviders().provider(List::of)));
+            task.dependsOn(mustGenerateManifest.map(generate -> generate ? List.of(generateTask) : List.of()));
+        });
+
+        var registerMavenRoot = project.getProviders().gradleProperty("elide.builder.maven.install.enable")
+                .map(Boolean::parseBoolean)
+                .getOrElse(true);
+
+        if (registerMavenRoot) {
+            // to enable integration with Maven dependency installation, we need to inject a local dependency root path,
+            // and we need to run `elide install` before compilation runs. repositories can't be added lazily, so the
+            // local root is registered up front; it stays empty (and is skipped by Gradle) until `elide install` runs.
+            installMavenDepsSupport(project, lockedResolutionActive, installTask);
+        }
+
+        project.getPluginManager().withPlugin(javaPluginId, _ -> {
+            project.getLogger().info("Elide Java support: (pluginActive=true)");
+            installJavacSupport(elideResolved, elideIdentity, project, javacSupportActive, installActive, installTask);
+            installJavadocSupport(elideResolved, elideIdentity, project, javadocSupportActive);
+            installTestSupport(project, elideResolved, elideVersion, elideIdentity, installActive, installTask);
+            installLockedResolution(project, lockedResolutionActive, installTask);
+
+            // whether a module is a leaf is only known once its dependencies are declared.
+            project.afterEvaluate(_ -> installEmbeddedBuild(
+                    project, extension, elideResolved, elideIdentity, installActive, installTask));
+
+            var raceSelection = raceSelection(project);
+            if (raceSelection != null) {
+                installRaceSupport(project, elideResolved, elideVersion, elideIdentity, installTask, raceSelection);
             }
         });
+
+        project.getPluginManager().withPlugin(kotlinJvmPluginId, _ -> {
+            project.getLogger().info("Elide Kotlin support: (pluginActive=true)");
+            installKotlinSupport(project, installActive, installTask);
+        });
     }
 }
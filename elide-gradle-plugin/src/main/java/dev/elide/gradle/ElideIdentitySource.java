@@ -0,0 +1,30 @@
+package dev.elide.gradle;
+
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.ValueSource;
+import org.gradle.api.provider.ValueSourceParameters;
+
+import java.nio.file.Path;
+
+// Identity of an Elide binary (its version and content hash; see `ElideToolchainService.identity`), obtained as an
+// input to configuration. The configuration cache obtains it again each time it's reused, so a binary upgraded in place
+// at the same path invalidates the cache, instead of leaving tasks keyed on the old binary. That stays cheap while the
+// binary is unchanged: probes are persisted under its real path, size, and modification time, and only a changed
+// binary is probed and hashed again.
+public abstract class ElideIdentitySource implements ValueSource<String, ElideIdentitySource.Params> {
+    public interface Params extends ValueSourceParameters {
+        // Path to the Elide binary.
+        Property<String> getBinary();
+
+        // Directory where probe results are persisted (under the Gradle user home).
+        DirectoryProperty getCacheDirectory();
+    }
+
+    @Override
+    public String obtain() {
+        return ElideToolchainService.identity(
+                getParameters().getCacheDirectory().get().getAsFile().toPath(),
+                Path.of(getParameters().getBinary().get()));
+    }
+}
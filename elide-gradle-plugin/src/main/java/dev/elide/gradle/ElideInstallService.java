@@ -0,0 +1,160 @@
+package dev.elide.gradle;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+// Build-scoped supervisor for an `elide install` started ahead of its task. Where the install's inputs are known once
+// the root project is evaluated, a cold install of the root manifest is started in the background, so that resolution
+// and downloads overlap with the rest of configuration; `elideInstall` then waits for it and reuses the result, as long
+// as it was performed for the same manifests, lockfile, and binary that the task would have installed.
+public abstract class ElideInstallService implements BuildService<BuildServiceParameters.None>, AutoCloseable {
+    // Name of the shared service, as registered with Gradle.
+    static final String SERVICE_NAME = "elideInstallSupervisor";
+
+    private static final Logger logger = Logging.getLogger(ElideInstallService.class);
+
+    // An install started in the background; `fingerprint` is recomputed once it completes, since the install itself may
+    // write the lockfile.
+    private record Started(
+            Path elide,
+            File workingDirectory,
+            List<File> manifests,
+            File lockfile,
+            long startedAt,
+            CompletableFuture<String> fingerprint) {}
+
+    private Started started = null;
+
+    // Start `elide install` in the background, holding the install lock and a process permit while it runs; only the
+    // first call per build has any effect.
+    synchronized void start(
+            Path elide,
+            ElideProcessLimiter limiter,
+            File workingDirectory,
+            List<File> manifests,
+            File lockfile,
+            File installLock,
+            ElideTelemetryService telemetry) {
+        if (started != null) {
+            return;
+        }
+        var fingerprint = new CompletableFuture<String>();
+        started = new Started(elide, workingDirectory, manifests, lockfile, System.currentTimeMillis(), fingerprint);
+        logger.info("Starting `elide install` in the background, in '{}'", workingDirectory);
+        Thread.ofVirtual().name("elide-install").start(() -> {
+            try {
+                Files.createDirectories(installLock.toPath().getParent());
+                try (var channel = FileChannel.open(installLock.toPath(),
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE);
+                     var _ = channel.lock()) {
+                    var args = new ArrayList<>(limiter.heapArgs());
+                    args.add("install");
+                    limiter.acquire();
+                    try {
+                        ElideSubprocess.callStreaming(elide, workingDirectory, logger,
+                                new ElideSubprocess.OutputListener() {
+                                    @Override
+                                    public void onLine(boolean stderr, String line) {}
+
+                                    @Override
+                                    public void onExit(ElideProcessMonitor.Stats stats) {
+                                        limiter.observe("install", stats.peakRssBytes());
+                                        telemetry.record("install", "(background)", stats, Map.of(
+                                                "manifests", manifests.size()));
+                                    }
+                                }, args.toArray(String[]::new));
+                    } finally {
+                        limiter.release();
+                    }
+                }
+                fingerprint.complete(fingerprint(elide, manifests, lockfile));
+            } catch (Throwable err) {
+                fingerprint.completeExceptionally(err);
+            }
+        });
+    }
+
+    // Wait for a background install, if one was started, and determine whether it can stand in for an install of the
+    // provided manifests and lockfile; a failed background install is reported, and left for the task to retry.
+    boolean await(Path elide, File workingDirectory, List<File> manifests, File lockfile, Logger taskLogger) {
+        Started install;
+        synchronized (this) {
+            install = started;
+        }
+        if (install == null) {
+            return false;
+        }
+        String completed;
+        try {
+            completed = install.fingerprint().get();
+        } catch (ExecutionException ee) {
+            taskLogger.warn("Background `elide install` failed; installing again", ee.getCause());
+            return false;
+        } catch (InterruptedException ixr) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        if (!install.workingDirectory().equals(workingDirectory)
+                || !completed.equals(fingerprint(elide, manifests, lockfile))) {
+            taskLogger.info("Background `elide install` doesn't match this install; installing again");
+            return false;
+        }
+        taskLogger.lifecycle("Reusing `elide install` started in the background ({}ms ago)",
+                System.currentTimeMillis() - install.startedAt());
+        return true;
+    }
+
+    // An install which nothing waited for (i.e. because an earlier task failed) still runs to completion, so that the
+    // Maven root isn't left half-written.
+    @Override
+    public void close() {
+        Started install;
+        synchronized (this) {
+            install = started;
+        }
+        if (install != null) {
+            try {
+                install.fingerprint().get();
+            } catch (ExecutionException ee) {
+                logger.info("Background `elide install` failed", ee.getCause());
+            } catch (InterruptedException ixr) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Fingerprint of an install: the binary, and the content of each manifest and of the lockfile (if any).
+    static String fingerprint(Path elide, List<File> manifests, File lockfile) {
+        try {
+            var digest = ElideDigests.sha256();
+            digest.update(elide.toAbsolutePath().toString().getBytes(StandardCharsets.UTF_8));
+            for (var manifest : manifests.stream().sorted().toList()) {
+                digest.update(manifest.getAbsolutePath().getBytes(StandardCharsets.UTF_8));
+                ElideDigests.update(digest, manifest.toPath());
+            }
+            if (lockfile != null && lockfile.exists()) {
+                ElideDigests.update(digest, lockfile.toPath());
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to fingerprint Elide install", e);
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package dev.elide.gradle;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.internal.logging.progress.ProgressLoggerFactory;
+
+import javax.inject.Inject;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Runs `elide install` once for the whole build; the manifests, lockfile, and Elide binary are tracked as inputs, and
+// the local Maven root (which the install writes) is tracked as an output, so that no-op builds skip the install and
+// results can come from the build cache. When manifests come from more than one project (or from manifest
+// generation), they are merged into one manifest and resolved together.
+@CacheableTask
+public abstract class ElideInstallTask extends DefaultTask {
+    // Project manifests (`elide.pkl`) which declare the dependencies to install, from every participating project.
+    @InputFiles
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public abstract ConfigurableFileCollection getManifests();
+
+    // Lockfile (`.dev/elide.lock.bin`) which pins the resolved dependency graph, if there is one yet. It is usually
+    // checked in, so it is an input, and never restored from the build cache; an install which writes or rewrites it
+    // runs once more in the next build, against the lockfile it wrote. Installs are only cached once a lockfile pins
+    // them, since the index they leave behind is stamped with the lockfile's hash.
+    @Optional
+    @InputFiles
+    @PathSensitive(PathSensitivity.NONE)
+    public abstract RegularFileProperty getLockfile();
+
+    // Name given to the merged manifest.
+    @Input
+    public abstract Property<String> getProjectName();
+
+    // Identity of the Elide binary which performs the install (its version and content hash).
+    @Input
+    public abstract Property<String> getElideIdentity();
+
+    // Path to the Elide binary; the binary's identity is tracked through `elideIdentity`.
+    @Internal
+    public abstract RegularFileProperty getElideBin();
+
+    // Directory where `elide install` is run.
+    @Internal
+    public abstract DirectoryProperty getWorkingDirectory();
+
+    // File locked for the duration of the install, so that concurrent builds sharing a dev root don't write to the
+    // same Maven root at once.
+    @Internal
+    public abstract RegularFileProperty getInstallLock();
+
+    // Shared artifact store; when set, the Maven root is filled from the store before the install, and its artifacts
+    // are moved into the store (leaving hard links behind) after it.
+    @Internal
+    public abstract DirectoryProperty getArtifactStore();
+
+    // Gradle's own artifact cache (`modules-2/files-2.1`), which the artifact store can be filled from.
+    @Internal
+    public abstract DirectoryProperty getGradleArtifactCache();
+
+    // Merged manifest, written to the working directory; absent when a single manifest is installed in place.
+    @Optional
+    @OutputFile
+    public abstract RegularFileProperty getMergedManifest();
+
+    // Local Maven root (`.dev/dependencies/m2`) populated by the install.
+    @OutputDirectory
+    public abstract DirectoryProperty getDependenciesRoot();
+
+    // Limit on concurrent Elide processes, which also supplies the heap limit and collects peak RSS observations.
+    @Internal
+    public abstract Property<ElideProcessLimiter> getProcessLimiter();
+
+    // Collector of telemetry for Elide processes; nothing is recorded if unset.
+    @Internal
+    public abstract Property<ElideTelemetryService> getTelemetry();
+
+    // Supervisor of an install started during configuration, which this task reuses if it matches.
+    @Internal
+    public abstract Property<ElideInstallService> getBackgroundInstall();
+
+    // Index of the installed artifacts (`.dev/dependencies/resolved.properties`), stamped with the lockfile's hash;
+    // read by locked resolution in place of POMs.
+    @OutputFile
+    public abstract RegularFileProperty getResolvedIndex();
+
+    public ElideInstallTask() {
+        setGroup("Elide");
+        setDescription("Runs `elide install` to prepare the build for compilation.");
+        getOutputs().cacheIf("a lockfile pins the install", _ ->
+                getLockfile().isPresent() && getLockfile().get().getAsFile().isFile());
+    }
+
+    @Inject
+    protected abstract ProgressLoggerFactory getProgressLoggerFactory();
+
+    @TaskAction
+    public void install() throws IOException, InterruptedException {
+        if (getMergedManifest().isPresent()) {
+            writeMergedManifest(getMergedManifest().get().getAsFile().toPath());
+        }
+
+        var m2 = getDependenciesRoot().get().getAsFile().toPath();
+        var lockfile = getLockfile().get().getAsFile().toPath();
+
+        // an install started during configuration has to finish (and release the install lock) first either way.
+        var reused = getBackgroundInstall().isPresent() && getBackgroundInstall().get().await(
+                getElideBin().get().getAsFile().toPath(),
+                getWorkingDirectory().get().getAsFile(),
+                getManifests().getFiles().stream().toList(),
+                lockfile.toFile(),
+                getLogger());
+
+        var lockPath = getInstallLock().get().getAsFile().toPath();
+        Files.createDirectories(lockPath.getParent());
+        try (var channel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            var lock = channel.tryLock();
+            if (lock == null) {
+                getLogger().lifecycle("Waiting for another Elide install to finish with '{}'", lockPath.getParent());
+                lock = channel.lock();
+            }
+            var installed = new AtomicReference<ElideProcessMonitor.Stats>();
+            var artifacts = -1;
+            try {
+                var store = getArtifactStore().isPresent()
+                        ? new ElideArtifactStore(
+                                getArtifactStore().get().getAsFile().toPath(),
+                                getGradleArtifactCache().isPresent()
+                                        ? getGradleArtifactCache().get().getAsFile().toPath()
+                                        : null,
+                                getLogger())
+                        : null;
+                if (!reused) {
+                    if (store != null) {
+                        var linked = store.seed(m2, lockfile);
+                        if (linked > 0) {
+                            getLogger().lifecycle("Linked {} artifact(s) from the Elide artifact store", linked);
+                        }
+                    }
+                    runInstall(installed);
+                }
+                if (store != null) {
+                    store.ingest(m2, lockfile);
+                    store.cleanup();
+                }
+                var index = getResolvedIndex().get().getAsFile().toPath();
+                artifacts = ElideLockedResolution.writeIndex(m2, lockfile, index);
+            } finally {
+                lock.release();
+                if (installed.get() != null && getTelemetry().isPresent()) {
+                    getTelemetry().get().record("install", getPath(), installed.get(), Map.of(
+                            "manifests", getManifests().getFiles().size(),
+                            "artifacts", artifacts));
+                }
+            }
+        }
+    }
+
+    private void runInstall(AtomicReference<ElideProcessMonitor.Stats> stats) throws InterruptedException {
+        var start = System.currentTimeMillis();
+        var firstOutput = new AtomicLong(-1);
+        var lines = new AtomicInteger();
+        var progress = getProgressLoggerFactory().newOperation(ElideInstallTask.class);
+        progress.start("elide install", "Resolving dependencies");
+        getLogger().info("Running `elide install`");
+        var limiter = getProcessLimiter().get();
+        var args = new ArrayList<>(limiter.heapArgs());
+        args.add("install");
+        limiter.acquire();
+        try {
+            ElideSubprocess.callStreaming(
+                    getElideBin().getAsFile().get().toPath(),
+                    getWorkingDirectory().getAsFile().get(),
+                    getLogger(),
+                    new ElideSubprocess.OutputListener() {
+                        @Override
+                        public void onLine(boolean stderr, String line) {
+                            firstOutput.compareAndSet(-1, System.currentTimeMillis() - start);
+                            lines.incrementAndGet();
+                            if (!line.isBlank()) {
+                                progress.progress(line.trim());
+                            }
+                        }
+
+                        @Override
+                        public void onExit(ElideProcessMonitor.Stats exited) {
+                            stats.set(exited);
+                            limiter.observe("install", exited.peakRssBytes());
+                        }
+                    },
+                    args.toArray(String[]::new));
+        } finally {
+            limiter.release();
+            progress.completed();
+        }
+        var end = System.currentTimeMillis();
+        getLogger().lifecycle(
+                "`elide install` completed in {}ms (first output after {}ms, {} lines)",
+                (end - start),
+                firstOutput.get(),
+                lines.get());
+    }
+
+    // Write a manifest which imports every participating manifest and spreads their dependencies into one listing, so
+    // that a single resolution covers the whole build.
+    private void writeMergedManifest(Path out) throws IOException {
+        List<File> manifests = getManifests().getFiles().stream().sorted().toList();
+        var imports = new StringBuilder();
+        var packages = new StringBuilder();
+        var testPackages = new StringBuilder();
+        var i = 0;
+        for (var manifest : manifests) {
+            var alias = "m" + i;
+            imports.append("import ").append(quote(importPath(out.getParent(), manifest.toPath())))
+                    .append(" as ").append(alias).append("\n");
+            packages.append("      ...").append(alias).append(".dependencies.maven.packages\n");
+            testPackages.append("      ...").append(alias).append(".dependencies.maven.testPackages\n");
+            i += 1;
+        }
+
+        var merged = "// Generated by the Elide Gradle plugin; do not edit.\n"
+                + "amends \"elide:project.pkl\"\n\n"
+                + imports + "\n"
+                + "name = " + quote(getProjectName().get()) + "\n\n"
+                + "dependencies {\n"
+                + "  maven {\n"
+                + "    packages {\n" + packages + "    }\n"
+                + "    testPackages {\n" + testPackages + "    }\n"
+                + "  }\n"
+                + "}\n";
+        Files.createDirectories(out.getParent());
+        Files.writeString(out, merged, StandardCharsets.UTF_8);
+        getLogger().info("Merged {} Elide manifest(s) into '{}'", manifests.size(), out);
+    }
+
+    // Imports are relative where possible, so that the merged manifest doesn't depend on where the build is checked out.
+    private static String importPath(Path from, Path manifest) {
+        try {
+            return from.toAbsolutePath().relativize(manifest.toAbsolutePath()).toString().replace('\\', '/');
+        } catch (IllegalArgumentException iae) {
+            return manifest.toAbsolutePath().toUri().toString();
+        }
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
@@ -0,0 +1,39 @@
+package dev.elide.gradle;
+
+import org.gradle.api.Action;
+import org.gradle.api.GradleException;
+import org.gradle.api.Task;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.compile.JavaCompile;
+
+// Runs before a `JavaCompile` task which is wired to Elide, and points it at Elide's launcher. The launcher is set only
+// once the task's cache key has been computed, since the fork executable is an input and its absolute path differs
+// between machines; the compiler's identity is tracked through the `elideCompiler` input property instead. Gradle forks
+// the compiler itself, so the task holds a process permit from here until it finishes.
+final class ElideJavacLauncher implements Action<Task> {
+    private final String launcher;
+    private final Provider<ElideProcessLimiter> limiter;
+
+    ElideJavacLauncher(String launcher, Provider<ElideProcessLimiter> limiter) {
+        this.launcher = launcher;
+        this.limiter = limiter;
+    }
+
+    @Override
+    public void execute(Task task) {
+        var options = ((JavaCompile) task).getOptions();
+        options.setFork(true);
+        options.getForkOptions().setExecutable(launcher);
+        holdPermit(limiter, task);
+    }
+
+    // Wait for a process permit on behalf of a compile which Gradle forks; it's released when the task finishes.
+    static void holdPermit(Provider<ElideProcessLimiter> limiter, Task task) {
+        try {
+            limiter.get().holdUntilFinished(task.getPath());
+        } catch (InterruptedException ixr) {
+            Thread.currentThread().interrupt();
+            throw new GradleException("Interrupted while waiting to run Elide", ixr);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package dev.elide.gradle;
+
+import org.gradle.api.Action;
+import org.gradle.api.GradleException;
+import org.gradle.api.Task;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.javadoc.Javadoc;
+import org.gradle.external.javadoc.StandardJavadocDocletOptions;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Replaces the action of a `Javadoc` task, so that documentation is generated by Elide's native `javadoc` rather than
+// the toolchain's. Gradle's own action can't be pointed at another binary (its executable must sit in a JDK), so this
+// one prepares the options exactly as Gradle does, writes them to the task's options file, and hands that file to
+// `elide javadoc`. The only input added to the task is the identity of the Elide binary (see `installJavadocSupport`),
+// so outputs are only shared through the build cache with other tasks which use the same binary, never with stock
+// `javadoc`; `-J` flags (including `maxMemory`) only apply to a JVM, and are replaced by Elide's own heap limit.
+final class ElideJavadoc implements Action<Task> {
+    private final Provider<String> elide;
+    private final File projectDirectory;
+    private final Provider<ElideProcessLimiter> limiter;
+    private final Provider<ElideTelemetryService> telemetry;
+
+    ElideJavadoc(
+            Provider<String> elide,
+            File projectDirectory,
+            Provider<ElideProcessLimiter> limiter,
+            Provider<ElideTelemetryService> telemetry) {
+        this.elide = elide;
+        this.projectDirectory = projectDirectory;
+        this.limiter = limiter;
+        this.telemetry = telemetry;
+    }
+
+    @Override
+    public void execute(Task task) {
+        var javadoc = (Javadoc) task;
+        var destination = javadoc.getDestinationDir();
+        var options = new StandardJavadocDocletOptions((StandardJavadocDocletOptions) javadoc.getOptions());
+        try {
+            ElideClasspaths.clean(destination.toPath());
+
+            if (options.getDestinationDirectory() == null) {
+                options.destinationDirectory(destination);
+            }
+            var sources = javadoc.getSource().getFiles();
+            var module = javadoc.getModularity().getInferModulePath().get()
+                    && sources.stream().anyMatch(it -> it.getName().equals("module-info.java"));
+            var classpath = new ArrayList<File>();
+            var modulePath = new ArrayList<File>();
+            for (var entry : javadoc.getClasspath().getFiles()) {
+                (module && ElideClasspaths.isModule(entry) ? modulePath : classpath).add(entry);
+            }
+            options.classpath(classpath);
+            options.modulePath(modulePath);
+            if (!isTrue(options.getWindowTitle()) && isTrue(javadoc.getTitle())) {
+                options.windowTitle(javadoc.getTitle());
+            }
+            if (!isTrue(options.getDocTitle()) && isTrue(javadoc.getTitle())) {
+                options.setDocTitle(javadoc.getTitle());
+            }
+            options.setJFlags(List.of());
+            options.setSourceNames(sources.stream().map(File::getAbsolutePath).toList());
+
+            var optionsFile = javadoc.getOptionsFile();
+            Files.createDirectories(optionsFile.toPath().getParent());
+            options.write(optionsFile);
+
+            var command = new ArrayList<String>();
+            command.add(elide.get());
+            command.addAll(limiter.get().heapArgs());
+            command.addAll(List.of("javadoc", "--", "@" + optionsFile.getAbsolutePath()));
+            var result = limiter.get().run(command, projectDirectory);
+            limiter.get().observe("javadoc", result.peakRssBytes());
+            telemetry.get().record("javadoc", task.getPath(), result.stats(), Map.of("sources", sources.size()));
+            if (result.exitCode() != 0 && javadoc.isFailOnError()) {
+                task.getLogger().error(result.output());
+                throw new GradleException(String.format(
+                        "Javadoc generation failed. Generated Javadoc options file (useful for troubleshooting): '%s'",
+                        optionsFile));
+            }
+            if (!result.output().isBlank()) {
+                task.getLogger().warn(result.output());
+            }
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        } catch (InterruptedException ixr) {
+            Thread.currentThread().interrupt();
+            throw new GradleException("Interrupted while generating Javadoc with Elide", ixr);
+        }
+    }
+
+    private static boolean isTrue(String value) {
+        return value != null && !value.isEmpty();
+    }
+}
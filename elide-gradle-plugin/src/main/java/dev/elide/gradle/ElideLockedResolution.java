@@ -0,0 +1,682 @@
+package dev.elide.gradle;
+
+import org.gradle.api.GradleException;
+import org.w3c.dom.Element;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// Resolution straight from an `elide install`: after each install, the artifacts listed in the lockfile are recorded in
+// a plain index, along with the direct dependencies of each (from its installed POM and its parents), stamped with the
+// hash of the lockfile. In locked mode, each classpath takes the artifacts reachable from its own declared dependencies
+// from this index, instead of having Gradle walk POMs, and resolution fails fast if the lockfile has changed since.
+// Versions are never taken from POMs: every module resolves to the one version in the lockfile, so artifacts left in
+// the Maven root by earlier installs never reach a classpath.
+final class ElideLockedResolution {
+    private ElideLockedResolution() {}
+
+    // Name of the index, which is written next to the Maven root.
+    static final String INDEX_FILE_NAME = "resolved.properties";
+
+    // Key under which the lockfile's hash is recorded.
+    private static final String lockfileKey = "elide.lockfile.sha256";
+
+    // Prefixes of index keys: the artifact for a module, and its compile- and runtime-scoped dependencies.
+    private static final String artifactPrefix = "artifact.";
+    private static final String compilePrefix = "compile.";
+    private static final String runtimePrefix = "runtime.";
+
+    // Prefix of index keys which record why a module's dependencies couldn't be read from its POM.
+    private static final String unresolvedPrefix = "unresolved.";
+
+    // Maximum depth of a POM's parents and imported BOMs, and of nested property references.
+    private static final int maxPomDepth = 32;
+
+    // Classifiers which never belong on a classpath.
+    private static final List<String> skippedClassifiers = List.of("sources", "javadoc");
+
+    // Maximum nesting of messages read from a lockfile.
+    private static final int maxLockfileDepth = 16;
+
+    // A dependency edge from one module to another (`group:module[:classifier]`), with the modules it excludes.
+    record Edge(String module, Set<String> exclusions) {}
+
+    // Record every artifact in the lockfile, keyed by its module (`group:module[:classifier]`), along with its direct
+    // dependencies; returns the number of artifacts recorded.
+    static int writeIndex(Path m2Root, Path lockfile, Path index) throws IOException {
+        var artifacts = Files.exists(lockfile)
+                ? lockfileArtifacts(Files.readAllBytes(lockfile))
+                : Map.<String, String>of();
+        var props = new Properties();
+        var poms = new PomResolver(documentBuilder(), m2Root);
+        for (var artifact : artifacts.entrySet()) {
+            var module = artifact.getKey();
+            props.setProperty(artifactPrefix + module, artifact.getValue());
+            var pom = pomFor(m2Root.resolve(artifact.getValue()));
+            if (pom == null) {
+                continue;
+            }
+            try {
+                var edges = poms.edges(pom);
+                props.setProperty(compilePrefix + module, formatEdges(edges.get("compile")));
+                props.setProperty(runtimePrefix + module, formatEdges(edges.get("runtime")));
+            } catch (UnresolvedPomException upe) {
+                props.setProperty(unresolvedPrefix + module, upe.getMessage());
+            }
+        }
+        props.setProperty(lockfileKey, Files.exists(lockfile) ? ElideDigests.sha256(lockfile) : "");
+        Files.createDirectories(index.getParent());
+        var tmp = Files.createTempFile(index.getParent(), index.getFileName().toString(), ".tmp");
+        try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            props.store(writer, "Artifacts installed by Elide");
+        }
+        Files.move(tmp, index, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return artifacts.size();
+    }
+
+    // Read the artifacts reachable from the provided modules (`group:module`), failing if the lockfile next to the
+    // Maven root no longer matches the index. Compile classpaths only follow compile-scoped dependencies; runtime
+    // classpaths follow runtime-scoped ones as well. Modules which aren't in the lockfile are left to Gradle.
+    static List<File> lockedArtifacts(File index, Collection<String> roots, boolean runtime) {
+        var m2Root = index.toPath().resolveSibling("m2");
+        var lockfile = m2Root.getParent().getParent().resolve("elide.lock.bin");
+        var props = new Properties();
+        try {
+            if (!index.exists()) {
+                throw new GradleException("Elide locked resolution is enabled, but nothing has been installed yet; "
+                        + "run `elideInstall` first");
+            }
+            try (Reader reader = Files.newBufferedReader(index.toPath(), StandardCharsets.UTF_8)) {
+                props.load(reader);
+            }
+            var current = Files.exists(lockfile) ? ElideDigests.sha256(lockfile) : "";
+            if (!current.equals(props.getProperty(lockfileKey))) {
+                throw new GradleException("Elide lockfile '" + lockfile
+                        + "' has changed since the last `elide install`; run `elideInstall` again, or disable "
+                        + "locked resolution");
+            }
+        } catch (IOException ioe) {
+            throw new UncheckedIOException("Failed to read Elide's installed artifacts at '" + index + "'", ioe);
+        }
+        var files = new ArrayList<File>();
+        for (var module : closure(props, roots, runtime)) {
+            files.add(m2Root.resolve(props.getProperty(artifactPrefix + module)).toFile());
+        }
+        return files;
+    }
+
+    // Modules reachable from the roots, breadth-first (so that the nearest path to a module decides its exclusions), in
+    // the order they are reached.
+    private static Set<String> closure(Properties index, Collection<String> roots, boolean runtime) {
+        var reached = new LinkedHashSet<String>();
+        var queue = new ArrayDeque<Edge>();
+        for (var root : new TreeSet<>(roots)) {
+            queue.add(new Edge(root, Set.of()));
+        }
+        while (!queue.isEmpty()) {
+            var next = queue.poll();
+            if (index.getProperty(artifactPrefix + next.module()) == null || !reached.add(next.module())) {
+                continue;
+            }
+            var unresolved = index.getProperty(unresolvedPrefix + next.module());
+            if (unresolved != null) {
+                throw new GradleException("Elide locked resolution can't determine the dependencies of '"
+                        + next.module() + "': " + unresolved + "; disable locked resolution to have Gradle resolve it");
+            }
+            var edges = new ArrayList<>(parseEdges(index.getProperty(compilePrefix + next.module(), "")));
+            if (runtime) {
+                edges.addAll(parseEdges(index.getProperty(runtimePrefix + next.module(), "")));
+            }
+            for (var edge : edges) {
+                if (excluded(next.exclusions(), edge.module())) {
+                    continue;
+                }
+                var exclusions = new TreeSet<>(next.exclusions());
+                exclusions.addAll(edge.exclusions());
+                queue.add(new Edge(edge.module(), exclusions));
+            }
+        }
+        return reached;
+    }
+
+    // Determine whether a module (`group:module[:classifier]`) matches any exclusion (`group:module`, with `*` for
+    // either part).
+    private static boolean excluded(Set<String> exclusions, String module) {
+        var parts = module.split(":");
+        for (var exclusion : exclusions) {
+            var excluded = exclusion.split(":");
+            if (excluded.length == 2
+                    && (excluded[0].equals("*") || excluded[0].equals(parts[0]))
+                    && (excluded[1].equals("*") || excluded[1].equals(parts[1]))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Edges are written as `group:module[:classifier]`, followed by `!group:module` for each exclusion, and separated
+    // by commas.
+    private static String formatEdges(List<Edge> edges) {
+        var formatted = new ArrayList<String>();
+        for (var edge : edges) {
+            var entry = new StringBuilder(edge.module());
+            for (var exclusion : edge.exclusions()) {
+                entry.append('!').append(exclusion);
+            }
+            formatted.add(entry.toString());
+        }
+        return String.join(",", formatted);
+    }
+
+    private static List<Edge> parseEdges(String value) {
+        var edges = new ArrayList<Edge>();
+        for (var entry : value.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            var parts = entry.split("!");
+            edges.add(new Edge(parts[0], new TreeSet<>(List.of(parts).subList(1, parts.length))));
+        }
+        return edges;
+    }
+
+    // Artifacts listed in a protobuf-encoded lockfile, keyed by module (`group:module[:classifier]`), with their paths
+    // relative to the Maven root. Each artifact is a message holding its coordinates (field 2) and its path under the
+    // dependencies root (field 3, `m2/...`); the messages around them aren't needed, so every nested message is
+    // searched, and anything which isn't a well-formed message is skipped.
+    static Map<String, String> lockfileArtifacts(byte[] lockfile) {
+        var artifacts = new TreeMap<String, String>();
+        for (var path : lockfileSizes(lockfile).keySet()) {
+            var relative = path.substring("m2/".length());
+            var coordinates = coordinates(relative);
+            if (coordinates != null) {
+                var parts = coordinates.split(":");
+                artifacts.put(parts[0] + ":" + parts[1] + (parts.length > 3 ? ":" + parts[3] : ""), relative);
+            }
+        }
+        return artifacts;
+    }
+
+    // Artifacts listed in a protobuf-encoded lockfile, by path under the dependencies root (`m2/...`), with the size
+    // recorded for each (-1 where none is). Lockfiles record each artifact's size and modification time (field 4,
+    // `filestate`), but not a digest of its content.
+    static Map<String, Long> lockfileSizes(byte[] lockfile) {
+        var found = new TreeMap<String, Long>();
+        scan(lockfile, 0, lockfile.length, found, 0);
+        return found;
+    }
+
+    // Parse one message from `buf[from, to)`, adding the paths (and recorded sizes) of any artifacts within it; returns
+    // `false` if the range isn't a well-formed message.
+    private static boolean scan(byte[] buf, int from, int to, Map<String, Long> found, int depth) {
+        if (depth > maxLockfileDepth) {
+            return false;
+        }
+        String coordinates = null;
+        String path = null;
+        int[] state = null;
+        var nested = new ArrayList<int[]>();
+        var pos = from;
+        while (pos < to) {
+            var key = varint(buf, pos, to);
+            if (key == null || (key[0] >>> 3) == 0) {
+                return false;
+            }
+            pos = (int) key[1];
+            var field = (int) (key[0] >>> 3);
+            switch ((int) (key[0] & 7)) {
+                case 0 -> {
+                    var value = varint(buf, pos, to);
+                    if (value == null) {
+                        return false;
+                    }
+                    pos = (int) value[1];
+                }
+                case 1 -> pos += 8;
+                case 5 -> pos += 4;
+                case 2 -> {
+                    var length = varint(buf, pos, to);
+                    if (length == null || length[0] < 0 || length[0] > to - length[1]) {
+                        return false;
+                    }
+                    pos = (int) length[1];
+                    var end = pos + (int) length[0];
+                    if (field == 2) {
+                        coordinates = new String(buf, pos, end - pos, StandardCharsets.UTF_8);
+                    } else if (field == 3) {
+                        path = new String(buf, pos, end - pos, StandardCharsets.UTF_8);
+                    } else if (field == 4) {
+                        state = new int[] {pos, end};
+                    }
+                    nested.add(new int[] {pos, end});
+                    pos = end;
+                }
+                default -> {
+                    return false;
+                }
+            }
+            if (pos > to) {
+                return false;
+            }
+        }
+        if (coordinates != null && coordinates.contains(":") && path != null && path.startsWith("m2/")
+                && path.endsWith(".jar")) {
+            found.put(path, state == null ? -1 : recordedSize(buf, state[0], state[1]));
+        }
+        for (var range : nested) {
+            scan(buf, range[0], range[1], found, depth + 1);
+        }
+        return true;
+    }
+
+    // Size recorded in an artifact's file state (`{1: "filestate", 2: {1: mtime, 2: size}}`); -1 if there isn't one.
+    private static long recordedSize(byte[] buf, int from, int to) {
+        var state = fields(buf, from, to);
+        var kind = state == null ? null : state.get(1);
+        var stat = state == null ? null : state.get(2);
+        if (kind == null || kind.length != 2 || stat == null || stat.length != 2
+                || !"filestate".equals(new String(buf, (int) kind[0], (int) (kind[1] - kind[0]),
+                        StandardCharsets.UTF_8))) {
+            return -1;
+        }
+        var values = fields(buf, (int) stat[0], (int) stat[1]);
+        var size = values == null ? null : values.get(2);
+        return size != null && size.length == 1 ? size[0] : -1;
+    }
+
+    // Top-level fields of one message in `buf[from, to)`, by number: `{value}` for varints, and `{start, end}` for
+    // length-delimited fields; the last occurrence of a field wins. Returns `null` if the range isn't a message.
+    private static Map<Integer, long[]> fields(byte[] buf, int from, int to) {
+        var fields = new HashMap<Integer, long[]>();
+        var pos = from;
+        while (pos < to) {
+            var key = varint(buf, pos, to);
+            if (key == null || (key[0] >>> 3) == 0) {
+                return null;
+            }
+            pos = (int) key[1];
+            var field = (int) (key[0] >>> 3);
+            switch ((int) (key[0] & 7)) {
+                case 0 -> {
+                    var value = varint(buf, pos, to);
+                    if (value == null) {
+                        return null;
+                    }
+                    fields.put(field, new long[] {value[0]});
+                    pos = (int) value[1];
+                }
+                case 1 -> pos += 8;
+                case 5 -> pos += 4;
+                case 2 -> {
+                    var length = varint(buf, pos, to);
+                    if (length == null || length[0] < 0 || length[0] > to - length[1]) {
+                        return null;
+                    }
+                    pos = (int) length[1];
+                    fields.put(field, new long[] {pos, pos + length[0]});
+                    pos += (int) length[0];
+                }
+                default -> {
+                    return null;
+                }
+            }
+            if (pos > to) {
+                return null;
+            }
+        }
+        return fields;
+    }
+
+    // Read a protobuf varint at `pos`; returns the value and the position after it, or `null` if it's truncated.
+    private static long[] varint(byte[] buf, int pos, int to) {
+        long value = 0;
+        for (var shift = 0; shift < 64 && pos < to; shift += 7) {
+            var b = buf[pos++];
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return new long[] {value, pos};
+            }
+        }
+        return null;
+    }
+
+    // POM installed next to an artifact (`<module>-<version>.pom`), if any.
+    private static Path pomFor(Path artifact) {
+        var dir = artifact.getParent();
+        var version = dir.getFileName().toString();
+        var module = dir.getParent().getFileName().toString();
+        var pom = dir.resolve(module + "-" + version + ".pom");
+        return Files.isRegularFile(pom) ? pom : null;
+    }
+
+    // A POM which can't be fully resolved: a parent or imported BOM isn't installed, or a property which its
+    // coordinates or scopes refer to isn't defined. The module it belongs to is recorded as unresolved, rather than
+    // given a partial set of dependencies.
+    static final class UnresolvedPomException extends IOException {
+        UnresolvedPomException(String message) {
+            super(message);
+        }
+    }
+
+    // Effective POMs, as Maven would build them from the Maven root: each POM inherits the properties, dependencies,
+    // and managed dependencies of its parents, and imports the managed dependencies of the BOMs it lists with `import`
+    // scope. Parents and BOMs are read once per index, since many artifacts share them.
+    static final class PomResolver {
+        private final DocumentBuilder builder;
+        private final Path m2Root;
+        private final Map<Path, Pom> poms = new HashMap<>();
+        private final Map<Path, Map<String, Managed>> managed = new HashMap<>();
+
+        PomResolver(DocumentBuilder builder, Path m2Root) {
+            this.builder = builder;
+            this.m2Root = m2Root;
+        }
+
+        // A POM with its parents applied. Dependencies are kept as declared, since inherited ones are interpolated
+        // with the properties of the POM which inherits them.
+        private record Pom(
+                Path path,
+                Map<String, String> properties,
+                List<Element> dependencies,
+                List<Element> managed) {}
+
+        // How a module is managed: its scope, if any, and the modules it excludes.
+        private record Managed(String scope, Set<String> exclusions) {}
+
+        // Direct dependencies declared by a POM or its parents, by scope (`compile` or `runtime`); optional
+        // dependencies, and those in other scopes, never reach a consumer's classpath. Only group, module, and
+        // classifier are read, since versions come from the lockfile.
+        Map<String, List<Edge>> edges(Path path) throws IOException {
+            var pom = pom(path, 0);
+            var managed = managed(pom, 0);
+            var edges = new HashMap<String, List<Edge>>();
+            edges.put("compile", new ArrayList<>());
+            edges.put("runtime", new ArrayList<>());
+            var seen = new HashSet<String>();
+            for (var dependency : pom.dependencies()) {
+                var module = interpolate(text(dependency, "groupId"), pom) + ":"
+                        + interpolate(text(dependency, "artifactId"), pom);
+                var type = interpolate(text(dependency, "type"), pom);
+                var classifier = interpolate(text(dependency, "classifier"), pom);
+                if (!seen.add(module + ":" + type + ":" + classifier)) {
+                    continue;
+                }
+                var scope = interpolate(text(dependency, "scope"), pom);
+                var management = managed.get(module);
+                if (scope == null && management != null) {
+                    scope = management.scope();
+                }
+                if ("true".equals(interpolate(text(dependency, "optional"), pom))
+                        || (type != null && !type.equals("jar"))) {
+                    continue;
+                }
+                var exclusions = exclusions(dependency, pom);
+                if (management != null) {
+                    exclusions.addAll(management.exclusions());
+                }
+                var edge = new Edge(classifier == null ? module : module + ":" + classifier, exclusions);
+                if (scope == null || scope.equals("compile")) {
+                    edges.get("compile").add(edge);
+                } else if (scope.equals("runtime")) {
+                    edges.get("runtime").add(edge);
+                }
+            }
+            return edges;
+        }
+
+        // Read a POM, and apply its parents, which must be installed in the Maven root. A POM's own dependencies come
+        // before those it inherits, so that it overrides them.
+        private Pom pom(Path path, int depth) throws IOException {
+            var known = poms.get(path);
+            if (known != null) {
+                return known;
+            }
+            if (depth > maxPomDepth) {
+                throw new UnresolvedPomException("POM '" + path + "' has too many parents");
+            }
+            Element project;
+            try {
+                project = builder.parse(path.toFile()).getDocumentElement();
+            } catch (SAXException se) {
+                throw new IOException("Failed to parse POM at '" + path + "'", se);
+            }
+            var properties = new HashMap<String, String>();
+            var dependencies = new ArrayList<>(dependencies(project));
+            var managed = new ArrayList<Element>();
+            var management = child(project, "dependencyManagement");
+            if (management != null) {
+                managed.addAll(dependencies(management));
+            }
+            var parent = child(project, "parent");
+            if (parent != null) {
+                var own = new Pom(path, ownProperties(project), List.of(), List.of());
+                var inherited = pom(installed(
+                        interpolate(text(parent, "groupId"), own),
+                        interpolate(text(parent, "artifactId"), own),
+                        interpolate(text(parent, "version"), own),
+                        "parent of '" + path + "'"), depth + 1);
+                properties.putAll(inherited.properties());
+                dependencies.addAll(inherited.dependencies());
+                managed.addAll(inherited.managed());
+            }
+            properties.putAll(ownProperties(project));
+            var pom = new Pom(path, properties, dependencies, managed);
+            poms.put(path, pom);
+            return pom;
+        }
+
+        // Managed dependencies of a POM, by module (`group:module`): those it declares or inherits come first, then
+        // those of the BOMs it imports, in order.
+        private Map<String, Managed> managed(Pom pom, int depth) throws IOException {
+            var known = managed.get(pom.path());
+            if (known != null) {
+                return known;
+            }
+            if (depth > maxPomDepth) {
+                throw new UnresolvedPomException("POM '" + pom.path() + "' imports too many nested BOMs");
+            }
+            var resolved = new HashMap<String, Managed>();
+            var imports = new ArrayList<Path>();
+            for (var dependency : pom.managed()) {
+                var group = interpolate(text(dependency, "groupId"), pom);
+                var module = interpolate(text(dependency, "artifactId"), pom);
+                var scope = interpolate(text(dependency, "scope"), pom);
+                if ("import".equals(scope) && "pom".equals(interpolate(text(dependency, "type"), pom))) {
+                    imports.add(installed(group, module, interpolate(text(dependency, "version"), pom),
+                            "imported by '" + pom.path() + "'"));
+                } else {
+                    resolved.putIfAbsent(group + ":" + module, new Managed(scope, exclusions(dependency, pom)));
+                }
+            }
+            for (var bom : imports) {
+                for (var entry : managed(pom(bom, 0), depth + 1).entrySet()) {
+                    resolved.putIfAbsent(entry.getKey(), entry.getValue());
+                }
+            }
+            managed.put(pom.path(), resolved);
+            return resolved;
+        }
+
+        // Modules a dependency excludes (`group:module`).
+        private static Set<String> exclusions(Element dependency, Pom pom) throws IOException {
+            var exclusions = new TreeSet<String>();
+            var exclusionsElement = child(dependency, "exclusions");
+            if (exclusionsElement != null) {
+                for (var exclusion : children(exclusionsElement, "exclusion")) {
+                    exclusions.add(interpolate(text(exclusion, "groupId"), pom) + ":"
+                            + interpolate(text(exclusion, "artifactId"), pom));
+                }
+            }
+            return exclusions;
+        }
+
+        // Path of an installed POM, which must exist.
+        private Path installed(String group, String module, String version, String role) throws IOException {
+            if (group == null || module == null || version == null) {
+                throw new UnresolvedPomException("POM " + role + " has incomplete coordinates");
+            }
+            var path = m2Root.resolve(group.replace('.', '/')).resolve(module).resolve(version)
+                    .resolve(module + "-" + version + ".pom");
+            if (!Files.isRegularFile(path)) {
+                throw new UnresolvedPomException("POM " + group + ":" + module + ":" + version + " (" + role
+                        + ") isn't installed");
+            }
+            return path;
+        }
+    }
+
+    // Properties a POM defines itself: its `properties`, and its coordinates (and its parent's), under the names Maven
+    // gives them.
+    private static Map<String, String> ownProperties(Element project) {
+        var properties = new HashMap<String, String>();
+        var declared = child(project, "properties");
+        if (declared != null) {
+            for (var property : children(declared, null)) {
+                properties.put(property.getTagName(), property.getTextContent().trim());
+            }
+        }
+        var parent = child(project, "parent");
+        for (var coordinate : List.of("groupId", "artifactId", "version")) {
+            var inherited = parent != null ? text(parent, coordinate) : null;
+            var own = text(project, coordinate);
+            var value = own != null || coordinate.equals("artifactId") ? own : inherited;
+            if (value != null) {
+                properties.put("project." + coordinate, value);
+                properties.put("pom." + coordinate, value);
+                properties.put(coordinate, value);
+            }
+            if (inherited != null) {
+                properties.put("project.parent." + coordinate, inherited);
+            }
+        }
+        return properties;
+    }
+
+    // Replace every `${name}` in a value with the POM's property, including references nested within properties;
+    // fails if a property isn't defined.
+    private static String interpolate(String value, PomResolver.Pom pom) throws IOException {
+        if (value == null) {
+            return null;
+        }
+        var result = value;
+        for (var depth = 0; result.contains("${"); depth++) {
+            if (depth > maxPomDepth) {
+                throw new UnresolvedPomException("'" + value + "' in POM '" + pom.path() + "' can't be interpolated");
+            }
+            var out = new StringBuilder();
+            var pos = 0;
+            while (true) {
+                var start = result.indexOf("${", pos);
+                var end = start < 0 ? -1 : result.indexOf('}', start);
+                if (end < 0) {
+                    out.append(result, pos, result.length());
+                    break;
+                }
+                var name = result.substring(start + 2, end);
+                var property = pom.properties().get(name);
+                if (property == null) {
+                    throw new UnresolvedPomException("property '" + name + "' in POM '" + pom.path()
+                            + "' isn't defined");
+                }
+                out.append(result, pos, start).append(property);
+                pos = end + 1;
+            }
+            if (out.toString().equals(result)) {
+                throw new UnresolvedPomException("'" + value + "' in POM '" + pom.path() + "' can't be interpolated");
+            }
+            result = out.toString();
+        }
+        return result;
+    }
+
+    private static List<Element> dependencies(Element parent) {
+        var dependencies = child(parent, "dependencies");
+        return dependencies == null ? List.of() : children(dependencies, "dependency");
+    }
+
+    private static Element child(Element parent, String name) {
+        var matching = children(parent, name);
+        return matching.isEmpty() ? null : matching.getFirst();
+    }
+
+    // Child elements of an element, optionally only those with the provided name.
+    private static List<Element> children(Element parent, String name) {
+        var children = new ArrayList<Element>();
+        for (var node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node instanceof Element element && (name == null || element.getTagName().equals(name))) {
+                children.add(element);
+            }
+        }
+        return children;
+    }
+
+    private static String text(Element parent, String name) {
+        var element = child(parent, name);
+        return element == null ? null : element.getTextContent().trim();
+    }
+
+    // A parser for POMs, which never fetches DTDs or external entities.
+    static DocumentBuilder documentBuilder() throws IOException {
+        try {
+            var factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+            factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+            factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+            factory.setExpandEntityReferences(false);
+            return factory.newDocumentBuilder();
+        } catch (ParserConfigurationException pce) {
+            throw new IOException("Failed to create a POM parser", pce);
+        }
+    }
+
+    // Derive coordinates from a Maven path: `<group path>/<module>/<version>/<module>-<version>[-<classifier>].jar`.
+    // Returns `null` for files which aren't classpath artifacts.
+    private static String coordinates(String path) {
+        var segments = path.split("/");
+        if (segments.length < 4 || !path.endsWith(".jar")) {
+            return null;
+        }
+        var file = segments[segments.length - 1];
+        var version = segments[segments.length - 2];
+        var module = segments[segments.length - 3];
+        var prefix = module + "-" + version;
+        if (!file.startsWith(prefix)) {
+            return null;
+        }
+        var group = String.join(".", List.of(segments).subList(0, segments.length - 3));
+        var rest = file.substring(prefix.length(), file.length() - ".jar".length());
+        if (rest.isEmpty()) {
+            return group + ":" + module + ":" + version;
+        }
+        var classifier = rest.startsWith("-") ? rest.substring(1) : null;
+        if (classifier == null || skippedClassifiers.contains(classifier)) {
+            return null;
+        }
+        return group + ":" + module + ":" + version + ":" + classifier;
+    }
+}
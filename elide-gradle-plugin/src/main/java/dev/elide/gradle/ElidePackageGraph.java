@@ -0,0 +1,204 @@
+package dev.elide.gradle;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+import java.util.regex.Pattern;
+
+// Package dependency graph of a Java source set, and the plan for compiling it in parallel. Packages which depend on
+// each other (strongly-connected components) are always compiled together; components are then layered so that each
+// one is compiled after everything it depends on, and the components of each layer are spread across shards. The
+// graph only needs to over-approximate real dependencies: an extra edge costs parallelism, while a missing one makes a
+// shard fail to compile, and the compile falls back to a single shot.
+final class ElidePackageGraph {
+    // The package declaration of a compilation unit.
+    private static final Pattern packagePattern = Pattern.compile("^\\s*package\\s+([\\w.]+)\\s*;", Pattern.MULTILINE);
+
+    // A dotted, lower-case qualifier followed by a type name (or a wildcard): `com.example.Foo`, `com.example.*`.
+    private static final Pattern referencePattern =
+            Pattern.compile("\\b([a-z_$][\\w$]*(?:\\.[a-z_$][\\w$]*)*)\\.(?:[A-Z_$]|\\*)");
+
+    private ElidePackageGraph() {}
+
+    // Package of each source file; sources in the default package map to the empty string.
+    static Map<File, String> packages(Collection<File> sources) {
+        var packages = new TreeMap<File, String>();
+        for (var source : sources) {
+            var matcher = packagePattern.matcher(read(source));
+            packages.put(source, matcher.find() ? matcher.group(1) : "");
+        }
+        return packages;
+    }
+
+    // Dependencies between the packages of a source set, from the imports and qualified names in each source file. Only
+    // edges between packages of the source set itself are kept.
+    static Map<String, Set<String>> dependencies(Map<File, String> packages) {
+        var known = new TreeSet<>(packages.values());
+        var graph = new TreeMap<String, Set<String>>();
+        known.forEach(pkg -> graph.put(pkg, new TreeSet<>()));
+        packages.forEach((source, pkg) -> {
+            var matcher = referencePattern.matcher(read(source));
+            while (matcher.find()) {
+                // `a.b.C.D` is matched as `a.b`; nested qualifiers (`a.b.c` of `a.b.c.D`) may also name packages.
+                var qualifier = matcher.group(1);
+                while (!qualifier.isEmpty()) {
+                    if (!qualifier.equals(pkg) && known.contains(qualifier)) {
+                        graph.get(pkg).add(qualifier);
+                        break;
+                    }
+                    var dot = qualifier.lastIndexOf('.');
+                    qualifier = dot < 0 ? "" : qualifier.substring(0, dot);
+                }
+            }
+        });
+        return graph;
+    }
+
+    // Strongly-connected components of a dependency graph (Tarjan's algorithm), in an order where every component
+    // comes after the components it depends on.
+    static List<Set<String>> components(Map<String, Set<String>> graph) {
+        var index = new HashMap<String, Integer>();
+        var lowLink = new HashMap<String, Integer>();
+        var stack = new ArrayDeque<String>();
+        var onStack = new HashMap<String, Boolean>();
+        var components = new ArrayList<Set<String>>();
+        for (var node : graph.keySet()) {
+            if (!index.containsKey(node)) {
+                strongConnect(node, graph, index, lowLink, stack, onStack, components);
+            }
+        }
+        return components;
+    }
+
+    // Iterative form of Tarjan's `strongconnect`, so that deep package chains can't overflow the stack.
+    private static void strongConnect(
+            String root,
+            Map<String, Set<String>> graph,
+            Map<String, Integer> index,
+            Map<String, Integer> lowLink,
+            Deque<String> stack,
+            Map<String, Boolean> onStack,
+            List<Set<String>> components) {
+        record Frame(String node, List<String> edges, int[] next) {}
+        var frames = new ArrayDeque<Frame>();
+        var visit = (Consumer<String>) node -> {
+            index.put(node, index.size());
+            lowLink.put(node, index.get(node));
+            stack.push(node);
+            onStack.put(node, true);
+            frames.push(new Frame(node, List.copyOf(graph.getOrDefault(node, Set.of())), new int[] {0}));
+        };
+        visit.accept(root);
+        while (!frames.isEmpty()) {
+            var frame = frames.peek();
+            if (frame.next()[0] < frame.edges().size()) {
+                var edge = frame.edges().get(frame.next()[0]++);
+                if (!index.containsKey(edge)) {
+                    visit.accept(edge);
+                } else if (onStack.getOrDefault(edge, false)) {
+                    lowLink.put(frame.node(), Math.min(lowLink.get(frame.node()), index.get(edge)));
+                }
+                continue;
+            }
+            frames.pop();
+            if (!frames.isEmpty()) {
+                var parent = frames.peek().node();
+                lowLink.put(parent, Math.min(lowLink.get(parent), lowLink.get(frame.node())));
+            }
+            if (lowLink.get(frame.node()).equals(index.get(frame.node()))) {
+                var component = new TreeSet<String>();
+                String member;
+                do {
+                    member = stack.pop();
+                    onStack.put(member, false);
+                    component.add(member);
+                } while (!member.equals(frame.node()));
+                components.add(component);
+            }
+        }
+    }
+
+    // Plan a sharded compile: a list of waves, each a list of shards, each the set of packages to compile together.
+    // Components are layered by the length of their longest dependency chain, so that a wave only depends on earlier
+    // waves; within a wave, the largest remaining component (by source count) goes to the least-loaded of at most
+    // `maxShards` shards, so that shards finish at roughly the same time.
+    static List<List<Set<String>>> plan(
+            Map<String, Set<String>> graph,
+            Map<String, Integer> sourceCounts,
+            int maxShards) {
+        var components = components(graph);
+        var componentOf = new HashMap<String, Integer>();
+        for (var i = 0; i < components.size(); i++) {
+            for (var pkg : components.get(i)) {
+                componentOf.put(pkg, i);
+            }
+        }
+        var layers = new TreeMap<Integer, List<Set<String>>>();
+        var layerOf = new int[components.size()];
+        for (var i = 0; i < components.size(); i++) {
+            var layer = 0;
+            for (var pkg : components.get(i)) {
+                for (var dep : graph.getOrDefault(pkg, Set.of())) {
+                    var depComponent = componentOf.get(dep);
+                    if (depComponent != i) {
+                        layer = Math.max(layer, layerOf[depComponent] + 1);
+                    }
+                }
+            }
+            layerOf[i] = layer;
+            layers.computeIfAbsent(layer, _ -> new ArrayList<>()).add(components.get(i));
+        }
+
+        var waves = new ArrayList<List<Set<String>>>(layers.size());
+        for (var layer : layers.values()) {
+            var weight = (ToIntFunction<Set<String>>) component -> component.stream()
+                    .mapToInt(pkg -> sourceCounts.getOrDefault(pkg, 0))
+                    .sum();
+            var ordered = layer.stream()
+                    .sorted(Comparator.comparingInt(weight).reversed().thenComparing(Set::toString))
+                    .toList();
+            var count = Math.max(1, Math.min(maxShards, ordered.size()));
+            var shards = new ArrayList<Set<String>>(count);
+            var loads = new int[count];
+            for (var i = 0; i < count; i++) {
+                shards.add(new TreeSet<>());
+            }
+            for (var component : ordered) {
+                var lightest = 0;
+                for (var i = 1; i < count; i++) {
+                    if (loads[i] < loads[lightest]) {
+                        lightest = i;
+                    }
+                }
+                shards.get(lightest).addAll(component);
+                loads[lightest] += weight.applyAsInt(component);
+            }
+            waves.add(shards);
+        }
+        return waves;
+    }
+
+    // Sources are read as Latin-1, which never fails to decode; package names and qualifiers are matched as ASCII.
+    private static String read(File source) {
+        try {
+            return Files.readString(source.toPath(), StandardCharsets.ISO_8859_1);
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package dev.elide.gradle;
+
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.Property;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import org.gradle.tooling.events.FinishEvent;
+import org.gradle.tooling.events.OperationCompletionListener;
+import org.gradle.tooling.events.task.TaskFinishEvent;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.Semaphore;
+
+// Build-scoped limit on Elide processes, so that `--parallel` builds on large machines don't start more native-image
+// heaps at once than memory allows. Every Elide process holds one of the service's permits while it runs; tasks which
+// run several processes (test shards, sharded compiles) take one per process, and compiles which Gradle forks hold
+// theirs until the task finishes. Every task which forks Elide also uses this service, so that Gradle's
+// `maxParallelUsages` (the configured maximum) keeps tasks from waiting on permits while other work could run. The
+// limit is the configured maximum (or one per core), lowered to what fits in three quarters of physical memory at the
+// peak RSS observed for Elide processes in earlier builds; observations are persisted under the Gradle user home, and
+// only read once tasks run, since the configuration cache doesn't track them.
+public abstract class ElideProcessLimiter
+        implements BuildService<ElideProcessLimiter.Params>, OperationCompletionListener, AutoCloseable {
+    // Name of the shared service, as registered with Gradle.
+    static final String SERVICE_NAME = "elideProcesses";
+
+    // Share of physical memory which Elide processes are expected to fit in, all together.
+    private static final double memoryBudget = 0.75;
+
+    private static final Logger logger = Logging.getLogger(ElideProcessLimiter.class);
+
+    public interface Params extends BuildServiceParameters {
+        // File where peak RSS observations are persisted, per tool.
+        RegularFileProperty getRssRecord();
+
+        // Configured maximum number of Elide processes to run at once; mirrors the service's `maxParallelUsages`.
+        Property<Integer> getMaxProcesses();
+
+        // Maximum heap size for each Elide process (i.e. `2g`), passed to the binary as `-Xmx`; unset for no limit.
+        Property<String> getMaxHeap();
+    }
+
+    private final Map<String, Long> observed = new TreeMap<>();
+
+    // Permits held until a task finishes, by task path.
+    private final Map<String, Integer> held = new HashMap<>();
+
+    private Semaphore permits;
+
+    // Process limit, once computed.
+    private Integer limit;
+
+    // Maximum number of Elide processes to run at once, including within a single task: the configured maximum,
+    // lowered to fit observed peak RSS (see `adaptiveLimit`).
+    synchronized int maxProcesses() {
+        if (limit == null) {
+            var params = getParameters();
+            limit = adaptiveLimit(
+                    params.getRssRecord().get().getAsFile(),
+                    params.getMaxProcesses().get(),
+                    params.getMaxHeap().getOrNull());
+        }
+        return limit;
+    }
+
+    // Wait for a permit to run one Elide process; it must be released once the process exits.
+    void acquire() throws InterruptedException {
+        permits().acquire();
+    }
+
+    void release() {
+        permits().release();
+    }
+
+    // Run an Elide process while holding a permit.
+    ElideProcessMonitor.Result run(List<String> command, File cwd) throws IOException, InterruptedException {
+        acquire();
+        try {
+            return ElideProcessMonitor.run(command, cwd);
+        } finally {
+            release();
+        }
+    }
+
+    // Wait for a permit on behalf of a task whose Elide process Gradle starts itself (i.e. a forked compiler); the
+    // permit is held until Gradle reports that the task has finished, however it finishes.
+    void holdUntilFinished(String taskPath) throws InterruptedException {
+        acquire();
+        synchronized (held) {
+            held.merge(taskPath, 1, Integer::sum);
+        }
+    }
+
+    @Override
+    public void onFinish(FinishEvent event) {
+        if (!(event instanceof TaskFinishEvent taskEvent)) {
+            return;
+        }
+        Integer count;
+        synchronized (held) {
+            count = held.remove(taskEvent.getDescriptor().getTaskPath());
+        }
+        if (count != null) {
+            permits().release(count);
+        }
+    }
+
+    private synchronized Semaphore permits() {
+        if (permits == null) {
+            permits = new Semaphore(Math.max(1, maxProcesses()), true);
+        }
+        return permits;
+    }
+
+    // Arguments which apply the heap limit, placed before the Elide subcommand.
+    List<String> heapArgs() {
+        return heapArgs(getParameters().getMaxHeap().getOrNull());
+    }
+
+    // Record the peak RSS of an Elide process which ran a tool; ignored where the platform doesn't expose it.
+    synchronized void observe(String tool, long peakRssBytes) {
+        if (peakRssBytes > 0) {
+            observed.merge(tool, peakRssBytes, Math::max);
+        }
+    }
+
+    // Persist this build's observations; tools which didn't run keep their earlier observation.
+    @Override
+    public synchronized void close() {
+        if (observed.isEmpty()) {
+            return;
+        }
+        var record = getParameters().getRssRecord().get().getAsFile();
+        var props = read(record);
+        observed.forEach((tool, peak) -> props.setProperty(tool, Long.toString(peak)));
+        try {
+            Files.createDirectories(record.toPath().getParent());
+            var tmp = Files.createTempFile(record.toPath().getParent(), record.getName(), ".tmp");
+            try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                props.store(writer, "Peak RSS of Elide processes, in bytes");
+            }
+            Files.move(tmp, record.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ioe) {
+            logger.debug("Failed to persist Elide RSS observations at '{}'", record, ioe);
+        }
+    }
+
+    // Compute the process limit: the configured maximum, lowered so that processes at the largest observed peak RSS
+    // (or at the heap limit, before anything has been observed) fit within the memory budget. Never less than one.
+    static int adaptiveLimit(File record, int configured, String maxHeap) {
+        var peak = read(record).values().stream()
+                .mapToLong(it -> parseBytes((String) it))
+                .max()
+                .orElse(heapBytes(maxHeap));
+        if (peak <= 0) {
+            return Math.max(1, configured);
+        }
+        var os = (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        var fits = (long) (os.getTotalMemorySize() * memoryBudget) / peak;
+        var limit = (int) Math.max(1, Math.min(configured, fits));
+        if (limit < configured) {
+            logger.info("Limiting Elide to {} concurrent process(es), at an observed peak RSS of {} MiB",
+                    limit,
+                    peak / (1024 * 1024));
+        }
+        return limit;
+    }
+
+    // Arguments which apply a heap limit, placed before the Elide subcommand.
+    static List<String> heapArgs(String maxHeap) {
+        var args = new ArrayList<String>(1);
+        if (maxHeap != null && !maxHeap.isBlank()) {
+            args.add("-Xmx" + maxHeap.trim());
+        }
+        return args;
+    }
+
+    // Parse a heap size in `-Xmx` notation (`512m`, `2g`) into bytes; `-1` if there isn't one.
+    private static long heapBytes(String maxHeap) {
+        if (maxHeap == null || maxHeap.isBlank()) {
+            return -1;
+        }
+        var value = maxHeap.trim().toLowerCase(Locale.ROOT);
+        var unit = switch (value.charAt(value.length() - 1)) {
+            case 'k' -> 1024L;
+            case 'm' -> 1024L * 1024;
+            case 'g' -> 1024L * 1024 * 1024;
+            default -> 1L;
+        };
+        var digits = unit == 1 ? value : value.substring(0, value.length() - 1);
+        var parsed = parseBytes(digits);
+        return parsed < 0 ? -1 : parsed * unit;
+    }
+
+    private static long parseBytes(String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException nfe) {
+            return -1;
+        }
+    }
+
+    private static Properties read(File record) {
+        var props = new Properties();
+        if (record.exists()) {
+            try (Reader reader = Files.newBufferedReader(record.toPath(), StandardCharsets.UTF_8)) {
+                props.load(reader);
+            } catch (IOException | IllegalArgumentException e) {
+                logger.debug("Failed to read Elide RSS observations at '{}'", record, e);
+                props.clear();
+            }
+        }
+        return props;
+    }
+}
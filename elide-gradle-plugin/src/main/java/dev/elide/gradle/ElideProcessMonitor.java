@@ -0,0 +1,100 @@
+package dev.elide.gradle;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Runs a subprocess while sampling its resource usage; used where the plugin needs to report on the cost of a process
+// (spawn latency, wall and CPU time, and peak resident memory) rather than just its output.
+final class ElideProcessMonitor {
+    // Interval between resident-memory samples.
+    private static final long sampleIntervalMillis = 10;
+
+    private ElideProcessMonitor() {}
+
+    // Resource usage of a process which has exited. Times are in milliseconds; CPU time and peak RSS are `-1` where the
+    // platform does not expose them.
+    record Stats(int exitCode, long spawnMillis, long wallMillis, long cpuMillis, long peakRssBytes) {}
+
+    // Outcome of a monitored process.
+    record Result(Stats stats, String output) {
+        int exitCode() {
+            return stats.exitCode();
+        }
+
+        long wallMillis() {
+            return stats.wallMillis();
+        }
+
+        long peakRssBytes() {
+            return stats.peakRssBytes();
+        }
+    }
+
+    // Run the provided command to completion in the provided directory, sampling its resource usage.
+    static Result run(List<String> command, File cwd) throws IOException, InterruptedException {
+        var start = System.nanoTime();
+        var proc = new ProcessBuilder(command)
+                .directory(cwd)
+                .redirectErrorStream(true)
+                .start();
+        var spawned = System.nanoTime();
+
+        var output = new ByteArrayOutputStream();
+        var drain = Thread.ofVirtual().start(() -> {
+            try (InputStream in = proc.getInputStream()) {
+                in.transferTo(output);
+            } catch (IOException ioe) {
+                // the process went away; whatever was read is kept
+            }
+        });
+
+        var stats = await(proc, start, spawned);
+        drain.join();
+        return new Result(stats, output.toString(StandardCharsets.UTF_8));
+    }
+
+    // Wait for a process to exit, sampling its peak RSS and CPU time until it does; `start` and `spawned` are the
+    // `System.nanoTime()` before and after the process was started.
+    static Stats await(Process proc, long start, long spawned) throws InterruptedException {
+        var peak = -1L;
+        var cpu = -1L;
+        while (!proc.waitFor(sampleIntervalMillis, TimeUnit.MILLISECONDS)) {
+            peak = Math.max(peak, peakRss(proc.pid()));
+            cpu = Math.max(cpu, proc.info().totalCpuDuration().map(Duration::toMillis).orElse(-1L));
+        }
+        return new Stats(
+                proc.exitValue(),
+                (spawned - start) / 1_000_000,
+                (System.nanoTime() - start) / 1_000_000,
+                cpu,
+                peak);
+    }
+
+    // Read the resident-memory high-water mark for a process, in bytes; `-1` if it is unavailable.
+    static long peakRss(long pid) {
+        Path status = Paths.get("/proc", Long.toString(pid), "status");
+        if (!Files.isReadable(status)) {
+            return -1;
+        }
+        try {
+            for (var line : Files.readAllLines(status, StandardCharsets.UTF_8)) {
+                if (line.startsWith("VmHWM:")) {
+                    var parts = line.substring("VmHWM:".length()).trim().split("\\s+");
+                    return Long.parseLong(parts[0]) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // the process exited between the check and the read
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,134 @@
+package dev.elide.gradle;
+
+import groovy.json.JsonOutput;
+import groovy.json.JsonSlurper;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.work.DisableCachingByDefault;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Aggregates the per-task reports written by `ElideCompilerRaceTask` into one JSON and HTML report for the project.
+@DisableCachingByDefault(because = "Aggregation is cheap, and inputs are machine-specific timings")
+public abstract class ElideRaceReportTask extends DefaultTask {
+    // Per-task race reports to aggregate.
+    @InputFiles
+    @PathSensitive(PathSensitivity.NONE)
+    public abstract ConfigurableFileCollection getReports();
+
+    // Aggregate report, in JSON.
+    @OutputFile
+    public abstract RegularFileProperty getJsonReport();
+
+    // Aggregate report, in HTML.
+    @OutputFile
+    public abstract RegularFileProperty getHtmlReport();
+
+    public ElideRaceReportTask() {
+        setGroup("Elide");
+        setDescription("Aggregates Elide vs. javac race results into a single report.");
+    }
+
+    @TaskAction
+    @SuppressWarnings("unchecked")
+    public void aggregate() throws IOException {
+        var slurper = new JsonSlurper();
+        var tasks = new ArrayList<Map<String, Object>>();
+        for (var report : getReports().getFiles()) {
+            if (report.exists()) {
+                tasks.add((Map<String, Object>) slurper.parse(report, StandardCharsets.UTF_8.name()));
+            }
+        }
+
+        long elideMillis = 0;
+        long javacMillis = 0;
+        var matching = 0;
+        for (var task : tasks) {
+            elideMillis += ((Number) ((Map<String, Object>) task.get("elide")).get("wallMillis")).longValue();
+            javacMillis += ((Number) ((Map<String, Object>) task.get("javac")).get("wallMillis")).longValue();
+            if (Boolean.TRUE.equals(((Map<String, Object>) task.get("parity")).get("matches"))) {
+                matching += 1;
+            }
+        }
+        var totals = new LinkedHashMap<String, Object>();
+        totals.put("tasks", tasks.size());
+        totals.put("matchingOutputs", matching);
+        totals.put("elideWallMillis", elideMillis);
+        totals.put("javacWallMillis", javacMillis);
+        totals.put("speedup", elideMillis > 0 ? (double) javacMillis / elideMillis : null);
+
+        var aggregate = new LinkedHashMap<String, Object>();
+        aggregate.put("totals", totals);
+        aggregate.put("tasks", tasks);
+
+        var json = getJsonReport().get().getAsFile().toPath();
+        Files.createDirectories(json.getParent());
+        Files.writeString(json, JsonOutput.prettyPrint(JsonOutput.toJson(aggregate)), StandardCharsets.UTF_8);
+
+        var html = getHtmlReport().get().getAsFile().toPath();
+        Files.createDirectories(html.getParent());
+        Files.writeString(html, renderHtml(totals, tasks), StandardCharsets.UTF_8);
+        getLogger().lifecycle("Elide race report written to {}", html.toUri());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String renderHtml(Map<String, Object> totals, List<Map<String, Object>> tasks) {
+        var out = new StringBuilder();
+        out.append("<!doctype html>\n<html><head><meta charset=\"utf-8\"><title>Elide vs. javac</title>\n")
+                .append("<style>body{font-family:sans-serif}td,th{padding:4px 8px;text-align:right}")
+                .append("td:first-child,th:first-child{text-align:left}.bad{color:#b00}</style></head><body>\n")
+                .append("<h1>Elide vs. javac</h1>\n")
+                .append("<p>").append(totals.get("tasks")).append(" task(s); elide ")
+                .append(totals.get("elideWallMillis")).append("ms, javac ")
+                .append(totals.get("javacWallMillis")).append("ms; ")
+                .append(totals.get("matchingOutputs")).append(" with identical output.</p>\n")
+                .append("<table><tr><th>Task</th><th>Sources</th><th>Elide (ms)</th><th>javac (ms)</th>")
+                .append("<th>Elide peak RSS (MiB)</th><th>javac peak RSS (MiB)</th><th>Speedup</th>")
+                .append("<th>Parity</th></tr>\n");
+        for (var task : tasks) {
+            var elide = (Map<String, Object>) task.get("elide");
+            var javac = (Map<String, Object>) task.get("javac");
+            var parity = (Map<String, Object>) task.get("parity");
+            var matches = Boolean.TRUE.equals(parity.get("matches"));
+            var speedup = task.get("speedup");
+            out.append("<tr><td>").append(escape(String.valueOf(task.get("task")))).append("</td>")
+                    .append("<td>").append(task.get("sources")).append("</td>")
+                    .append("<td>").append(elide.get("wallMillis")).append("</td>")
+                    .append("<td>").append(javac.get("wallMillis")).append("</td>")
+                    .append("<td>").append(mebibytes(elide.get("peakRssBytes"))).append("</td>")
+                    .append("<td>").append(mebibytes(javac.get("peakRssBytes"))).append("</td>")
+                    .append("<td>").append(speedup == null
+                            ? "-"
+                            : String.format("%.2fx", ((Number) speedup).doubleValue())).append("</td>")
+                    .append(matches
+                            ? "<td>identical</td>"
+                            : "<td class=\"bad\">" + (((List<?>) parity.get("different")).size()
+                                    + ((List<?>) parity.get("onlyElide")).size()
+                                    + ((List<?>) parity.get("onlyJavac")).size()) + " differing</td>")
+                    .append("</tr>\n");
+        }
+        out.append("</table></body></html>\n");
+        return out.toString();
+    }
+
+    private static String mebibytes(Object bytes) {
+        var value = ((Number) bytes).longValue();
+        return value < 0 ? "-" : Long.toString(value / (1024 * 1024));
+    }
+
+    private static String escape(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
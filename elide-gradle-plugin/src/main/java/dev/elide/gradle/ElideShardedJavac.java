@@ -0,0 +1,232 @@
+package dev.elide.gradle;
+
+import org.gradle.api.Action;
+import org.gradle.api.GradleException;
+import org.gradle.api.Task;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.compile.JavaCompile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+// Replaces the action of a `JavaCompile` task which is wired to Elide, for source sets too large for a single `elide
+// javac` to win. The package dependency graph of the sources is split into waves of independent shards (see
+// `ElidePackageGraph`); each wave is compiled by parallel Elide processes against the outputs of earlier waves, and the
+// outputs of every shard are then moved into the task's destination directory. If any shard fails to compile, the
+// whole source set is compiled again in a single shot, so that errors (and output) are exactly those of one compile.
+// Annotation processors may aggregate across packages, and a module can't be split across compiles, so source sets with
+// processors or a `module-info.java` are always compiled in one shot. Modular source sets are compiled against a module
+// path, split from the classpath as Gradle would: entries which are modules (with a `module-info.class`, or an
+// `Automatic-Module-Name`) go on the module path, and the rest stay on the classpath.
+final class ElideShardedJavac implements Action<Task> {
+    // Minimum number of sources per shard; smaller source sets are compiled in fewer shards, or in one shot.
+    static final int MIN_SOURCES_PER_SHARD = 1000;
+
+    private final String elide;
+    private final Provider<ElideProcessLimiter> limiter;
+    private final Provider<ElideTelemetryService> telemetry;
+
+    ElideShardedJavac(
+            String elide,
+            Provider<ElideProcessLimiter> limiter,
+            Provider<ElideTelemetryService> telemetry) {
+        this.elide = elide;
+        this.limiter = limiter;
+        this.telemetry = telemetry;
+    }
+
+    @Override
+    public void execute(Task task) {
+        var compile = (JavaCompile) task;
+        var destination = compile.getDestinationDirectory().get().getAsFile().toPath();
+        var work = task.getTemporaryDir().toPath();
+        var sources = compile.getSource().getFiles();
+        var compilerArgs = ElideGradlePlugin.compilerArgs(compile);
+        var processors = compile.getOptions().getAnnotationProcessorPath();
+        var modular = compile.getModularity().getInferModulePath().get()
+                && sources.stream().anyMatch(file -> file.getName().equals("module-info.java"));
+        var shardable = !modular
+                && ((processors == null || processors.isEmpty()) || compilerArgs.contains("-proc:none"));
+        var maxShards = Math.min(limiter.get().maxProcesses(), sources.size() / MIN_SOURCES_PER_SHARD);
+        try {
+            ElideClasspaths.clean(work);
+            if (shardable && maxShards > 1) {
+                var packages = ElidePackageGraph.packages(sources);
+                var sourceCounts = new HashMap<String, Integer>();
+                packages.values().forEach(pkg -> sourceCounts.merge(pkg, 1, Integer::sum));
+                var waves = ElidePackageGraph.plan(ElidePackageGraph.dependencies(packages), sourceCounts, maxShards);
+                task.getLogger().info("Compiling {} source(s) of '{}' with Elide in {} wave(s) of up to {} shard(s)",
+                        sources.size(),
+                        task.getPath(),
+                        waves.size(),
+                        maxShards);
+                if (compileSharded(compile, compilerArgs, work, packages, waves)) {
+                    ElideClasspaths.clean(destination);
+                    try (var shards = Files.list(work.resolve("shards"))) {
+                        for (var shard : shards.toList()) {
+                            moveTree(shard, destination);
+                        }
+                    }
+                    return;
+                }
+                task.getLogger().warn("Sharded Elide compile of '{}' failed; compiling in a single shot",
+                        task.getPath());
+                ElideClasspaths.clean(work);
+            }
+            ElideClasspaths.clean(destination);
+            var result = compile(compile, compilerArgs, modular, work, "single", destination, sources, List.of());
+            if (result.exitCode() != 0) {
+                task.getLogger().error(result.output());
+                throw new GradleException("Compilation failed; see the compiler error output for details.");
+            }
+            if (!result.output().isBlank()) {
+                task.getLogger().warn(result.output());
+            }
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        } catch (InterruptedException ixr) {
+            Thread.currentThread().interrupt();
+            throw new GradleException("Interrupted while compiling with Elide", ixr);
+        }
+    }
+
+    // Compile each wave in turn, with its shards in parallel; returns `false` as soon as any shard fails.
+    private boolean compileSharded(
+            JavaCompile compile,
+            List<String> compilerArgs,
+            Path work,
+            Map<File, String> packages,
+            List<List<Set<String>>> waves) throws IOException, InterruptedException {
+        var compiled = new ArrayList<Path>();
+        var outputs = new ArrayList<String>();
+        var shard = 0;
+        for (var wave : waves) {
+            var running = new ArrayList<Future<ElideProcessMonitor.Result>>();
+            var waveOutputs = new ArrayList<Path>();
+            try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (var members : wave) {
+                    var name = "shard-" + shard++;
+                    var output = Files.createDirectories(work.resolve("shards").resolve(name));
+                    var shardSources = packages.entrySet().stream()
+                            .filter(entry -> members.contains(entry.getValue()))
+                            .map(Map.Entry::getKey)
+                            .toList();
+                    var upstream = List.copyOf(compiled);
+                    waveOutputs.add(output);
+                    running.add(executor.submit(() ->
+                            compile(compile, compilerArgs, false, work, name, output, shardSources, upstream)));
+                }
+                for (var result : running) {
+                    var outcome = result.get();
+                    if (outcome.exitCode() != 0) {
+                        compile.getLogger().info("Elide shard failed to compile:\n{}", outcome.output());
+                        return false;
+                    }
+                    if (!outcome.output().isBlank()) {
+                        outputs.add(outcome.output());
+                    }
+                }
+            } catch (ExecutionException ee) {
+                throw new GradleException("Failed to run Elide compile shard", ee.getCause());
+            }
+            compiled.addAll(waveOutputs);
+        }
+        if (!outputs.isEmpty()) {
+            compile.getLogger().warn(String.join("", outputs));
+        }
+        return true;
+    }
+
+    // Compile a set of sources into an output directory, against the task's classpath (and module path, if `modular`)
+    // and the outputs of earlier shards, through an argument file.
+    private ElideProcessMonitor.Result compile(
+            JavaCompile compile,
+            List<String> compilerArgs,
+            boolean modular,
+            Path work,
+            String name,
+            Path output,
+            Iterable<File> sources,
+            List<Path> upstream) throws IOException, InterruptedException {
+        var args = new ArrayList<String>();
+        args.add("-d");
+        args.add(output.toString());
+        var classpath = new ArrayList<String>();
+        var modulePath = new ArrayList<String>();
+        upstream.forEach(dir -> classpath.add(dir.toString()));
+        for (var file : compile.getClasspath().getFiles()) {
+            (modular && ElideClasspaths.isModule(file) ? modulePath : classpath).add(file.getAbsolutePath());
+        }
+        if (!classpath.isEmpty()) {
+            args.add("-classpath");
+            args.add(String.join(File.pathSeparator, classpath));
+        }
+        if (!modulePath.isEmpty()) {
+            args.add("--module-path");
+            args.add(String.join(File.pathSeparator, modulePath));
+        }
+        var processors = compile.getOptions().getAnnotationProcessorPath();
+        if (processors == null || processors.isEmpty()) {
+            args.add("-proc:none");
+        } else {
+            args.add("-processorpath");
+            args.add(processors.getAsPath());
+            var generated = compile.getOptions().getGeneratedSourceOutputDirectory();
+            if (generated.isPresent()) {
+                args.add("-s");
+                args.add(Files.createDirectories(generated.get().getAsFile().toPath()).toString());
+            }
+        }
+        var headers = compile.getOptions().getHeaderOutputDirectory();
+        if (headers.isPresent()) {
+            args.add("-h");
+            args.add(Files.createDirectories(headers.get().getAsFile().toPath()).toString());
+        }
+        args.addAll(compilerArgs);
+        var count = 0;
+        for (var source : sources) {
+            args.add(source.getAbsolutePath());
+            count += 1;
+        }
+        var argfile = work.resolve(name + ".args");
+        Files.write(argfile, args.stream().map(ElideShardedJavac::quote).collect(Collectors.toList()));
+
+        var command = new ArrayList<String>();
+        command.add(elide);
+        command.addAll(limiter.get().heapArgs());
+        command.addAll(List.of("javac", "--", "@" + argfile));
+        var result = limiter.get().run(command, work.toFile());
+        limiter.get().observe("javac", result.peakRssBytes());
+        telemetry.get().record("javac", compile.getPath(), result.stats(), Map.of("sources", count));
+        return result;
+    }
+
+    // Move every file under one directory into another, keeping relative paths; shards never produce the same file.
+    private static void moveTree(Path from, Path to) throws IOException {
+        try (var files = Files.walk(from)) {
+            for (var file : files.filter(Files::isRegularFile).toList()) {
+                var target = to.resolve(from.relativize(file));
+                Files.createDirectories(target.getParent());
+                Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    // Quote an argument for use within a `javac` argument file.
+    private static String quote(String arg) {
+        return "\"" + arg.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
@@ -0,0 +1,93 @@
+package dev.elide.gradle;
+
+import org.gradle.api.logging.Logger;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.file.Path;
+
+// Utilities for running the Elide binary in a subprocess; shared by the plugin and its tasks.
+final class ElideSubprocess {
+    private ElideSubprocess() {}
+
+    // Receives output from a running Elide process, line by line, as it is produced.
+    interface OutputListener {
+        void onLine(boolean stderr, String line);
+
+        // Called once the process exits, with its resource usage.
+        default void onExit(ElideProcessMonitor.Stats stats) {}
+    }
+
+    // Call Elide in a subprocess at the provided path, and with the provided args; capture output and return it as a
+    // string to the caller.
+    static String callCaptured(Path path, File cwd, Logger logger, String... args) {
+        return callStreaming(path, cwd, logger, null, args);
+    }
+
+    // Call Elide in a subprocess, draining stdout and stderr concurrently so that neither pipe can fill up and stall
+    // the process. Each line is forwarded to the logger (and the listener, if any) as it arrives, and the combined
+    // output is returned to the caller. The process's resource usage is sampled while it runs, and reported to the
+    // listener.
+    static String callStreaming(Path path, File cwd, Logger logger, OutputListener listener, String... args) {
+        var allArgs = new String[args.length + 1];
+        allArgs[0] = path.toAbsolutePath().toString();
+        var i = 1;
+        for (var arg : args) {
+            allArgs[i] = arg;
+            i += 1;
+        }
+
+        var subproc = new ProcessBuilder().command(allArgs).directory(cwd);
+        try {
+            var start = System.nanoTime();
+            var proc = subproc.start();
+            var spawned = System.nanoTime();
+            var builder = new StringBuffer();
+            var stdout = drain(proc.getInputStream(), false, builder, logger, listener);
+            var stderr = drain(proc.getErrorStream(), true, builder, logger, listener);
+            var stats = ElideProcessMonitor.await(proc, start, spawned);
+            var exit = stats.exitCode();
+            stdout.join();
+            stderr.join();
+            if (listener != null) {
+                listener.onExit(stats);
+            }
+            if (exit != 0) {
+                // print output
+                logger.error("Elide process exited with code {}: {}", exit, builder);
+                throw new RuntimeException("Elide failed with exit code " + exit);
+            }
+            return builder.toString().trim();
+        } catch (InterruptedException ixr) {
+            throw new RuntimeException("Failed to wait for Elide process", ixr);
+        } catch (IOException ioe) {
+            throw new RuntimeException("Failed to start Elide captured process", ioe);
+        }
+    }
+
+    // Read a process stream to EOF on a virtual thread, forwarding each line as it is read.
+    private static Thread drain(
+            InputStream stream,
+            boolean stderr,
+            StringBuffer builder,
+            Logger logger,
+            OutputListener listener) {
+        return Thread.ofVirtual().start(() -> {
+            try (BufferedReader br = new BufferedReader(new InputStreamReader(stream))) {
+                String line;
+                while ((line = br.readLine()) != null) {
+                    builder.append(line + System.lineSeparator());
+                    logger.info(line);
+                    if (listener != null) {
+                        listener.onLine(stderr, line);
+                    }
+                }
+            } catch (IOException ioe) {
+                logger.debug("Stopped reading Elide process output", ioe);
+            }
+        });
+    }
+}
@@ -0,0 +1,52 @@
+package dev.elide.gradle;
+
+import org.gradle.api.Action;
+import org.gradle.api.Describable;
+import org.gradle.api.Task;
+import org.gradle.api.tasks.TaskAction;
+
+import java.util.HashSet;
+import java.util.Set;
+
+// Swaps the action of a Gradle task type for one of Elide's, leaving every other action on the task in place. Actions
+// added with `doFirst` and `doLast` (by build scripts or other plugins) must keep running around the replacement, so
+// only the task class's own `@TaskAction` methods are taken out. Gradle has no public way to tell those apart, so they
+// are found by the name Gradle gives them ("Execute <method>"); if a Gradle version names them differently, nothing is
+// replaced and the task keeps Gradle's own action, rather than running both.
+final class ElideTaskActions {
+    private ElideTaskActions() {}
+
+    // Replace the task's own action with another, in the same position; returns `false` (and leaves the task as it was)
+    // if the task's own action can't be found.
+    static boolean replaceTaskAction(Task task, Action<? super Task> replacement) {
+        var own = new HashSet<String>();
+        for (Class<?> type = task.getClass(); type != null && type != Object.class; type = type.getSuperclass()) {
+            for (var method : type.getDeclaredMethods()) {
+                if (method.isAnnotationPresent(TaskAction.class)) {
+                    own.add("Execute " + method.getName());
+                }
+            }
+        }
+        var actions = task.getActions();
+        var replaced = false;
+        for (var i = actions.size() - 1; i >= 0; i--) {
+            if (isOwn(actions.get(i), own)) {
+                if (replaced) {
+                    actions.remove(i);
+                } else {
+                    actions.set(i, replacement);
+                    replaced = true;
+                }
+            }
+        }
+        if (!replaced) {
+            task.getLogger().warn("Can't find the action of task '{}' to replace with Elide's; leaving it to Gradle",
+                    task.getPath());
+        }
+        return replaced;
+    }
+
+    private static boolean isOwn(Action<? super Task> action, Set<String> own) {
+        return action instanceof Describable describable && own.contains(describable.getDisplayName());
+    }
+}
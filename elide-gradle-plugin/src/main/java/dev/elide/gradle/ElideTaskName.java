@@ -4,4 +4,7 @@ public abstract class ElideTaskName {
     public static final String ELIDE_TASK_INSTALL = "elideInstall";
     public static final String ELIDE_BUILD = "elideBuild";
     public static final String ELIDE_TEST = "elideTest";
+    public static final String ELIDE_RACE = "elideRace";
+    public static final String ELIDE_RACE_REPORT = "elideRaceReport";
+    public static final String ELIDE_GENERATE_MANIFEST = "elideGenerateManifest";
 }
@@ -0,0 +1,167 @@
+package dev.elide.gradle;
+
+import groovy.json.JsonOutput;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import org.gradle.tooling.events.FinishEvent;
+import org.gradle.tooling.events.OperationCompletionListener;
+import org.gradle.tooling.events.task.TaskFailureResult;
+import org.gradle.tooling.events.task.TaskFinishEvent;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Build-scoped collector of telemetry for every Elide process the plugin runs for tasks: installs, test shards,
+// races, and compiles. Each invocation records its spawn latency, wall time, CPU time, peak RSS, exit status, and what
+// it worked on; at the end of the build, all invocations and per-tool totals are written to
+// `build/reports/elide/telemetry.json` in the root project. Compiles are forked by Gradle rather than by the plugin, so
+// they are timed from Gradle's task events, and have no CPU or RSS figures.
+public abstract class ElideTelemetryService
+        implements BuildService<ElideTelemetryService.Params>, OperationCompletionListener, AutoCloseable {
+    // Name of the shared service, as registered with Gradle.
+    static final String SERVICE_NAME = "elideTelemetry";
+
+    private static final Logger logger = Logging.getLogger(ElideTelemetryService.class);
+
+    public interface Params extends BuildServiceParameters {
+        // JSON report written at the end of the build.
+        RegularFileProperty getReportFile();
+    }
+
+    // One Elide process. Times are in milliseconds; CPU time and peak RSS are `-1` where they weren't measured.
+    record Invocation(
+            String tool,
+            String task,
+            long spawnMillis,
+            long wallMillis,
+            long cpuMillis,
+            long peakRssBytes,
+            int exitCode,
+            Map<String, Integer> counts) {}
+
+    // A compile task which runs through Elide, awaiting its finish event.
+    private record Expected(String tool, Map<String, Integer> counts) {}
+
+    private final List<Invocation> invocations = new ArrayList<>();
+    private final Map<String, Expected> expected = new HashMap<>();
+
+    // Record a process run by the plugin.
+    synchronized void record(Invocation invocation) {
+        invocations.add(invocation);
+    }
+
+    // Record a process from its measurements.
+    void record(String tool, String task, ElideProcessMonitor.Stats stats, Map<String, Integer> counts) {
+        record(new Invocation(
+                tool,
+                task,
+                stats.spawnMillis(),
+                stats.wallMillis(),
+                stats.cpuMillis(),
+                stats.peakRssBytes(),
+                stats.exitCode(),
+                counts));
+    }
+
+    // Announce that a task is about to run a tool through Elide; it is recorded once Gradle reports it as finished.
+    synchronized void expect(String taskPath, String tool, Map<String, Integer> counts) {
+        expected.put(taskPath, new Expected(tool, counts));
+    }
+
+    @Override
+    public void onFinish(FinishEvent event) {
+        if (!(event instanceof TaskFinishEvent taskEvent)) {
+            return;
+        }
+        Expected task;
+        synchronized (this) {
+            task = expected.remove(taskEvent.getDescriptor().getTaskPath());
+        }
+        if (task == null) {
+            return;
+        }
+        var result = taskEvent.getResult();
+        record(new Invocation(
+                task.tool(),
+                taskEvent.getDescriptor().getTaskPath(),
+                -1,
+                result.getEndTime() - result.getStartTime(),
+                -1,
+                -1,
+                result instanceof TaskFailureResult ? 1 : 0,
+                task.counts()));
+    }
+
+    // Per-tool totals, as short strings; published as build scan values, where build scans are enabled.
+    synchronized Map<String, String> summary() {
+        var summary = new TreeMap<String, String>();
+        totals().forEach((tool, totals) -> summary.put(
+                "Elide " + tool,
+                totals.get("invocations") + " run(s), " + totals.get("wallMillis") + "ms wall, "
+                        + totals.get("peakRssBytes") + " bytes peak RSS"));
+        return summary;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (invocations.isEmpty()) {
+            return;
+        }
+        var runs = new ArrayList<Map<String, Object>>();
+        for (var invocation : invocations) {
+            var run = new LinkedHashMap<String, Object>();
+            run.put("tool", invocation.tool());
+            run.put("task", invocation.task());
+            run.put("spawnMillis", invocation.spawnMillis());
+            run.put("wallMillis", invocation.wallMillis());
+            run.put("cpuMillis", invocation.cpuMillis());
+            run.put("peakRssBytes", invocation.peakRssBytes());
+            run.put("exitCode", invocation.exitCode());
+            run.put("counts", invocation.counts());
+            runs.add(run);
+        }
+        var report = new LinkedHashMap<String, Object>();
+        report.put("generatedAt", Instant.now().toString());
+        report.put("totals", totals());
+        report.put("invocations", runs);
+        var reportFile = getParameters().getReportFile().get().getAsFile().toPath();
+        try {
+            Files.createDirectories(reportFile.getParent());
+            Files.writeString(reportFile, JsonOutput.prettyPrint(JsonOutput.toJson(report)), StandardCharsets.UTF_8);
+        } catch (IOException ioe) {
+            logger.warn("Failed to write Elide telemetry to '{}'", reportFile, ioe);
+        }
+    }
+
+    private Map<String, Map<String, Long>> totals() {
+        var totals = new TreeMap<String, Map<String, Long>>();
+        for (var invocation : invocations) {
+            var tool = totals.computeIfAbsent(invocation.tool(), _ -> {
+                var empty = new LinkedHashMap<String, Long>();
+                empty.put("invocations", 0L);
+                empty.put("failures", 0L);
+                empty.put("wallMillis", 0L);
+                empty.put("cpuMillis", 0L);
+                empty.put("peakRssBytes", -1L);
+                return empty;
+            });
+            tool.merge("invocations", 1L, Long::sum);
+            tool.merge("failures", invocation.exitCode() != 0 ? 1L : 0L, Long::sum);
+            tool.merge("wallMillis", invocation.wallMillis(), Long::sum);
+            tool.merge("cpuMillis", Math.max(0, invocation.cpuMillis()), Long::sum);
+            tool.merge("peakRssBytes", invocation.peakRssBytes(), Math::max);
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,253 @@
+package dev.elide.gradle;
+
+import groovy.json.JsonOutput;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.FileSystemOperations;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Classpath;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.SkipWhenEmpty;
+import org.gradle.api.tasks.TaskAction;
+
+import javax.inject.Inject;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+// Runs compiled JVM test classes on Elide's runtime, through the JUnit Platform. Test classes are spread across several
+// Elide processes ("shards") which run at once; each shard writes JUnit XML results, which are collected where Gradle's
+// `Test` task puts its own, and a timing report is written so runs can be compared with the stock `Test` task.
+//
+// This assumes that `elide test --` hands its arguments to the JUnit Platform console launcher, and so accepts the
+// launcher's own options (`--disable-banner`, `--class-path`, `--reports-dir`, and `--select-class`); see
+// `launcherArguments`. Nothing else about the launcher (i.e. Gradle's test filters, or `Test` task options) is used.
+@CacheableTask
+public abstract class ElideTestTask extends DefaultTask {
+    // Test classes are selected by name, using the same default patterns as Maven Surefire (rather than Gradle's class
+    // scanning, which looks for test annotations); nested classes are run by their enclosing class.
+    private static final Pattern testClassPattern = Pattern.compile("^(Test.*|.*Test|.*Tests|.*TestCase)\\.class$");
+
+    // Directories holding compiled test classes.
+    @InputFiles
+    @SkipWhenEmpty
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public abstract ConfigurableFileCollection getTestClassesDirs();
+
+    // Runtime classpath for tests, including the JUnit Platform.
+    @Classpath
+    public abstract ConfigurableFileCollection getClasspath();
+
+    // Version of Elide which runs the tests, as reported.
+    @Internal
+    public abstract Property<String> getElideVersion();
+
+    // Identity of the Elide binary which runs the tests (its version and content hash).
+    @Input
+    public abstract Property<String> getElideIdentity();
+
+    // Path to the Elide binary; the binary's identity is tracked through `elideIdentity`.
+    @Internal
+    public abstract RegularFileProperty getElideBin();
+
+    // Limit on concurrent Elide processes, which also supplies the heap limit and collects peak RSS observations.
+    @Internal
+    public abstract Property<ElideProcessLimiter> getProcessLimiter();
+
+    // Collector of telemetry for Elide processes; nothing is recorded if unset.
+    @Internal
+    public abstract Property<ElideTelemetryService> getTelemetry();
+
+    // Maximum number of Elide processes to run at once; defaults to the number of available cores, and never exceeds
+    // the build's limit on Elide processes.
+    @Internal
+    public abstract Property<Integer> getMaxShards();
+
+    // JUnit XML results, one directory per shard.
+    @OutputDirectory
+    public abstract DirectoryProperty getResultsDirectory();
+
+    // Timing report, in JSON.
+    @OutputFile
+    public abstract RegularFileProperty getReportFile();
+
+    @Inject
+    protected abstract FileSystemOperations getFileSystemOperations();
+
+    public ElideTestTask() {
+        setGroup("verification");
+        setDescription("Runs the test suite on Elide's runtime, sharded across several processes.");
+        getMaxShards().convention(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TaskAction
+    public void test() throws IOException, InterruptedException {
+        var results = getResultsDirectory().get().getAsFile().toPath();
+        getFileSystemOperations().delete(spec -> spec.delete(results.toFile()));
+        Files.createDirectories(results);
+
+        var limiter = getProcessLimiter().get();
+        var shards = shard(
+                testClasses(getTestClassesDirs().getFiles()),
+                Math.max(1, Math.min(getMaxShards().get(), limiter.maxProcesses())));
+        if (shards.isEmpty()) {
+            getLogger().lifecycle("No test classes found for {}", getPath());
+            return;
+        }
+        var classpath = new ArrayList<File>(getTestClassesDirs().getFiles());
+        classpath.addAll(getClasspath().getFiles());
+        var classpathArg = String.join(File.pathSeparator, classpath.stream().map(File::getAbsolutePath).toList());
+        var elide = getElideBin().get().getAsFile().getAbsolutePath();
+
+        var start = System.nanoTime();
+        var outcomes = new ArrayList<ElideProcessMonitor.Result>();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var running = new ArrayList<Future<ElideProcessMonitor.Result>>();
+            for (var i = 0; i < shards.size(); i++) {
+                var shardDir = Files.createDirectories(results.resolve("shard-" + i));
+                var command = new ArrayList<String>();
+                command.add(elide);
+                command.addAll(limiter.heapArgs());
+                command.addAll(List.of("test", "--"));
+                command.addAll(launcherArguments(classpathArg, shardDir, shards.get(i)));
+                running.add(executor.submit(() -> limiter.run(command, shardDir.toFile())));
+            }
+            for (var i = 0; i < running.size(); i++) {
+                var outcome = running.get(i).get();
+                limiter.observe("test", outcome.peakRssBytes());
+                if (getTelemetry().isPresent()) {
+                    getTelemetry().get().record("test", getPath(), outcome.stats(), Map.of(
+                            "shard", i,
+                            "classes", shards.get(i).size()));
+                }
+                outcomes.add(outcome);
+            }
+        } catch (ExecutionException ee) {
+            throw new GradleException("Failed to run Elide test shard", ee.getCause());
+        }
+        var wall = (System.nanoTime() - start) / 1_000_000;
+
+        var failed = new ArrayList<Integer>();
+        var shardReports = new ArrayList<Map<String, Object>>();
+        for (var i = 0; i < outcomes.size(); i++) {
+            var outcome = outcomes.get(i);
+            Files.writeString(results.resolve("shard-" + i).resolve("output.txt"), outcome.output(),
+                    StandardCharsets.UTF_8);
+            if (outcome.exitCode() != 0) {
+                failed.add(i);
+            }
+            var shardReport = new LinkedHashMap<String, Object>();
+            shardReport.put("classes", shards.get(i));
+            shardReport.put("exitCode", outcome.exitCode());
+            shardReport.put("wallMillis", outcome.wallMillis());
+            shardReport.put("peakRssBytes", outcome.peakRssBytes());
+            shardReports.add(shardReport);
+        }
+
+        var report = new LinkedHashMap<String, Object>();
+        report.put("task", getPath());
+        report.put("elideVersion", getElideVersion().get());
+        report.put("classes", shards.stream().mapToInt(List::size).sum());
+        report.put("wallMillis", wall);
+        report.put("shards", shardReports);
+        var reportFile = getReportFile().get().getAsFile().toPath();
+        Files.createDirectories(reportFile.getParent());
+        Files.writeString(reportFile, JsonOutput.prettyPrint(JsonOutput.toJson(report)), StandardCharsets.UTF_8);
+
+        getLogger().lifecycle("Elide ran {} test class(es) in {} shard(s) in {}ms", report.get("classes"),
+                shards.size(),
+                wall);
+        if (!failed.isEmpty()) {
+            throw new GradleException("Tests failed in Elide shard(s) " + failed + "; see the results in "
+                    + results.toUri());
+        }
+    }
+
+    // Arguments for one shard, after `elide test --`; these are JUnit Platform console launcher options.
+    static List<String> launcherArguments(String classpath, Path reportsDir, List<String> classes) {
+        var args = new ArrayList<String>();
+        args.addAll(List.of(
+                "--disable-banner",
+                "--class-path", classpath,
+                "--reports-dir", reportsDir.toString()));
+        for (var testClass : classes) {
+            args.add("--select-class");
+            args.add(testClass);
+        }
+        return args;
+    }
+
+    // Find test classes in the test class directories, with the size of each class file as a proxy for its cost.
+    static Map<String, Long> testClasses(Collection<File> dirs) throws IOException {
+        var classes = new TreeMap<String, Long>();
+        for (var dir : dirs) {
+            if (!dir.isDirectory()) {
+                continue;
+            }
+            var root = dir.toPath();
+            try (var paths = Files.walk(root)) {
+                for (var path : (Iterable<Path>) paths::iterator) {
+                    var name = path.getFileName().toString();
+                    if (name.contains("$") || !testClassPattern.matcher(name).matches()) {
+                        continue;
+                    }
+                    var relative = root.relativize(path).toString();
+                    var className = relative
+                            .substring(0, relative.length() - ".class".length())
+                            .replace(File.separatorChar, '.');
+                    classes.put(className, Files.size(path));
+                }
+            }
+        }
+        return classes;
+    }
+
+    // Spread test classes across at most `maxShards` shards, assigning the largest remaining class to the least-loaded
+    // shard each time, so that shards finish at roughly the same time.
+    static List<List<String>> shard(Map<String, Long> classes, int maxShards) {
+        var count = Math.min(maxShards, classes.size());
+        var shards = new ArrayList<List<String>>(count);
+        var loads = new long[count];
+        for (var i = 0; i < count; i++) {
+            shards.add(new ArrayList<>());
+        }
+        var bySize = classes.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .toList();
+        for (var entry : bySize) {
+            var lightest = 0;
+            for (var i = 1; i < count; i++) {
+                if (loads[i] < loads[lightest]) {
+                    lightest = i;
+                }
+            }
+            shards.get(lightest).add(entry.getKey());
+            loads[lightest] += Math.max(1, entry.getValue());
+        }
+        return shards;
+    }
+}
@@ -0,0 +1,32 @@
+package dev.elide.gradle;
+
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.ValueSource;
+import org.gradle.api.provider.ValueSourceParameters;
+
+import java.nio.file.Path;
+
+// Whether an Elide binary supports a tool (i.e. `javac`), obtained as an input to configuration, so that the tool is
+// only probed from a value source (see `ElideToolchainService.supports`). Like the binary's identity, the answer is
+// persisted with the binary's probe, and is probed again once the binary changes.
+public abstract class ElideToolSupportSource implements ValueSource<Boolean, ElideToolSupportSource.Params> {
+    public interface Params extends ValueSourceParameters {
+        // Path to the Elide binary.
+        Property<String> getBinary();
+
+        // Directory where probe results are persisted (under the Gradle user home).
+        DirectoryProperty getCacheDirectory();
+
+        // Name of the tool to probe.
+        Property<String> getTool();
+    }
+
+    @Override
+    public Boolean obtain() {
+        return ElideToolchainService.supports(
+                getParameters().getCacheDirectory().get().getAsFile().toPath(),
+                Path.of(getParameters().getBinary().get()),
+                getParameters().getTool().get());
+    }
+}
@@ -0,0 +1,284 @@
+package dev.elide.gradle;
+
+import org.gradle.api.file.ArchiveOperations;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.FileSystemOperations;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.Property;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+import javax.inject.Inject;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+// Build-scoped view of the Elide toolchain; each binary is resolved once per build, and pinned versions are resolved
+// from the distribution cache, instead of from the `PATH`. A binary's version and content hash, and its support for
+// each tool an enabled integration needs, are probed through value sources (see `ElideIdentitySource`), so that the
+// configuration cache tracks them. Probe results are persisted under the Gradle user home, keyed on the binary's real
+// path, size, and mtime, so that later builds can skip the probes entirely.
+public abstract class ElideToolchainService implements BuildService<ElideToolchainService.Params> {
+    // Name of the shared service, as registered with Gradle.
+    static final String SERVICE_NAME = "elideToolchain";
+
+    // Binary name for Elide.
+    private static final String elideBinName = "elide";
+
+    // Version of the on-disk probe record format; bump to invalidate persisted probes.
+    private static final String probeFormat = "3";
+
+    // Prefix of the probe record properties which hold tool support (i.e. `tool.javac=true`).
+    private static final String toolPrefix = "tool.";
+
+    // Separates a binary's version from its content hash, in its identity.
+    private static final String identitySeparator = " (sha256:";
+
+    // Maximum time to wait for a single probe process.
+    private static final long probeTimeoutSeconds = 30;
+
+    private static final Logger logger = Logging.getLogger(ElideToolchainService.class);
+
+    public interface Params extends BuildServiceParameters {
+        // Directory where probe results are persisted (under the Gradle user home).
+        DirectoryProperty getCacheDirectory();
+
+        // Value of the `PATH` to search for Elide.
+        Property<String> getSearchPath();
+
+        // User home directory; `~/elide/elide` is checked after the `PATH`.
+        Property<String> getUserHome();
+
+        // Directory holding downloaded Elide distributions (under the Gradle user home).
+        DirectoryProperty getDistributionsDirectory();
+
+        // Base URL for Elide distributions.
+        Property<String> getDistributionUrl();
+
+        // Whether Gradle is running offline; distributions which aren't cached can't be downloaded.
+        Property<Boolean> getOffline();
+    }
+
+    // Version and content hash of a binary, and whether it supports each tool probed so far; `record` is the file which
+    // persists it.
+    private record Probe(String version, String sha256, Map<String, Boolean> tools, Path record) {}
+
+    private Path resolved = null;
+    // Binaries resolved for pinned versions, keyed on the version and the pinned checksum (if any); projects may pin
+    // the same version with different checksums, and each checksum has to be verified.
+    private final Map<String, Path> pinned = new HashMap<>();
+    private final Set<String> warned = new HashSet<>();
+    private boolean announced = false;
+
+    @Inject
+    protected abstract ArchiveOperations getArchiveOperations();
+
+    @Inject
+    protected abstract FileSystemOperations getFileSystemOperations();
+
+    // Resolve the path to use when invoking the Elide binary found on the `PATH` (or in the user's home).
+    synchronized Path elide() {
+        if (resolved == null) {
+            resolved = resolvePathToElide();
+            logger.debug("Elide resolved to '{}'", resolved);
+        }
+        return resolved;
+    }
+
+    // Resolve the path to use when invoking Elide at a pinned version, from the distribution cache; if no version is
+    // pinned, the binary on the `PATH` is used.
+    synchronized Path elide(String version, String checksum) {
+        if (version == null || version.isBlank()) {
+            return elide();
+        }
+        var pinnedVersion = version.trim();
+        var pinnedChecksum = checksum == null || checksum.isBlank() ? "" : checksum.trim().toLowerCase(Locale.ROOT);
+        return pinned.computeIfAbsent(pinnedVersion + "@" + pinnedChecksum, _ -> {
+            var cache = new ElideDistributionCache(
+                    getParameters().getDistributionsDirectory().get().getAsFile().toPath(),
+                    getParameters().getDistributionUrl().get(),
+                    getParameters().getOffline().get(),
+                    getArchiveOperations(),
+                    getFileSystemOperations());
+            var path = cache.resolve(pinnedVersion, checksum);
+            logger.debug("Elide {} resolved to '{}'", pinnedVersion, path);
+            return path;
+        });
+    }
+
+    // Identity of a binary, for use in cache keys: its version and the SHA-256 of its content. Unlike its path, this is
+    // the same on every machine which has the same binary, so that task outputs can be shared through the build cache.
+    // The probe persisted for the binary in the cache directory is used, if there is one; otherwise it's probed first.
+    // Probes spawn the binary, so they only run from value sources (see `ElideIdentitySource`).
+    static String identity(Path cacheDirectory, Path elide) {
+        var probe = probe(cacheDirectory, elide);
+        return probe.version() + identitySeparator + probe.sha256() + ")";
+    }
+
+    // Version string reported by a binary, from its identity.
+    static String version(String identity) {
+        var separator = identity.lastIndexOf(identitySeparator);
+        return separator < 0 ? identity : identity.substring(0, separator);
+    }
+
+    // Determine whether a binary supports the provided tool (i.e. `javac`), by asking it for the tool's help output the
+    // first time, and persisting the answer with the binary's probe (see `ElideToolSupportSource`).
+    static boolean supports(Path cacheDirectory, Path elide, String tool) {
+        var probe = probe(cacheDirectory, elide);
+        var supported = probe.tools().get(tool);
+        if (supported == null) {
+            supported = probeTool(elide, tool);
+            probe.tools().put(tool, supported);
+            persist(probe);
+        }
+        return supported;
+    }
+
+    // Report a tool which the binary doesn't support; once per build and tool.
+    synchronized void warnUnsupported(String version, String tool) {
+        if (warned.add(tool)) {
+            logger.warn("Elide {} doesn't support `{}`; using Gradle's own", version, tool);
+        }
+    }
+
+    // Returns `true` exactly once per build; used to announce the active Elide version a single time.
+    synchronized boolean announce() {
+        if (announced) {
+            return false;
+        }
+        announced = true;
+        return true;
+    }
+
+    private Path resolvePathToElide() {
+        var pathSplit = getParameters().getSearchPath().getOrElse("").split(File.pathSeparator);
+        var elideViaPath = Arrays.stream(pathSplit)
+                .filter(p -> !p.isEmpty())
+                .map(Paths::get)
+                .map(p -> p.resolve(elideBinName))
+                .filter(Files::exists)
+                .filter(Files::isExecutable)
+                .findFirst();
+
+        // prefer elide on the user's path
+        if (elideViaPath.isPresent()) {
+            return elideViaPath.get().toAbsolutePath();
+        }
+
+        // try the user's home?
+        var elideWithinHome = Paths.get(getParameters().getUserHome().get())
+                .resolve("elide")
+                .resolve(elideBinName);
+        if (Files.exists(elideWithinHome) && Files.isExecutable(elideWithinHome)) {
+            return elideWithinHome.toAbsolutePath();
+        }
+        throw new RuntimeException("Failed to find `elide` on your PATH; is it installed? Alternatively, pin a version "
+                + "with `elideVersion`, and the plugin will download it.");
+    }
+
+    // Load persisted probe results for a binary from a cache directory, or probe it and persist the results.
+    private static Probe probe(Path cacheDirectory, Path elide) {
+        var record = cacheDirectory.resolve(probeKey(elide));
+        var props = new Properties();
+        if (Files.exists(record)) {
+            try (Reader reader = Files.newBufferedReader(record, StandardCharsets.UTF_8)) {
+                props.load(reader);
+            } catch (IOException ioe) {
+                logger.debug("Failed to read Elide probe record at '{}'; re-probing", record, ioe);
+                props.clear();
+            }
+        }
+        if (probeFormat.equals(props.getProperty("format")) && props.getProperty("version") != null) {
+            var tools = new TreeMap<String, Boolean>();
+            for (var key : props.stringPropertyNames()) {
+                if (key.startsWith(toolPrefix)) {
+                    tools.put(key.substring(toolPrefix.length()), Boolean.parseBoolean(props.getProperty(key)));
+                }
+            }
+            return new Probe(props.getProperty("version"), props.getProperty("sha256"), tools, record);
+        }
+
+        var version = ElideSubprocess.callCaptured(elide, elide.getParent().toFile(), logger, "--version")
+                .replace("\n", "");
+        var probe = new Probe(version, contentHash(elide), new TreeMap<>(), record);
+        persist(probe);
+        return probe;
+    }
+
+    // Persist a probe, along with every tool probed so far.
+    private static void persist(Probe probe) {
+        var props = new Properties();
+        props.setProperty("format", probeFormat);
+        props.setProperty("version", probe.version());
+        props.setProperty("sha256", probe.sha256());
+        probe.tools().forEach((tool, supported) -> props.setProperty(toolPrefix + tool, supported.toString()));
+        var record = probe.record();
+        try {
+            Files.createDirectories(record.getParent());
+            var tmp = Files.createTempFile(record.getParent(), record.getFileName().toString(), ".tmp");
+            try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                props.store(writer, "Elide toolchain probe");
+            }
+            Files.move(tmp, record, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ioe) {
+            logger.debug("Failed to persist Elide probe record at '{}'", record, ioe);
+        }
+    }
+
+    // Probe whether the binary supports a given tool, by asking it for the tool's help output.
+    private static boolean probeTool(Path elide, String tool) {
+        try {
+            var proc = new ProcessBuilder(elide.toString(), tool, "--help")
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            if (!proc.waitFor(probeTimeoutSeconds, TimeUnit.SECONDS)) {
+                proc.destroyForcibly();
+                return false;
+            }
+            return proc.exitValue() == 0;
+        } catch (IOException ioe) {
+            return false;
+        } catch (InterruptedException ixr) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // SHA-256 of a binary's content.
+    private static String contentHash(Path elide) {
+        try {
+            return ElideDigests.sha256(elide.toRealPath());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to hash Elide binary at '" + elide + "'", e);
+        }
+    }
+
+    // Compute the probe record name for a binary, from its path, size, and modification time.
+    private static String probeKey(Path elide) {
+        try {
+            var attrs = Files.readAttributes(elide.toRealPath(), BasicFileAttributes.class);
+            var identity = elide.toRealPath() + "|" + attrs.size() + "|" + attrs.lastModifiedTime().toMillis();
+            return ElideDigests.sha256(identity) + ".properties";
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to compute identity of Elide binary at '" + elide + "'", e);
+        }
+    }
+}
@@ -1,12 +1,26 @@
 package com.example.plugin;
 
+import dev.elide.gradle.ElideExtension;
+import dev.elide.gradle.ElideInstallTask;
 import org.gradle.testfixtures.ProjectBuilder;
 import org.gradle.api.Project;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 
 public class ElidePluginTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
     @Test
     public void pluginDoesntFailTheBuild() {
         // Create a test project and apply the plugin
@@ -16,4 +30,46 @@ public class ElidePluginTest {
         // Verify the result
         // assertNotNull(project.getTasks().findByName("tasks"));
     }
+
+    @Test
+    public void registersElideTestForJavaProjects() {
+        Project project = ProjectBuilder.builder().build();
+        project.getPlugins().apply("java");
+        project.getPlugins().apply("dev.elide");
+
+        assertNotNull(project.getTasks().findByName("elideTest"));
+    }
+
+    @Test
+    public void classpathsExtendFromLockedArtifacts() {
+        Project project = ProjectBuilder.builder().build();
+        project.getPlugins().apply("java");
+        project.getPlugins().apply("dev.elide");
+
+        // each classpath has its own locked artifacts, so that main classpaths never see test dependencies.
+        var configurations = project.getConfigurations();
+        assertTrue(configurations.getByName("compileClasspath").getExtendsFrom()
+                .contains(configurations.getByName("elideLockedCompileClasspath")));
+        assertTrue(configurations.getByName("testRuntimeClasspath").getExtendsFrom()
+                .contains(configurations.getByName("elideLockedTestRuntimeClasspath")));
+        assertFalse(configurations.getByName("compileClasspath").getExtendsFrom()
+                .contains(configurations.getByName("elideLockedTestCompileClasspath")));
+    }
+
+    @Test
+    public void lockfileIsAnInputOfTheInstall() throws IOException {
+        Project project = ProjectBuilder.builder().withProjectDir(tmp.newFolder("project")).build();
+        Files.writeString(project.file("elide.pkl").toPath(), "amends \"elide:project.pkl\"\n");
+        var lockfile = project.file(".dev/elide.lock.bin");
+        Files.createDirectories(lockfile.getParentFile().toPath());
+        Files.write(lockfile.toPath(), new byte[] {1, 2, 3});
+        project.getPlugins().apply("dev.elide");
+        project.getExtensions().getByType(ElideExtension.class).getEnableInstall().set(true);
+
+        // a checked-in lockfile pins the install, and must never be restored from the build cache.
+        var install = (ElideInstallTask) project.getTasks().getByName("elideInstall");
+        assertTrue(install.getInputs().getFiles().getFiles().contains(lockfile));
+        assertFalse(install.getOutputs().getFiles().getFiles().contains(lockfile));
+        assertTrue(install.getOutputs().getFiles().getFiles().contains(project.file(".dev/dependencies/m2")));
+    }
 }
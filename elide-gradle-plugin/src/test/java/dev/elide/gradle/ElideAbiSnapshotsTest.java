@@ -0,0 +1,184 @@
+package dev.elide.gradle;
+
+import org.gradle.api.Project;
+import org.gradle.api.tasks.compile.JavaCompile;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ElideAbiSnapshotsTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void abiHashIgnoresMethodBodies() throws IOException {
+        var original = jar("original", """
+                package lib;
+                public class Lib {
+                    public static final int LIMIT = 3;
+                    public String greet(String name) {
+                        return "Hello, " + name;
+                    }
+                }
+                """);
+        // new constants, a lambda, an assertion, and an anonymous class, all from the body of `greet`.
+        var rewritten = jar("rewritten", """
+                package lib;
+                public class Lib {
+                    public static final int LIMIT = 3;
+                    public String greet(String name) {
+                        assert name != null;
+                        Runnable log = () -> System.out.println(name.length());
+                        log.run();
+                        return new Object() {
+                            @Override
+                            public String toString() {
+                                return "Hi there, " + name;
+                            }
+                        }.toString();
+                    }
+                }
+                """);
+        var resigned = jar("resigned", """
+                package lib;
+                public class Lib {
+                    public static final int LIMIT = 3;
+                    public String greet(CharSequence name) {
+                        return "Hello, " + name;
+                    }
+                }
+                """);
+        var constant = jar("constant", """
+                package lib;
+                public class Lib {
+                    public static final int LIMIT = 4;
+                    public String greet(String name) {
+                        return "Hello, " + name;
+                    }
+                }
+                """);
+
+        var hash = ElideAbiSnapshots.abiHash(original.toPath());
+        assertEquals(hash, ElideAbiSnapshots.abiHash(rewritten.toPath()));
+        assertNotEquals(hash, ElideAbiSnapshots.abiHash(resigned.toPath()));
+        assertNotEquals(hash, ElideAbiSnapshots.abiHash(constant.toPath()));
+    }
+
+    @Test
+    public void swapsTheCompileClasspathForSnapshots() throws IOException {
+        var lib = jar("lib", """
+                package lib;
+                public class Lib {
+                    public int answer() {
+                        return 42;
+                    }
+                }
+                """);
+        var classes = tmp.newFolder("classes");
+
+        Project project = ProjectBuilder.builder().withProjectDir(tmp.newFolder("project")).build();
+        project.getPlugins().apply("java");
+        var compile = (JavaCompile) project.getTasks().getByName("compileJava");
+        compile.setClasspath(project.files(lib, classes));
+        var snapshotDir = new File(tmp.getRoot(), "abi");
+        var snapshots = project.getGradle().getSharedServices().registerIfAbsent(
+                "snapshots", ElideAbiSnapshots.class, spec ->
+                        spec.getParameters().getSnapshotDirectory().set(snapshotDir));
+
+        new ElideAbiClasspath(snapshots, project.getObjects().fileCollection()).execute(compile);
+
+        // the jar is replaced by its snapshot, named for its ABI hash, and the class directory is kept as it is.
+        var snapshot = new File(snapshotDir, ElideAbiSnapshots.abiHash(lib.toPath()) + ".jar");
+        assertEquals(Set.of(snapshot, classes), compile.getClasspath().getFiles());
+        try (var original = new ZipFile(lib); var stripped = new ZipFile(snapshot)) {
+            var classFile = original.getInputStream(original.getEntry("lib/Lib.class")).readAllBytes();
+            var strippedFile = stripped.getInputStream(stripped.getEntry("lib/Lib.class")).readAllBytes();
+            assertTrue(strippedFile.length < classFile.length);
+            assertArrayEquals(ElideAbiSnapshots.abi(classFile), ElideAbiSnapshots.abi(strippedFile));
+        }
+    }
+
+    @Test
+    public void snapshotsHoldOnlyWhatTheHashCovers() throws IOException {
+        var lib = jar("lib", """
+                package lib;
+                public class Lib {
+                    private int calls;
+                    public String greet(String name) {
+                        Runnable count = () -> calls++;
+                        count.run();
+                        return new Object() {
+                            @Override
+                            public String toString() {
+                                return "Hello, " + name + suffix();
+                            }
+                        }.toString();
+                    }
+                    private static String suffix() {
+                        return "!";
+                    }
+                }
+                """);
+        var snapshot = tmp.getRoot().toPath().resolve("snapshot.jar");
+        ElideAbiSnapshots.writeSnapshot(lib.toPath(), snapshot);
+
+        // the anonymous class, the lambda, and the private members are gone, as they are from the ABI hash.
+        try (var zip = new ZipFile(snapshot.toFile())) {
+            assertEquals(List.of("lib/Lib.class"), zip.stream().map(ZipEntry::getName).toList());
+            var classFile = tmp.getRoot().toPath().resolve("Lib.class");
+            Files.write(classFile, zip.getInputStream(zip.getEntry("lib/Lib.class")).readAllBytes());
+            var members = new StringWriter();
+            var javap = java.util.spi.ToolProvider.findFirst("javap").orElseThrow();
+            assertEquals(0, javap.run(new PrintWriter(members), new PrintWriter(members), "-p", classFile.toString()));
+            assertTrue(members.toString().contains("greet"));
+            assertFalse(members.toString().contains("calls"));
+            assertFalse(members.toString().contains("suffix"));
+            assertFalse(members.toString().contains("lambda$"));
+        }
+    }
+
+    // Compile one source file, and jar its classes.
+    private File jar(String name, String source) throws IOException {
+        var root = tmp.newFolder(name).toPath();
+        var file = root.resolve("src/lib/Lib.java");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, source, StandardCharsets.UTF_8);
+        var classes = root.resolve("classes");
+        var compiler = ToolProvider.getSystemJavaCompiler();
+        assertEquals(0, compiler.run(null, null, null, "-d", classes.toString(), file.toString()));
+
+        var jar = root.resolve(name + ".jar").toFile();
+        try (var out = new JarOutputStream(new FileOutputStream(jar));
+             var paths = Files.walk(classes)) {
+            for (var path : (Iterable<Path>) paths.filter(Files::isRegularFile).sorted()::iterator) {
+                out.putNextEntry(new JarEntry(classes.relativize(path).toString().replace(File.separatorChar, '/')));
+                out.write(Files.readAllBytes(path));
+                out.closeEntry();
+            }
+        }
+        return jar;
+    }
+}
@@ -0,0 +1,147 @@
+package dev.elide.gradle;
+
+import org.gradle.api.logging.Logging;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+
+import static dev.elide.gradle.ElideLockfiles.artifact;
+import static dev.elide.gradle.ElideLockfiles.bytes;
+import static dev.elide.gradle.ElideLockfiles.message;
+import static org.junit.Assert.assertEquals;
+
+public class ElideArtifactStoreTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void sharesOnlyVerifiedArtifacts() throws IOException {
+        var m2 = tmp.newFolder("m2").toPath();
+
+        // Artifacts with a published checksum are checked against it; others against the size in the lockfile.
+        var checked = write(m2, "com/example/checked/1.0/checked-1.0.jar", "checked");
+        Files.writeString(checked.resolveSibling("checked-1.0.jar.sha1"),
+                ElideDigests.digest(checked, "SHA-1") + "  checked-1.0.jar\n", StandardCharsets.UTF_8);
+        var tampered = write(m2, "com/example/tampered/1.0/tampered-1.0.jar", "tampered");
+        Files.writeString(tampered.resolveSibling("tampered-1.0.jar.sha1"), "0".repeat(40), StandardCharsets.UTF_8);
+        var sized = write(m2, "com/example/sized/1.0/sized-1.0.jar", "sized");
+        var resized = write(m2, "com/example/resized/1.0/resized-1.0.jar", "resized");
+        var unknown = write(m2, "com/example/sized/1.0/sized-1.0.pom", "<project/>");
+
+        var lockfile = tmp.newFile("elide.lock.bin").toPath();
+        Files.write(lockfile, message(bytes(2, message(
+                bytes(2, artifact("com.example:sized", "m2/com/example/sized/1.0/sized-1.0.jar",
+                        Files.size(sized))),
+                bytes(2, artifact("com.example:resized", "m2/com/example/resized/1.0/resized-1.0.jar",
+                        Files.size(resized) + 1))))));
+
+        store(null).ingest(m2, lockfile);
+
+        assertEquals(2, links(checked));
+        assertEquals(2, links(sized));
+        assertEquals(1, links(tampered));
+        assertEquals(1, links(resized));
+        assertEquals(1, links(unknown));
+    }
+
+    @Test
+    public void copiesFromGradlesCacheWithoutTouchingIt() throws IOException {
+        var path = "com/example/lib/1.0/lib-1.0.jar";
+        var first = tmp.newFolder("first").toPath();
+        var artifact = write(first, path, "lib");
+        Files.writeString(artifact.resolveSibling("lib-1.0.jar.sha1"), ElideDigests.digest(artifact, "SHA-1"),
+                StandardCharsets.UTF_8);
+        var lockfile = tmp.newFile("elide.lock.bin").toPath();
+        Files.write(lockfile, message(bytes(2, artifact("com.example:lib", "m2/" + path))));
+
+        // Gradle has the same artifact; the store only has the lockfile's index, as if its objects were removed.
+        var gradle = tmp.newFolder("modules-2").toPath();
+        var cached = write(gradle, "com.example/lib/1.0/" + ElideDigests.digest(artifact, "SHA-1") + "/lib-1.0.jar",
+                "lib");
+        var cachedAt = FileTime.fromMillis(1_600_000_000_000L);
+        Files.setLastModifiedTime(cached, cachedAt);
+        var store = store(gradle);
+        store.ingest(first, lockfile);
+        deleteRecursively(tmp.getRoot().toPath().resolve("store/objects"));
+
+        var second = tmp.newFolder("second").toPath();
+        assertEquals(1, store.seed(second, lockfile));
+        store.ingest(second, lockfile);
+
+        assertEquals("lib", Files.readString(second.resolve(path), StandardCharsets.UTF_8));
+        assertEquals(1, links(cached));
+        assertEquals(cachedAt, Files.getLastModifiedTime(cached));
+    }
+
+    @Test
+    public void skipsArtifactsWhichAreAlreadyLinked() throws IOException {
+        var path = "com/example/lib/1.0/lib-1.0.jar";
+        var m2 = tmp.newFolder("m2").toPath();
+        var artifact = write(m2, path, "lib");
+        var sha1 = artifact.resolveSibling("lib-1.0.jar.sha1");
+        Files.writeString(sha1, ElideDigests.digest(artifact, "SHA-1"), StandardCharsets.UTF_8);
+        var lockfile = tmp.newFile("elide.lock.bin").toPath();
+        Files.write(lockfile, message(bytes(2, artifact("com.example:lib", "m2/" + path))));
+        var store = store(null);
+        store.ingest(m2, lockfile);
+
+        // once linked, the artifact isn't verified again, so a checksum which no longer matches goes unnoticed.
+        Files.writeString(sha1, "0".repeat(40), StandardCharsets.UTF_8);
+        store.ingest(m2, lockfile);
+
+        assertEquals(1, store.seed(tmp.newFolder("fresh").toPath(), lockfile));
+    }
+
+    @Test
+    public void storesAgainWhenAnObjectVanishes() throws IOException {
+        var path = "com/example/lib/1.0/lib-1.0.jar";
+        var m2 = tmp.newFolder("m2").toPath();
+        var artifact = write(m2, path, "lib");
+        Files.writeString(artifact.resolveSibling("lib-1.0.jar.sha1"), ElideDigests.digest(artifact, "SHA-1"),
+                StandardCharsets.UTF_8);
+        var lockfile = tmp.newFile("elide.lock.bin").toPath();
+        Files.write(lockfile, message(bytes(2, artifact("com.example:lib", "m2/" + path))));
+        var store = store(null);
+        store.ingest(m2, lockfile);
+
+        // the indexed object is removed from outside the store; the artifact itself is stored again.
+        var digest = ElideDigests.sha256(artifact);
+        Files.delete(tmp.getRoot().toPath().resolve("store/objects").resolve(digest.substring(0, 2)).resolve(digest));
+        assertEquals(0, store.seed(tmp.newFolder("empty").toPath(), lockfile));
+        store.ingest(m2, lockfile);
+
+        assertEquals(2, links(artifact));
+        assertEquals(1, store.seed(tmp.newFolder("fresh").toPath(), lockfile));
+    }
+
+    private ElideArtifactStore store(Path gradleModules) {
+        return new ElideArtifactStore(tmp.getRoot().toPath().resolve("store"), gradleModules,
+                Logging.getLogger(ElideArtifactStoreTest.class));
+    }
+
+    private static Path write(Path root, String path, String content) throws IOException {
+        var file = root.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static int links(Path file) throws IOException {
+        return ((Number) Files.getAttribute(file, "unix:nlink")).intValue();
+    }
+
+    private static void deleteRecursively(Path root) throws IOException {
+        try (var paths = Files.walk(root)) {
+            for (var path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package dev.elide.gradle;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ElideBuildTaskTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void readsNameAndSourcesFromTheManifest() throws IOException {
+        var manifest = manifest("""
+                amends "elide:project.pkl"
+
+                // name = "commented-out"
+                name = "example"
+                sources { ["main"] = "src/main/java/**/*.java" ["extra"] = "src/\\"gen\\"/**" }
+                dependencies {
+                  maven {
+                    name = "nested"
+                    packages { "com.google.guava:guava:33.4.8-jre" }
+                  }
+                }
+                /* sources { ["old"] = "src/old/**" } */
+                """);
+
+        assertEquals("example", ElideBuildTask.projectName(manifest));
+        assertEquals(List.of("src/main/java/**/*.java", "src/\"gen\"/**"), ElideBuildTask.sourceGlobs(manifest));
+    }
+
+    @Test
+    public void defaultsWhenTheManifestDeclaresNeither() throws IOException {
+        var manifest = manifest("""
+                amends "elide:project.pkl"
+                dependencies { maven { packages { "com.google.guava:guava:33.4.8-jre" } } }
+                """);
+
+        assertEquals(manifest.getParentFile().getName(), ElideBuildTask.projectName(manifest));
+        assertEquals(List.of(ElideBuildTask.DEFAULT_SOURCES), ElideBuildTask.sourceGlobs(manifest));
+    }
+
+    private File manifest(String content) throws IOException {
+        var manifest = new File(tmp.newFolder("module"), "elide.pkl");
+        Files.writeString(manifest.toPath(), content, StandardCharsets.UTF_8);
+        return manifest;
+    }
+}
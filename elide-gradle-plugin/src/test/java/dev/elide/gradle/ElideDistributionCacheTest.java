@@ -0,0 +1,27 @@
+package dev.elide.gradle;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ElideDistributionCacheTest {
+    @Test
+    public void acceptsReleaseAndSnapshotVersions() {
+        assertTrue(ElideDistributionCache.validVersion("1.0.0-beta5"));
+        assertTrue(ElideDistributionCache.validVersion("1.0.0+20250101"));
+        assertTrue(ElideDistributionCache.validVersion("1.0.0_rc1"));
+    }
+
+    @Test
+    public void rejectsVersionsWhichEscapeTheCache() {
+        assertFalse(ElideDistributionCache.validVersion(null));
+        assertFalse(ElideDistributionCache.validVersion(""));
+        assertFalse(ElideDistributionCache.validVersion(".."));
+        assertFalse(ElideDistributionCache.validVersion("1.0/../../etc"));
+        assertFalse(ElideDistributionCache.validVersion("1.0..0"));
+        assertFalse(ElideDistributionCache.validVersion("/tmp/elide"));
+        assertFalse(ElideDistributionCache.validVersion("1.0\\beta"));
+        assertFalse(ElideDistributionCache.validVersion("1.0 beta"));
+    }
+}
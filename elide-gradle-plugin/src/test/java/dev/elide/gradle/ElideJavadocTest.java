@@ -0,0 +1,44 @@
+package dev.elide.gradle;
+
+import org.gradle.api.Describable;
+import org.gradle.api.Project;
+import org.gradle.api.tasks.javadoc.Javadoc;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ElideJavadocTest {
+    @Test
+    public void replacingTheJavadocActionKeepsOtherActions() {
+        Project project = ProjectBuilder.builder().build();
+        project.getPlugins().apply("java");
+        project.getTasks().withType(Javadoc.class).configureEach(task -> {
+            task.doFirst("before", it -> {});
+            task.doLast("after", it -> {});
+        });
+        project.getPlugins().apply("dev.elide");
+        project.getExtensions().getByType(ElideExtension.class).getEnableJavadoc().set(true);
+
+        // Javadoc's own action (`generate`) is replaced in place by Elide's, which Gradle wraps as an unnamed action.
+        var names = project.getTasks().getByName("javadoc").getActions().stream()
+                .map(action -> ((Describable) action).getDisplayName())
+                .toList();
+        assertEquals(List.of("Execute before", "Execute unnamed action", "Execute after"), names);
+    }
+
+    @Test
+    public void javadocIsKeyedOnTheElideBinary() {
+        Project project = ProjectBuilder.builder().build();
+        project.getPlugins().apply("java");
+        project.getPlugins().apply("dev.elide");
+        project.getExtensions().getByType(ElideExtension.class).getEnableJavadoc().set(true);
+
+        // Elide's output isn't byte-for-byte stock `javadoc`'s, so it's never shared with it through the build cache.
+        var inputs = project.getTasks().getByName("javadoc").getInputs().getProperties();
+        assertTrue(inputs.get("elideJavadoc").toString().startsWith("1.0.0-test (sha256:"));
+    }
+}
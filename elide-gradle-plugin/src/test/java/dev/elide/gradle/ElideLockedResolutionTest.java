@@ -0,0 +1,219 @@
+package dev.elide.gradle;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static dev.elide.gradle.ElideLockfiles.artifact;
+import static dev.elide.gradle.ElideLockfiles.bytes;
+import static dev.elide.gradle.ElideLockfiles.message;
+import static dev.elide.gradle.ElideLockfiles.string;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+public class ElideLockedResolutionTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void readsArtifactsFromTheLockfile() {
+        var lockfile = message(
+                string(1, "v1"),
+                bytes(2, message(
+                        string(1, "data"),
+                        bytes(2, artifact("com.google.guava:guava:33.4.8-jre",
+                                "m2/com/google/guava/guava/33.4.8-jre/guava-33.4.8-jre.jar")),
+                        bytes(2, artifact("io.netty:netty-transport-native-epoll",
+                                "m2/io/netty/netty-transport-native-epoll/4.1.0/"
+                                        + "netty-transport-native-epoll-4.1.0-linux-x86_64.jar")),
+                        bytes(2, artifact("com.google.guava:guava",
+                                "m2/com/google/guava/guava/33.4.8-jre/guava-33.4.8-jre-sources.jar")))));
+
+        assertEquals(Map.of(
+                "com.google.guava:guava", "com/google/guava/guava/33.4.8-jre/guava-33.4.8-jre.jar",
+                "io.netty:netty-transport-native-epoll:linux-x86_64",
+                "io/netty/netty-transport-native-epoll/4.1.0/netty-transport-native-epoll-4.1.0-linux-x86_64.jar"),
+                ElideLockedResolution.lockfileArtifacts(lockfile));
+    }
+
+    @Test
+    public void classpathsOnlySeeWhatTheirRootsReach() throws IOException {
+        var devRoot = tmp.newFolder(".dev").toPath();
+        var m2 = devRoot.resolve("dependencies/m2");
+
+        // `app` (main) uses `lib`, which has a compile, a runtime, a test, an optional, and an excluded dependency;
+        // `junit` is only used by tests, and an older `lib` is left over from an earlier install.
+        install(m2, "com.example", "lib", "2.0", """
+                <dependency><groupId>${project.groupId}</groupId><artifactId>api</artifactId><version>1</version></dependency>
+                <dependency><groupId>com.example</groupId><artifactId>impl</artifactId><scope>runtime</scope></dependency>
+                <dependency><groupId>com.example</groupId><artifactId>mock</artifactId><scope>test</scope></dependency>
+                <dependency><groupId>com.example</groupId><artifactId>extra</artifactId><optional>true</optional></dependency>
+                <dependency>
+                  <groupId>com.example</groupId><artifactId>logging</artifactId>
+                  <exclusions><exclusion><groupId>com.example</groupId><artifactId>shaded</artifactId></exclusion></exclusions>
+                </dependency>
+                """);
+        install(m2, "com.example", "lib", "1.0", "");
+        install(m2, "com.example", "api", "1.1", "");
+        install(m2, "com.example", "impl", "1.1", "");
+        install(m2, "com.example", "mock", "1.1", "");
+        install(m2, "com.example", "extra", "1.1", "");
+        install(m2, "com.example", "logging", "1.1", """
+                <dependency><groupId>com.example</groupId><artifactId>shaded</artifactId></dependency>
+                """);
+        install(m2, "com.example", "shaded", "1.1", "");
+        install(m2, "junit", "junit", "4.13.2", "");
+
+        var lockfile = devRoot.resolve("elide.lock.bin");
+        Files.write(lockfile, message(bytes(2, message(
+                bytes(2, artifact("com.example:lib", jar("com.example", "lib", "2.0"))),
+                bytes(2, artifact("com.example:api", jar("com.example", "api", "1.1"))),
+                bytes(2, artifact("com.example:impl", jar("com.example", "impl", "1.1"))),
+                bytes(2, artifact("com.example:mock", jar("com.example", "mock", "1.1"))),
+                bytes(2, artifact("com.example:extra", jar("com.example", "extra", "1.1"))),
+                bytes(2, artifact("com.example:logging", jar("com.example", "logging", "1.1"))),
+                bytes(2, artifact("com.example:shaded", jar("com.example", "shaded", "1.1"))),
+                bytes(2, artifact("junit:junit", jar("junit", "junit", "4.13.2")))))));
+        var index = devRoot.resolve("dependencies/" + ElideLockedResolution.INDEX_FILE_NAME);
+        assertEquals(8, ElideLockedResolution.writeIndex(m2, lockfile, index));
+
+        var main = Set.of("com.example:lib");
+        var test = Set.of("com.example:lib", "junit:junit");
+        assertEquals(Set.of("lib-2.0.jar", "api-1.1.jar", "logging-1.1.jar"),
+                names(ElideLockedResolution.lockedArtifacts(index.toFile(), main, false)));
+        assertEquals(Set.of("lib-2.0.jar", "api-1.1.jar", "impl-1.1.jar", "logging-1.1.jar"),
+                names(ElideLockedResolution.lockedArtifacts(index.toFile(), main, true)));
+        assertEquals(Set.of("lib-2.0.jar", "api-1.1.jar", "logging-1.1.jar", "junit-4.13.2.jar"),
+                names(ElideLockedResolution.lockedArtifacts(index.toFile(), test, false)));
+        assertEquals(Set.of(),
+                names(ElideLockedResolution.lockedArtifacts(index.toFile(), Set.of("org.other:unlocked"), true)));
+    }
+
+    @Test
+    public void appliesParentsAndImportedBoms() throws IOException {
+        var devRoot = tmp.newFolder(".dev").toPath();
+        var m2 = devRoot.resolve("dependencies/m2");
+
+        // `app` inherits `core` from its parent, whose BOM import manages `runtime-only` into the runtime scope; the
+        // parent's `platform` property is interpolated within a longer value. `orphan` names a parent which was never
+        // installed, so its dependencies can't be known.
+        pom(m2, "com.example", "bom", "1", "", """
+                <dependencyManagement><dependencies>
+                  <dependency>
+                    <groupId>com.example</groupId><artifactId>runtime-only</artifactId><scope>runtime</scope>
+                  </dependency>
+                </dependencies></dependencyManagement>
+                """);
+        pom(m2, "com.example", "parent", "1", "", """
+                <properties><platform>linux</platform></properties>
+                <dependencyManagement><dependencies>
+                  <dependency>
+                    <groupId>com.example</groupId><artifactId>bom</artifactId><version>1</version>
+                    <type>pom</type><scope>import</scope>
+                  </dependency>
+                </dependencies></dependencyManagement>
+                <dependencies>
+                  <dependency>
+                    <groupId>${project.groupId}</groupId><artifactId>core-${platform}</artifactId>
+                  </dependency>
+                </dependencies>
+                """);
+        pom(m2, "com.example", "app", "1", parent("com.example", "parent", "1"), """
+                <dependencies>
+                  <dependency><groupId>com.example</groupId><artifactId>runtime-only</artifactId></dependency>
+                </dependencies>
+                """);
+        pom(m2, "com.example", "orphan", "1", parent("com.example", "missing", "1"), "");
+        install(m2, "com.example", "core-linux", "1", "");
+        install(m2, "com.example", "runtime-only", "1", "");
+
+        var lockfile = devRoot.resolve("elide.lock.bin");
+        Files.write(lockfile, message(bytes(2, message(
+                bytes(2, artifact("com.example:app", jar("com.example", "app", "1"))),
+                bytes(2, artifact("com.example:orphan", jar("com.example", "orphan", "1"))),
+                bytes(2, artifact("com.example:core-linux", jar("com.example", "core-linux", "1"))),
+                bytes(2, artifact("com.example:runtime-only", jar("com.example", "runtime-only", "1")))))));
+        var index = devRoot.resolve("dependencies/" + ElideLockedResolution.INDEX_FILE_NAME);
+        ElideLockedResolution.writeIndex(m2, lockfile, index);
+
+        var app = Set.of("com.example:app");
+        assertEquals(Set.of("app-1.jar", "core-linux-1.jar"),
+                names(ElideLockedResolution.lockedArtifacts(index.toFile(), app, false)));
+        assertEquals(Set.of("app-1.jar", "core-linux-1.jar", "runtime-only-1.jar"),
+                names(ElideLockedResolution.lockedArtifacts(index.toFile(), app, true)));
+        assertThrows(org.gradle.api.GradleException.class, () ->
+                ElideLockedResolution.lockedArtifacts(index.toFile(), Set.of("com.example:orphan"), false));
+    }
+
+    @Test
+    public void failsWhenTheLockfileChanges() throws IOException {
+        var devRoot = tmp.newFolder(".dev").toPath();
+        var m2 = devRoot.resolve("dependencies/m2");
+        var lockfile = devRoot.resolve("elide.lock.bin");
+        Files.write(lockfile, message(bytes(2, artifact("junit:junit", jar("junit", "junit", "4.13.2")))));
+        var index = devRoot.resolve("dependencies/" + ElideLockedResolution.INDEX_FILE_NAME);
+        ElideLockedResolution.writeIndex(m2, lockfile, index);
+
+        Files.write(lockfile, message(bytes(2, artifact("junit:junit", jar("junit", "junit", "4.13.3")))));
+        assertThrows(org.gradle.api.GradleException.class, () ->
+                ElideLockedResolution.lockedArtifacts(index.toFile(), Set.of("junit:junit"), false));
+    }
+
+    @Test
+    public void readsRecordedSizesFromTheLockfile() {
+        var lockfile = message(bytes(2, message(
+                bytes(2, artifact("junit:junit", jar("junit", "junit", "4.13.2"), 384581)),
+                bytes(2, artifact("org.hamcrest:hamcrest-core", jar("org.hamcrest", "hamcrest-core", "1.3"))))));
+
+        assertEquals(Map.of(
+                jar("junit", "junit", "4.13.2"), 384581L,
+                jar("org.hamcrest", "hamcrest-core", "1.3"), -1L),
+                ElideLockedResolution.lockfileSizes(lockfile));
+    }
+
+    private static Set<String> names(List<File> files) {
+        var names = new TreeSet<String>();
+        files.forEach(file -> names.add(file.getName()));
+        return names;
+    }
+
+    private static String jar(String group, String module, String version) {
+        return "m2/" + group.replace('.', '/') + "/" + module + "/" + version + "/" + module + "-" + version + ".jar";
+    }
+
+    // Write an artifact and its POM into a Maven root.
+    private static void install(Path m2, String group, String module, String version, String dependencies)
+            throws IOException {
+        pom(m2, group, module, version, "", "<dependencies>" + dependencies + "</dependencies>");
+    }
+
+    // Write an artifact and a POM with the provided parent and body into a Maven root.
+    private static void pom(Path m2, String group, String module, String version, String parent, String body)
+            throws IOException {
+        var dir = m2.resolve(group.replace('.', '/')).resolve(module).resolve(version);
+        Files.createDirectories(dir);
+        Files.write(dir.resolve(module + "-" + version + ".jar"), new byte[0]);
+        Files.writeString(dir.resolve(module + "-" + version + ".pom"), """
+                <project>
+                  %s
+                  <groupId>%s</groupId><artifactId>%s</artifactId><version>%s</version>
+                  %s
+                </project>
+                """.formatted(parent, group, module, version, body), StandardCharsets.UTF_8);
+    }
+
+    private static String parent(String group, String module, String version) {
+        return "<parent><groupId>%s</groupId><artifactId>%s</artifactId><version>%s</version></parent>"
+                .formatted(group, module, version);
+    }
+}
@@ -0,0 +1,56 @@
+package dev.elide.gradle;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+// Protobuf encoding of Elide lockfiles, for tests.
+final class ElideLockfiles {
+    private ElideLockfiles() {}
+
+    // Lockfile entry, as Elide writes it: an index, the coordinates, and the path under the dependencies root.
+    static byte[] artifact(String coordinates, String path) {
+        return message(varint(1, 0), string(2, coordinates), string(3, path));
+    }
+
+    // Lockfile entry with its file state: modification time and size.
+    static byte[] artifact(String coordinates, String path, long size) {
+        return message(varint(1, 0), string(2, coordinates), string(3, path), bytes(4, message(
+                string(1, "filestate"),
+                bytes(2, message(varint(1, 1_700_000_000_000L), varint(2, size))))));
+    }
+
+    static byte[] message(byte[]... fields) {
+        var out = new ByteArrayOutputStream();
+        for (var field : fields) {
+            out.writeBytes(field);
+        }
+        return out.toByteArray();
+    }
+
+    static byte[] string(int field, String value) {
+        return bytes(field, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static byte[] bytes(int field, byte[] value) {
+        var out = new ByteArrayOutputStream();
+        writeVarint(out, (field << 3) | 2);
+        writeVarint(out, value.length);
+        out.writeBytes(value);
+        return out.toByteArray();
+    }
+
+    static byte[] varint(int field, long value) {
+        var out = new ByteArrayOutputStream();
+        writeVarint(out, field << 3);
+        writeVarint(out, value);
+        return out.toByteArray();
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7fL) != 0) {
+            out.write((int) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
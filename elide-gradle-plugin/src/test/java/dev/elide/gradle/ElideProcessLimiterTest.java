@@ -0,0 +1,78 @@
+package dev.elide.gradle;
+
+import org.gradle.api.Project;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ElideProcessLimiterTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void limitFitsObservedPeakRss() throws IOException {
+        var record = new File(tmp.getRoot(), "rss.properties");
+        assertEquals(4, ElideProcessLimiter.adaptiveLimit(record, 4, null));
+
+        // nothing observed yet: processes are assumed to grow to their heap limit.
+        var memoryMiB = totalMemory() / (1024 * 1024);
+        assertEquals(1, ElideProcessLimiter.adaptiveLimit(record, 4, (memoryMiB + 1) + "m"));
+
+        // observed peaks win over the heap limit, and the largest one counts.
+        Files.writeString(record.toPath(), "javac=1024\nbuild=2048\n", StandardCharsets.UTF_8);
+        assertEquals(4, ElideProcessLimiter.adaptiveLimit(record, 4, (memoryMiB + 1) + "m"));
+        Files.writeString(record.toPath(), "javac=1024\nbuild=" + totalMemory() + "\n", StandardCharsets.UTF_8);
+        assertEquals(1, ElideProcessLimiter.adaptiveLimit(record, 4, null));
+    }
+
+    @Test
+    public void heapLimitIsPassedToElide() {
+        assertEquals(List.of("-Xmx2g"), ElideProcessLimiter.heapArgs(" 2g "));
+        assertEquals(List.of(), ElideProcessLimiter.heapArgs(null));
+        assertEquals(List.of(), ElideProcessLimiter.heapArgs(""));
+    }
+
+    @Test
+    public void limitIsComputedWhenTasksRunAndObservationsPersist() throws IOException, InterruptedException {
+        var record = new File(tmp.getRoot(), "caches/elide/rss.properties");
+        Project project = ProjectBuilder.builder().withProjectDir(tmp.newFolder("project")).build();
+        var limiter = project.getGradle().getSharedServices().registerIfAbsent(
+                "limiter", ElideProcessLimiter.class, spec -> {
+                    spec.getParameters().getMaxProcesses().set(4);
+                    spec.getParameters().getRssRecord().set(record);
+                }).get();
+
+        // observations recorded after configuration still lower the limit.
+        Files.createDirectories(record.toPath().getParent());
+        Files.writeString(record.toPath(), "build=" + totalMemory() + "\n", StandardCharsets.UTF_8);
+        assertEquals(1, limiter.maxProcesses());
+        limiter.acquire();
+        limiter.release();
+
+        limiter.observe("javac", 4096);
+        limiter.observe("javac", 1024);
+        limiter.observe("kotlinc", 0);
+        limiter.close();
+        var persisted = Files.readString(record.toPath(), StandardCharsets.UTF_8);
+        assertTrue(persisted.contains("javac=4096"));
+        assertTrue(persisted.contains("build=" + totalMemory()));
+        assertFalse(persisted.contains("kotlinc"));
+    }
+
+    private static long totalMemory() {
+        var os = (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        return os.getTotalMemorySize();
+    }
+}
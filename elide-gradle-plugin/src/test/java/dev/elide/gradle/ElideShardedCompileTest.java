@@ -0,0 +1,133 @@
+package dev.elide.gradle;
+
+import org.gradle.api.Action;
+import org.gradle.api.Describable;
+import org.gradle.api.Project;
+import org.gradle.api.Task;
+import org.gradle.api.tasks.compile.JavaCompile;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ElideShardedCompileTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void planKeepsCyclesTogetherAndOrdersWaves() {
+        // `app` depends on the `api`/`impl` cycle, which depends on `util`; `extra` depends on nothing.
+        Map<String, Set<String>> graph = Map.of(
+                "util", Set.of(),
+                "api", Set.of("impl", "util"),
+                "impl", Set.of("api"),
+                "app", Set.of("api"),
+                "extra", Set.of());
+        Map<String, Integer> sources = Map.of("util", 10, "api", 5, "impl", 5, "app", 3, "extra", 4);
+
+        var waves = ElidePackageGraph.plan(graph, sources, 2);
+        assertEquals(3, waves.size());
+        assertEquals(Set.of(Set.of("util"), Set.of("extra")), Set.copyOf(waves.get(0)));
+        assertEquals(List.of(Set.of("api", "impl")), waves.get(1));
+        assertEquals(List.of(Set.of("app")), waves.get(2));
+    }
+
+    @Test
+    public void replacingTheCompileActionKeepsOtherActions() {
+        Project project = ProjectBuilder.builder().build();
+        project.getPlugins().apply("java");
+        var compile = (JavaCompile) project.getTasks().getByName("compileJava");
+        var replaced = new AtomicBoolean();
+        Action<Task> replacement = task -> replaced.set(true);
+        compile.doFirst("before", task -> {});
+        compile.doLast("after", task -> {});
+
+        // Gradle describes the task's own action by its method name; if that ever changes, this fails first.
+        assertTrue(ElideTaskActions.replaceTaskAction(compile, replacement));
+        var actions = compile.getActions();
+        assertEquals(3, actions.size());
+        assertEquals("Execute before", ((Describable) actions.get(0)).getDisplayName());
+        assertEquals("Execute after", ((Describable) actions.get(2)).getDisplayName());
+        actions.get(1).execute(compile);
+        assertTrue(replaced.get());
+    }
+
+    @Test
+    public void singleShotCompilePassesEveryCompilerArgument() throws IOException {
+        Project project = ProjectBuilder.builder().withProjectDir(tmp.newFolder("project")).build();
+        project.getPlugins().apply("java");
+        var sources = project.file("src/main/java").toPath();
+        write(sources.resolve("module-info.java"), "module example { requires lib; }");
+        write(sources.resolve("com/example/App.java"), "package com.example; public class App {}");
+        var module = jar("lib.jar", "Automatic-Module-Name: lib\n");
+        var plain = jar("plain.jar", "");
+        project.getDependencies().add("implementation", project.files(module, plain));
+
+        var compile = (JavaCompile) project.getTasks().getByName("compileJava");
+        compile.getOptions().getCompilerArgs().add("-Xlint:all");
+        compile.getOptions().getCompilerArgumentProviders().add(() -> List.of("-Aprovided=true"));
+        compile.getOptions().getDebugOptions().setDebugLevel("source,lines");
+
+        // A stand-in for Elide, which keeps the argument file it is handed.
+        var argfile = new File(tmp.getRoot(), "args.txt");
+        var elide = write(tmp.getRoot().toPath().resolve("elide"), """
+                #!/bin/sh
+                file="$3"
+                cp "${file#@}" "%s"
+                """.formatted(argfile.getAbsolutePath()));
+        assertTrue(elide.toFile().setExecutable(true));
+
+        var services = project.getGradle().getSharedServices();
+        var limiter = services.registerIfAbsent("limiter", ElideProcessLimiter.class, spec -> {
+            spec.getParameters().getMaxProcesses().set(4);
+            spec.getParameters().getRssRecord().set(new File(tmp.getRoot(), "rss.properties"));
+        });
+        var telemetry = services.registerIfAbsent("telemetry", ElideTelemetryService.class, spec ->
+                spec.getParameters().getReportFile().set(new File(tmp.getRoot(), "telemetry.json")));
+        new ElideShardedJavac(elide.toString(), limiter, telemetry).execute(compile);
+
+        var args = Files.readAllLines(argfile.toPath()).stream()
+                .map(arg -> arg.substring(1, arg.length() - 1))
+                .toList();
+        assertEquals(module.getAbsolutePath(), args.get(args.indexOf("--module-path") + 1));
+        assertEquals(plain.getAbsolutePath(), args.get(args.indexOf("-classpath") + 1));
+        assertTrue(args.contains("-g:source,lines"));
+        assertTrue(args.contains("-Xlint:all"));
+        assertTrue(args.contains("-Aprovided=true"));
+        assertTrue(args.contains(sources.resolve("module-info.java").toFile().getAbsolutePath()));
+    }
+
+    private File jar(String name, String manifest) throws IOException {
+        var file = new File(tmp.getRoot(), name);
+        var attributes = new Manifest(new ByteArrayInputStream(
+                ("Manifest-Version: 1.0\n" + manifest).getBytes(StandardCharsets.UTF_8)));
+        try (var out = new JarOutputStream(new FileOutputStream(file), attributes)) {
+            out.putNextEntry(new JarEntry("lib/Lib.class"));
+            out.closeEntry();
+        }
+        return file;
+    }
+
+    private static Path write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        return Files.writeString(file, content, StandardCharsets.UTF_8);
+    }
+}
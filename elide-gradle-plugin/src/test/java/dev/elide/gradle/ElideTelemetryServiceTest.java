@@ -0,0 +1,91 @@
+package dev.elide.gradle;
+
+import groovy.json.JsonSlurper;
+import org.gradle.api.Project;
+import org.gradle.api.provider.Provider;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class ElideTelemetryServiceTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void writesInvocationsAndTotalsToTheReport() throws IOException {
+        var reportFile = new File(tmp.getRoot(), "build/reports/elide/telemetry.json");
+        var telemetry = telemetry(reportFile).get();
+        telemetry.record(new ElideTelemetryService.Invocation(
+                "install", ":elideInstall", 12, 1500, 900, 200_000_000, 0, Map.of("artifacts", 42)));
+        telemetry.record(new ElideTelemetryService.Invocation(
+                "test", ":elideTest", 8, 700, 600, 300_000_000, 0, Map.of("classes", 3)));
+        telemetry.record(new ElideTelemetryService.Invocation(
+                "test", ":elideTest", 9, 800, -1, 250_000_000, 1, Map.of("classes", 2)));
+        telemetry.close();
+
+        var report = (Map<String, Object>) new JsonSlurper().parse(reportFile);
+        var totals = (Map<String, Map<String, Object>>) report.get("totals");
+        assertEquals(List.of("install", "test"), List.copyOf(new TreeMap<>(totals).keySet()));
+        var test = totals.get("test");
+        assertEquals(2, ((Number) test.get("invocations")).intValue());
+        assertEquals(1, ((Number) test.get("failures")).intValue());
+        assertEquals(1500L, ((Number) test.get("wallMillis")).longValue());
+        assertEquals(600L, ((Number) test.get("cpuMillis")).longValue());
+        assertEquals(300_000_000L, ((Number) test.get("peakRssBytes")).longValue());
+
+        var invocations = (List<Map<String, Object>>) report.get("invocations");
+        assertEquals(3, invocations.size());
+        var install = invocations.get(0);
+        assertEquals("install", install.get("tool"));
+        assertEquals(":elideInstall", install.get("task"));
+        assertEquals(12L, ((Number) install.get("spawnMillis")).longValue());
+        assertEquals(Map.of("artifacts", 42), install.get("counts"));
+    }
+
+    @Test
+    public void writesNoReportWithoutInvocations() {
+        var reportFile = new File(tmp.getRoot(), "build/reports/elide/telemetry.json");
+        telemetry(reportFile).get().close();
+
+        assertFalse(reportFile.exists());
+    }
+
+    @Test
+    public void publishesTotalsToTheBuildScan() {
+        var telemetry = telemetry(new File(tmp.getRoot(), "telemetry.json"));
+        telemetry.get().record(new ElideTelemetryService.Invocation(
+                "javac", ":compileJava", -1, 2000, -1, -1, 0, Map.of("sources", 10)));
+        var buildScan = new BuildScan();
+
+        new ElideBuildScanValues(buildScan, telemetry).execute(null);
+
+        assertEquals(Map.of("Elide javac", "1 run(s), 2000ms wall, -1 bytes peak RSS"), buildScan.values);
+    }
+
+    private Provider<ElideTelemetryService> telemetry(File reportFile) {
+        Project project = ProjectBuilder.builder().withProjectDir(new File(tmp.getRoot(), "project")).build();
+        return project.getGradle().getSharedServices().registerIfAbsent(
+                "telemetry", ElideTelemetryService.class, spec ->
+                        spec.getParameters().getReportFile().set(reportFile));
+    }
+
+    // Stands in for the build scan plugin's extension, which is only reached reflectively.
+    public static final class BuildScan {
+        final Map<String, String> values = new TreeMap<>();
+
+        public void value(String name, String value) {
+            values.put(name, value);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package dev.elide.gradle;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class ElideTestTaskTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void selectsTestClassesByName() throws IOException {
+        var main = tmp.newFolder("main").toPath();
+        var extra = tmp.newFolder("extra").toPath();
+        write(main, "com/example/FooTest.class", 10);
+        write(main, "com/example/FooTests.class", 20);
+        write(main, "com/example/TestBar.class", 30);
+        write(main, "com/example/BazTestCase.class", 40);
+        write(main, "com/example/FooTest$Nested.class", 50);
+        write(main, "com/example/Helper.class", 60);
+        write(main, "com/example/FooTest.txt", 70);
+        write(extra, "OtherTest.class", 80);
+
+        assertEquals(Map.of(
+                "com.example.FooTest", 10L,
+                "com.example.FooTests", 20L,
+                "com.example.TestBar", 30L,
+                "com.example.BazTestCase", 40L,
+                "OtherTest", 80L),
+                ElideTestTask.testClasses(List.of(
+                        main.toFile(),
+                        extra.toFile(),
+                        tmp.getRoot().toPath().resolve("missing").toFile())));
+    }
+
+    @Test
+    public void shardsBalanceClassesBySize() {
+        var shards = ElideTestTask.shard(Map.of(
+                "A", 100L,
+                "B", 60L,
+                "C", 50L,
+                "D", 40L,
+                "E", 10L), 2);
+
+        // Largest first, each to the lightest shard: A (100) | B, C (110), then D to the first and E to the second.
+        assertEquals(List.of(List.of("A", "D"), List.of("B", "C", "E")), shards);
+    }
+
+    @Test
+    public void shardsNeverOutnumberClasses() {
+        assertEquals(List.of(List.of("A"), List.of("B")), ElideTestTask.shard(Map.of("A", 2L, "B", 1L), 8));
+        assertEquals(List.of(), ElideTestTask.shard(Map.of(), 8));
+    }
+
+    @Test
+    public void shardsOrderEqualClassesByName() {
+        var shards = ElideTestTask.shard(Map.of("B", 0L, "A", 0L, "C", 0L), 2);
+        assertEquals(List.of(List.of("A", "C"), List.of("B")), shards);
+    }
+
+    @Test
+    public void passesLauncherOptionsForEachShard() {
+        assertEquals(List.of(
+                "--disable-banner",
+                "--class-path", "classes:junit.jar",
+                "--reports-dir", "/results/shard-0",
+                "--select-class", "com.example.FooTest",
+                "--select-class", "com.example.BarTest"),
+                ElideTestTask.launcherArguments("classes:junit.jar", Path.of("/results/shard-0"),
+                        List.of("com.example.FooTest", "com.example.BarTest")));
+    }
+
+    private static void write(Path root, String path, int size) throws IOException {
+        var file = root.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[size]);
+    }
+}
@@ -0,0 +1,60 @@
+package dev.elide.gradle;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.Project;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertThrows;
+
+public class ElideToolchainServiceTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void pinnedBinariesAreKeyedOnTheirChecksum() throws IOException {
+        var dists = tmp.newFolder("dists");
+        var first = cached(dists, "aa11");
+        var second = cached(dists, "bb22");
+        var probes = tmp.newFolder("toolchain");
+
+        Project project = ProjectBuilder.builder().withProjectDir(tmp.newFolder("project")).build();
+        var toolchain = project.getGradle().getSharedServices().registerIfAbsent(
+                "toolchain", ElideToolchainService.class, spec -> {
+                    spec.getParameters().getCacheDirectory().set(probes);
+                    spec.getParameters().getSearchPath().set("");
+                    spec.getParameters().getUserHome().set(tmp.getRoot().getAbsolutePath());
+                    spec.getParameters().getDistributionsDirectory().set(dists);
+                    spec.getParameters().getDistributionUrl().set(ElideDistributionCache.DEFAULT_DISTRIBUTION_URL);
+                    spec.getParameters().getOffline().set(true);
+                }).get();
+
+        // the same version, pinned with another checksum, resolves to the distribution matching that checksum.
+        assertEquals(first, toolchain.elide("1.0.0", "aa11"));
+        assertEquals(second, toolchain.elide("1.0.0", " BB22 "));
+        assertNotEquals(first, toolchain.elide("1.0.0", "bb22"));
+
+        // a checksum which matches nothing cached isn't satisfied by a binary resolved earlier for the same version.
+        assertThrows(GradleException.class, () -> toolchain.elide("1.0.0", "cc33"));
+    }
+
+    // Lay out a complete cached distribution under the given digest, and return its binary.
+    private static Path cached(File dists, String digest) throws IOException {
+        var dist = dists.toPath().resolve("sha256").resolve(digest);
+        var binary = dist.resolve("elide-dist")
+                .resolve(ElideDistributionCache.platform().startsWith("windows") ? "elide.exe" : "elide");
+        Files.createDirectories(binary.getParent());
+        Files.writeString(binary, "");
+        Files.writeString(dist.resolve(".complete"), "");
+        return binary.toAbsolutePath();
+    }
+}
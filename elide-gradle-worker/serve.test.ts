@@ -0,0 +1,120 @@
+// Tests for serving the settings script, against a local stand-in for the origin and an in-memory edge cache.
+import { after, before, test } from 'node:test';
+import assert from 'node:assert/strict';
+import { createServer } from 'node:http';
+import type { AddressInfo } from 'node:net';
+import { serveScript } from './serve.ts';
+import type { ScriptCache, ServeContext } from './serve.ts';
+
+const script = 'println("elide")\n';
+const originHits: string[] = [];
+const server = createServer((req, res) => {
+    originHits.push(req.url || '');
+    if ((req.url || '').includes('/missing/')) {
+        res.writeHead(404);
+        res.end('404: Not Found');
+        return;
+    }
+    res.writeHead(200, { 'Content-Type': 'text/plain' });
+    res.end(script);
+});
+
+let origin = '';
+
+before(async () => {
+    await new Promise<void>((resolve) => server.listen(0, '127.0.0.1', resolve));
+    origin = `http://127.0.0.1:${(server.address() as AddressInfo).port}`;
+});
+
+after(() => {
+    server.close();
+});
+
+function memoryCache(): ScriptCache {
+    const entries = new Map<string, Response>();
+    return {
+        async match(key) {
+            return entries.get(key)?.clone();
+        },
+        async put(key, response) {
+            entries.set(key, response);
+        },
+    };
+}
+
+function context(cache: ScriptCache, pending: Promise<unknown>[]): ServeContext {
+    return { origin, cache, waitUntil: (promise) => { pending.push(promise); } };
+}
+
+function get(path: string, headers: Record<string, string> = {}): Request {
+    return new Request(`https://gradle.elide.dev${path}`, { headers });
+}
+
+test('serves tagged scripts from the edge cache as immutable', async () => {
+    originHits.length = 0;
+    const pending: Promise<unknown>[] = [];
+    const ctx = context(memoryCache(), pending);
+
+    const first = await serveScript(get('/1.0.0/elide.gradle.kts'), ctx);
+    assert.equal(first.status, 200);
+    assert.equal(await first.text(), script);
+    assert.match(first.headers.get('Cache-Control') || '', /immutable/);
+    const etag = first.headers.get('ETag') || '';
+    assert.match(etag, /^"[0-9a-f]{64}"$/);
+    await Promise.all(pending);
+
+    const second = await serveScript(get('/1.0.0/elide.gradle.kts'), ctx);
+    assert.equal(second.status, 200);
+    assert.equal(await second.text(), script);
+    assert.equal(second.headers.get('ETag'), etag);
+    assert.deepEqual(originHits, ['/refs/tags/1.0.0/elide.gradle.kts']);
+});
+
+test('answers matching conditional requests with 304', async () => {
+    const ctx = context(memoryCache(), []);
+    const etag = (await serveScript(get('/abc123/elide.gradle.kts'), ctx)).headers.get('ETag') || '';
+
+    const revalidated = await serveScript(get('/abc123/elide.gradle.kts', { 'If-None-Match': `W/"x", ${etag}` }), ctx);
+    assert.equal(revalidated.status, 304);
+    assert.equal(revalidated.headers.get('ETag'), etag);
+    assert.equal(await revalidated.text(), '');
+
+    const changed = await serveScript(get('/abc123/elide.gradle.kts', { 'If-None-Match': '"other"' }), ctx);
+    assert.equal(changed.status, 200);
+});
+
+test('caches branches briefly', async () => {
+    originHits.length = 0;
+    const response = await serveScript(get('/latest/elide.gradle.kts'), context(memoryCache(), []));
+    assert.equal(response.status, 200);
+    assert.doesNotMatch(response.headers.get('Cache-Control') || '', /immutable/);
+    assert.deepEqual(originHits, ['/refs/heads/main/elide.gradle.kts']);
+});
+
+test('serves full commit SHAs as immutable, and anything else briefly', async () => {
+    const sha = '0123456789abcdef0123456789abcdef01234567';
+    const commit = await serveScript(get(`/${sha}/elide.gradle.kts`), context(memoryCache(), []));
+    assert.match(commit.headers.get('Cache-Control') || '', /immutable/);
+
+    for (const revision of ['abc123', 'feature-branch', '1.0-SNAPSHOT']) {
+        const response = await serveScript(get(`/${revision}/elide.gradle.kts`), context(memoryCache(), []));
+        assert.equal(response.status, 200);
+        assert.doesNotMatch(response.headers.get('Cache-Control') || '', /immutable/, revision);
+    }
+});
+
+test('passes through missing revisions without caching them', async () => {
+    const pending: Promise<unknown>[] = [];
+    const response = await serveScript(get('/missing/elide.gradle.kts'), context(memoryCache(), pending));
+    assert.equal(response.status, 404);
+    assert.equal(pending.length, 0);
+});
+
+test('redirects to GitHub when the origin is unreachable', async () => {
+    const ctx = { ...context(memoryCache(), []), origin: 'http://127.0.0.1:1' };
+    const response = await serveScript(get('/1.0.0/elide.gradle.kts'), ctx);
+    assert.equal(response.status, 302);
+    assert.equal(
+        response.headers.get('Location'),
+        'https://raw.githubusercontent.com/elide-dev/gradle/refs/tags/1.0.0/elide.gradle.kts');
+});
@@ -0,0 +1,148 @@
+// Serves `elide.gradle.kts` for a revision, from edge storage where possible. The script is fetched from the origin
+// (GitHub, or a stand-in under test) once per revision and edge location, and served with a strong `ETag`, so that
+// Gradle's resource cache revalidates with a cheap `304`. Release tags and full commit SHAs never change, so they're
+// served as immutable; branches, and anything else, are cached briefly. If the origin can't be reached, clients are
+// redirected to it, as before.
+
+const mainBranch = 'main';
+const latestTag = 'latest';
+const redirectStatus = 302;
+const expectedScript = 'elide.gradle.kts';
+const contentType = 'text/plain; charset=utf-8';
+
+// Release tags, like `1.0.0` or `1.0.0-beta1`.
+const tagPattern = /^\d+\.\d+\.\d+(?:-[0-9A-Za-z.-]+)?$/;
+
+// Full commit SHAs; abbreviated ones may name another commit later, or a branch.
+const commitPattern = /^[0-9a-f]{40}$/;
+
+// Stands in for the origin's host in cache keys; cached entries are never served from this URL.
+const cacheKeyBase = 'https://gradle.elide.dev/__script';
+
+export const githubUrlBase = 'https://raw.githubusercontent.com/elide-dev/gradle';
+
+// A revision of the script, as named by a request path.
+export interface Revision {
+    type: string;
+    revision: string;
+    immutable: boolean;
+}
+
+// The parts of the Cache API used here; `caches.default` at the edge.
+export interface ScriptCache {
+    match(key: string): Promise<Response | undefined>;
+    put(key: string, response: Response): Promise<void>;
+}
+
+// Everything the worker needs from its environment.
+export interface ServeContext {
+    origin: string;
+    cache: ScriptCache;
+    waitUntil(promise: Promise<unknown>): void;
+}
+
+function renderCacheControl(immutable: boolean): string {
+    return immutable
+        ? 'public, max-age=31536000, immutable'
+        : 'public, max-age=60, stale-while-revalidate=60';
+}
+
+// Resolve the revision named by a request path; returns `null` for the bare root.
+export function resolveRevision(pathname: string): Revision | null {
+    if (pathname === '/') {
+        return null;
+    }
+    if (pathname === `/${expectedScript}`) {
+        return { type: 'refs/heads', revision: mainBranch, immutable: false };
+    }
+
+    // remove `/tag/` segment unconditionally to cover errant url format published briefly
+    const firstSegment = (pathname.replace('/tag/', '/')).split('/')[1] || '';
+    if (firstSegment === latestTag || firstSegment === mainBranch) {
+        return { type: 'refs/heads', revision: mainBranch, immutable: false };
+    }
+    if (tagPattern.test(firstSegment)) {
+        // it's a version
+        return { type: 'refs/tags', revision: firstSegment, immutable: true };
+    }
+    // we should assume it's a commit, but only a full SHA is known not to change
+    return { type: 'refs', revision: firstSegment, immutable: commitPattern.test(firstSegment) };
+}
+
+// Strong validator for a script: the SHA-256 of its content.
+async function entityTag(body: ArrayBuffer): Promise<string> {
+    const digest = new Uint8Array(await crypto.subtle.digest('SHA-256', body));
+    return `"${Array.from(digest, (b) => b.toString(16).padStart(2, '0')).join('')}"`;
+}
+
+// Whether an `If-None-Match` header matches an entity tag; weak comparison, as RFC 9110 requires for this header.
+function matchesEtag(ifNoneMatch: string | null, etag: string): boolean {
+    if (!ifNoneMatch) {
+        return false;
+    }
+    return ifNoneMatch.split(',').some((candidate) => {
+        const tag = candidate.trim();
+        return tag === '*' || tag.replace(/^W\//, '') === etag;
+    });
+}
+
+// Fetch a revision of the script from the origin, and cache it at the edge. Returns the origin's response as-is if
+// it isn't a success, or `null` if the origin can't be reached.
+async function fetchFromOrigin(rev: Revision, key: string, ctx: ServeContext): Promise<Response | null> {
+    let upstream: Response;
+    try {
+        upstream = await fetch(`${ctx.origin}/${rev.type}/${rev.revision}/${expectedScript}`);
+    } catch {
+        return null;
+    }
+    if (!upstream.ok) {
+        return upstream;
+    }
+    const body = await upstream.arrayBuffer();
+    const headers = new Headers();
+    headers.set('Content-Type', contentType);
+    headers.set('Cache-Control', renderCacheControl(rev.immutable));
+    headers.set('ETag', await entityTag(body));
+    const response = new Response(body, { status: 200, headers });
+    ctx.waitUntil(ctx.cache.put(key, response.clone()));
+    return response;
+}
+
+// Serve a request for the script.
+export async function serveScript(request: Request, ctx: ServeContext): Promise<Response> {
+    const { pathname } = new URL(request.url);
+    const rev = resolveRevision(pathname);
+    if (!rev) {
+        return new Response('NOT_FOUND', { status: 404 });
+    }
+    if (request.method !== 'GET' && request.method !== 'HEAD') {
+        return new Response('METHOD_NOT_ALLOWED', { status: 405, headers: { Allow: 'GET, HEAD' } });
+    }
+
+    const key = `${cacheKeyBase}/${rev.type}/${rev.revision}`;
+    const cached = await ctx.cache.match(key);
+    const response = cached ?? await fetchFromOrigin(rev, key, ctx);
+    if (!response) {
+        const headers = new Headers();
+        headers.set('Cache-Control', 'no-store');
+        headers.set('Location', `${githubUrlBase}/${rev.type}/${rev.revision}/${expectedScript}`);
+        return new Response(null, { status: redirectStatus, headers });
+    }
+    if (!response.ok) {
+        const status = response.status === 404 ? 404 : 502;
+        return new Response(status === 404 ? 'NOT_FOUND' : 'BAD_GATEWAY', {
+            status,
+            headers: { 'Cache-Control': 'no-store' },
+        });
+    }
+
+    const etag = response.headers.get('ETag') ?? '';
+    const headers = new Headers();
+    headers.set('Cache-Control', response.headers.get('Cache-Control') ?? renderCacheControl(rev.immutable));
+    headers.set('ETag', etag);
+    if (matchesEtag(request.headers.get('If-None-Match'), etag)) {
+        return new Response(null, { status: 304, headers });
+    }
+    headers.set('Content-Type', contentType);
+    return new Response(request.method === 'HEAD' ? null : response.body, { status: 200, headers });
+}
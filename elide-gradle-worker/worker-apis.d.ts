@@ -3,6 +3,7 @@
 // Runtime types generated with workerd@1.20250525.0 2025-03-14 
 export {};
 declare global {
+	const ORIGIN_URL: "https://raw.githubusercontent.com/elide-dev/gradle";
 	const ANALYTICS: AnalyticsEngineDataset;
 }
 